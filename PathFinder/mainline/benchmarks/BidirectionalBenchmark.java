@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package benchmarks;
+
+import java.awt.Point;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.BidirectionalPathfinder;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+
+/**
+ * Compares <code>BidirectionalPathfinder</code> with <code>Pathfinder</code> on the maze
+ * from the unit tests scaled up, every cell of the maze becomes a square of cells.
+ * Prints the number of expansions and the average time of a search for every scale.
+ * @author Egor Tsinko
+ */
+public class BidirectionalBenchmark
+{
+	private static final int NP = -1;
+
+	/** the maze <code>h1</code> from <code>PathFinderTest</code> */
+	private static final int[][] MAZE = {{ 1, 1, 1,NP, 1, 1, 1},
+										 {NP,NP, 1,NP, 1,NP, 1},
+										 {NP, 1, 1,NP, 1,NP, 1},
+										 { 1,NP,NP,NP, 1,NP, 1},
+										 { 1,NP, 1, 1,NP,NP, 1},
+										 { 1,NP, 1,NP,NP, 1,NP},
+										 { 1, 1, 1,NP, 1, 1, 1}};
+
+	private static final int[] SCALES = {1, 4, 16, 32, 64};
+
+	private static final int ITERATIONS = 20;
+
+	/**
+	 * Creates the maze where every cell is a <b>scale</b> x <b>scale</b> square
+	 */
+	static ArrayGridMap scaleMaze(int scale)
+	{
+		int size = MAZE.length * scale;
+		ArrayGridMap map = new ArrayGridMap(size, size);
+		for (int x = 0; x < size; x++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				map.setCost(x, y, MAZE[x / scale][y / scale]);
+			}
+		}
+		return map;
+	}
+
+	public static void main(String[] args)
+	{
+		System.out.println("scale  cells      A* steps  A* us/op   bi steps  bi us/op");
+		for (int scale : SCALES)
+		{
+			ArrayGridMap map = scaleMaze(scale);
+			GridPathHelper helper = new GridPathHelper(map);
+			Point start = new Point(0, 0);
+			Point goal = new Point(map.getWidth() - 1, map.getHeight() - 1);
+
+			Pathfinder<Point> finder = new Pathfinder<Point>();
+			BidirectionalPathfinder<Point> bidirectional = new BidirectionalPathfinder<Point>();
+			//Warm up
+			for (int i = 0; i < ITERATIONS; i++)
+			{
+				finder.findPath(helper, start, goal);
+				bidirectional.findPath(helper, start, goal);
+			}
+
+			long finderTime = 0;
+			long bidirectionalTime = 0;
+			for (int i = 0; i < ITERATIONS; i++)
+			{
+				finder.findPath(helper, start, goal);
+				finderTime += finder.getElapsedTime();
+				bidirectional.findPath(helper, start, goal);
+				bidirectionalTime += bidirectional.getElapsedTime();
+			}
+			System.out.printf("%5d %7d %12d %9.1f %10d %9.1f%n", scale, map.getWidth() * map.getHeight(),
+					finder.getSteps(), finderTime / 1000.0 / ITERATIONS,
+					bidirectional.getSteps(), bidirectionalTime / 1000.0 / ITERATIONS);
+		}
+	}
+}
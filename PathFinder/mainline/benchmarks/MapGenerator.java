@@ -0,0 +1,322 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package benchmarks;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+
+/**
+ * Generates synthetic grid maps for the benchmarks. The same <b>seed</b> always gives the
+ * same map, so the results of different runs and versions can be compared.
+ * Walls have the cost -1, the passable cells of all the maps except the weighted terrain
+ * have the cost 1.
+ * @author Egor Tsinko
+ */
+public class MapGenerator
+{
+	/**
+	 * Kinds of the generated maps
+	 */
+	public enum MapType
+	{
+		/** perfect maze with corridors of width 1 and without loops */
+		MAZE,
+		/** rectangular rooms connected by corridors */
+		ROOMS,
+		/** open field with randomly placed single cell obstacles */
+		RANDOM,
+		/** open field with costs from 1 to 9 which change smoothly, like hills and swamps */
+		WEIGHTED
+	}
+
+	private static final int NP = -1;
+
+	/** part of the cells which are obstacles on the <code>RANDOM</code> maps */
+	private static final double OBSTACLE_DENSITY = 0.25;
+
+	/** distance between the control points of the <code>WEIGHTED</code> maps */
+	private static final int TERRAIN_STEP = 16;
+
+	/**
+	 * Generates a map of the given type
+	 * @param type type of the map
+	 * @param size width and height of the map
+	 * @param seed seed of the random generator
+	 * @return the map
+	 */
+	public static ArrayGridMap generate(MapType type, int size, long seed)
+	{
+		switch (type)
+		{
+		case MAZE:
+			return maze(size, seed);
+		case ROOMS:
+			return rooms(size, seed);
+		case RANDOM:
+			return randomObstacles(size, OBSTACLE_DENSITY, seed);
+		default:
+			return weightedTerrain(size, seed);
+		}
+	}
+
+	/**
+	 * Generates a perfect maze with a randomized depth first search. Cells with both
+	 * coordinates odd are the rooms of the maze, the walls between them are removed when
+	 * the search moves from one room to another. The rooms and the passages between them form
+	 * a tree, but with the diagonal moves of <code>GridPathHelper</code> a path can cut the
+	 * corner of a room where two passages meet.
+	 * @param size width and height of the map
+	 * @param seed seed of the random generator
+	 * @return the maze
+	 */
+	public static ArrayGridMap maze(int size, long seed)
+	{
+		Random random = new Random(seed);
+		ArrayGridMap map = filled(size, NP);
+		int rooms = (size - 1) / 2;
+		if (rooms == 0)
+		{
+			return map;
+		}
+		int[] dx = {0, 1, 0, -1};
+		int[] dy = {-1, 0, 1, 0};
+		boolean[] visited = new boolean[rooms * rooms];
+		int[] stack = new int[rooms * rooms];
+		int top = 0;
+		stack[top++] = 0;
+		visited[0] = true;
+		map.setCost(1, 1, 1);
+		int[] candidates = new int[4];
+		while (top > 0)
+		{
+			int room = stack[top - 1];
+			int rx = room % rooms;
+			int ry = room / rooms;
+			int count = 0;
+			for (int d = 0; d < 4; d++)
+			{
+				int nx = rx + dx[d];
+				int ny = ry + dy[d];
+				if (nx >= 0 && ny >= 0 && nx < rooms && ny < rooms && !visited[ny * rooms + nx])
+				{
+					candidates[count++] = d;
+				}
+			}
+			if (count == 0)
+			{
+				top--;
+				continue;
+			}
+			int d = candidates[random.nextInt(count)];
+			int nx = rx + dx[d];
+			int ny = ry + dy[d];
+			visited[ny * rooms + nx] = true;
+			//Remove the wall between the rooms and open the next room
+			map.setCost(2 * rx + 1 + dx[d], 2 * ry + 1 + dy[d], 1);
+			map.setCost(2 * nx + 1, 2 * ny + 1, 1);
+			stack[top++] = ny * rooms + nx;
+		}
+		return map;
+	}
+
+	/**
+	 * Generates rectangular rooms which don't overlap and connects every room with the
+	 * previous one by an L-shaped corridor, so all the rooms are connected.
+	 * @param size width and height of the map
+	 * @param seed seed of the random generator
+	 * @return the map
+	 */
+	public static ArrayGridMap rooms(int size, long seed)
+	{
+		Random random = new Random(seed);
+		ArrayGridMap map = filled(size, NP);
+		int maxRoom = Math.max(3, size / 8);
+		List<int[]> rooms = new ArrayList<int[]>();
+		int attempts = size * 4;
+		for (int i = 0; i < attempts; i++)
+		{
+			int w = 3 + random.nextInt(maxRoom - 2);
+			int h = 3 + random.nextInt(maxRoom - 2);
+			if (w >= size - 2 || h >= size - 2)
+			{
+				continue;
+			}
+			int x = 1 + random.nextInt(size - w - 1);
+			int y = 1 + random.nextInt(size - h - 1);
+			if (!isFree(map, x - 1, y - 1, w + 2, h + 2))
+			{
+				continue;
+			}
+			fill(map, x, y, w, h, 1);
+			int[] room = {x + w / 2, y + h / 2};
+			if (!rooms.isEmpty())
+			{
+				int[] previous = rooms.get(rooms.size() - 1);
+				if (random.nextBoolean())
+				{
+					corridor(map, previous[0], previous[1], room[0], previous[1]);
+					corridor(map, room[0], previous[1], room[0], room[1]);
+				}
+				else
+				{
+					corridor(map, previous[0], previous[1], previous[0], room[1]);
+					corridor(map, previous[0], room[1], room[0], room[1]);
+				}
+			}
+			rooms.add(room);
+		}
+		return map;
+	}
+
+	/**
+	 * Generates an open field where every cell is an obstacle with the probability
+	 * <b>density</b>
+	 * @param size width and height of the map
+	 * @param density part of the cells that are obstacles, from 0.0 to 1.0
+	 * @param seed seed of the random generator
+	 * @return the map
+	 */
+	public static ArrayGridMap randomObstacles(int size, double density, long seed)
+	{
+		Random random = new Random(seed);
+		ArrayGridMap map = filled(size, 1);
+		for (int x = 0; x < size; x++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				if (random.nextDouble() < density)
+				{
+					map.setCost(x, y, NP);
+				}
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Generates a field without obstacles where the costs from 1 to 9 are interpolated
+	 * between random values of a coarse grid of control points
+	 * @param size width and height of the map
+	 * @param seed seed of the random generator
+	 * @return the map
+	 */
+	public static ArrayGridMap weightedTerrain(int size, long seed)
+	{
+		Random random = new Random(seed);
+		int controls = size / TERRAIN_STEP + 2;
+		double[][] heights = new double[controls][controls];
+		for (int i = 0; i < controls; i++)
+		{
+			for (int j = 0; j < controls; j++)
+			{
+				heights[i][j] = random.nextDouble();
+			}
+		}
+		ArrayGridMap map = new ArrayGridMap(size, size);
+		for (int x = 0; x < size; x++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				int cx = x / TERRAIN_STEP;
+				int cy = y / TERRAIN_STEP;
+				double fx = (x % TERRAIN_STEP) / (double) TERRAIN_STEP;
+				double fy = (y % TERRAIN_STEP) / (double) TERRAIN_STEP;
+				double top = heights[cx][cy] * (1 - fx) + heights[cx + 1][cy] * fx;
+				double bottom = heights[cx][cy + 1] * (1 - fx) + heights[cx + 1][cy + 1] * fx;
+				double height = top * (1 - fy) + bottom * fy;
+				map.setCost(x, y, 1 + (int) (height * 8.999));
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Chooses random pairs of passable cells
+	 * @param map the map
+	 * @param count number of pairs
+	 * @param seed seed of the random generator
+	 * @return array of pairs, the start is the first point of a pair and the goal is the second
+	 */
+	public static Point[][] randomQueries(ArrayGridMap map, int count, long seed)
+	{
+		Random random = new Random(seed);
+		Point[][] queries = new Point[count][];
+		for (int i = 0; i < count; i++)
+		{
+			queries[i] = new Point[] {randomPassable(map, random), randomPassable(map, random)};
+		}
+		return queries;
+	}
+
+	private static Point randomPassable(ArrayGridMap map, Random random)
+	{
+		while (true)
+		{
+			int x = random.nextInt(map.getWidth());
+			int y = random.nextInt(map.getHeight());
+			if (map.getCost(x, y) >= 0)
+			{
+				return new Point(x, y);
+			}
+		}
+	}
+
+	private static ArrayGridMap filled(int size, int cost)
+	{
+		ArrayGridMap map = new ArrayGridMap(size, size);
+		fill(map, 0, 0, size, size, cost);
+		return map;
+	}
+
+	private static void fill(ArrayGridMap map, int x, int y, int w, int h, int cost)
+	{
+		for (int i = x; i < x + w; i++)
+		{
+			for (int j = y; j < y + h; j++)
+			{
+				map.setCost(i, j, cost);
+			}
+		}
+	}
+
+	private static boolean isFree(ArrayGridMap map, int x, int y, int w, int h)
+	{
+		for (int i = x; i < x + w; i++)
+		{
+			for (int j = y; j < y + h; j++)
+			{
+				if (map.getCost(i, j) >= 0)
+				{
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private static void corridor(ArrayGridMap map, int x1, int y1, int x2, int y2)
+	{
+		fill(map, Math.min(x1, x2), Math.min(y1, y2), Math.abs(x2 - x1) + 1, Math.abs(y2 - y1) + 1, 1);
+	}
+}
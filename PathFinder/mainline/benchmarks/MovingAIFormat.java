@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package benchmarks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.IGridMap;
+
+/**
+ * Reads and writes grid maps and scenarios in the <code>.map</code> and <code>.scen</code>
+ * formats of the Moving AI Lab grid benchmarks.<br>
+ * In a <code>.map</code> file the cells '.', 'G' and 'S' are passable with the cost 1 and
+ * all the other cells ('@', 'O', 'T', 'W') are walls. As an extension of the format, the
+ * digits '2' to '9' are passable cells with that cost, so the weighted maps can be saved
+ * too. Such files can't be read by other tools. Higher costs are saved as 9.<br>
+ * The original benchmarks don't allow diagonal moves past the corners of walls while
+ * <code>GridPathHelper</code> does, so the optimal lengths of their scenarios can be longer
+ * than the paths found on the same maps here.
+ * @author Egor Tsinko
+ */
+public class MovingAIFormat
+{
+	/**
+	 * A single query of a scenario file
+	 */
+	public static class Scenario
+	{
+		private final int bucket;
+		private final String map;
+		private final int width;
+		private final int height;
+		private final int startX;
+		private final int startY;
+		private final int goalX;
+		private final int goalY;
+		private final double optimalLength;
+
+		/**
+		 * @param bucket group of queries of similar length
+		 * @param map name of the map file
+		 * @param width width of the map
+		 * @param height height of the map
+		 * @param startX x coordinate of the start
+		 * @param startY y coordinate of the start
+		 * @param goalX x coordinate of the goal
+		 * @param goalY y coordinate of the goal
+		 * @param optimalLength cost of the optimal path
+		 */
+		public Scenario(int bucket, String map, int width, int height, int startX, int startY,
+				int goalX, int goalY, double optimalLength)
+		{
+			this.bucket = bucket;
+			this.map = map;
+			this.width = width;
+			this.height = height;
+			this.startX = startX;
+			this.startY = startY;
+			this.goalX = goalX;
+			this.goalY = goalY;
+			this.optimalLength = optimalLength;
+		}
+
+		public int getBucket()
+		{
+			return bucket;
+		}
+
+		public String getMap()
+		{
+			return map;
+		}
+
+		public int getWidth()
+		{
+			return width;
+		}
+
+		public int getHeight()
+		{
+			return height;
+		}
+
+		public int getStartX()
+		{
+			return startX;
+		}
+
+		public int getStartY()
+		{
+			return startY;
+		}
+
+		public int getGoalX()
+		{
+			return goalX;
+		}
+
+		public int getGoalY()
+		{
+			return goalY;
+		}
+
+		public double getOptimalLength()
+		{
+			return optimalLength;
+		}
+	}
+
+	/**
+	 * Reads a map in the <code>.map</code> format
+	 * @param in source of the map
+	 * @return the map
+	 * @throws IOException if the source can't be read or the map is malformed
+	 */
+	public static ArrayGridMap readMap(Reader in) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(in);
+		int width = -1;
+		int height = -1;
+		String line;
+		while ((line = reader.readLine()) != null && !line.trim().equals("map"))
+		{
+			String[] words = line.trim().split("\\s+");
+			if (words.length == 2 && words[0].equals("width"))
+			{
+				width = Integer.parseInt(words[1]);
+			}
+			else if (words.length == 2 && words[0].equals("height"))
+			{
+				height = Integer.parseInt(words[1]);
+			}
+		}
+		if (line == null || width < 0 || height < 0)
+		{
+			throw new IOException("Map header is incomplete");
+		}
+		ArrayGridMap map = new ArrayGridMap(width, height);
+		for (int y = 0; y < height; y++)
+		{
+			line = reader.readLine();
+			if (line == null || line.length() < width)
+			{
+				throw new IOException("Row " + y + " of the map is missing or too short");
+			}
+			for (int x = 0; x < width; x++)
+			{
+				map.setCost(x, y, cellCost(line.charAt(x)));
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Writes the <b>map</b> in the <code>.map</code> format
+	 * @param map the map
+	 * @param out destination of the map
+	 * @throws IOException if the map can't be written
+	 */
+	public static void writeMap(IGridMap map, Writer out) throws IOException
+	{
+		PrintWriter writer = new PrintWriter(out);
+		writer.print("type octile\n");
+		writer.print("height " + map.getHeight() + "\n");
+		writer.print("width " + map.getWidth() + "\n");
+		writer.print("map\n");
+		StringBuilder row = new StringBuilder(map.getWidth());
+		for (int y = 0; y < map.getHeight(); y++)
+		{
+			row.setLength(0);
+			for (int x = 0; x < map.getWidth(); x++)
+			{
+				row.append(cellChar(map.getCost(x, y)));
+			}
+			writer.print(row);
+			writer.print('\n');
+		}
+		writer.flush();
+		if (writer.checkError())
+		{
+			throw new IOException("The map can't be written");
+		}
+	}
+
+	/**
+	 * Reads queries in the <code>.scen</code> format
+	 * @param in source of the scenario
+	 * @return the queries in the order of the file
+	 * @throws IOException if the source can't be read or the scenario is malformed
+	 */
+	public static List<Scenario> readScenarios(Reader in) throws IOException
+	{
+		BufferedReader reader = new BufferedReader(in);
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		String line;
+		while ((line = reader.readLine()) != null)
+		{
+			if (line.trim().length() == 0 || line.startsWith("version"))
+			{
+				continue;
+			}
+			String[] fields = line.split("\t");
+			if (fields.length < 9)
+			{
+				throw new IOException("Malformed scenario line: " + line);
+			}
+			try
+			{
+				scenarios.add(new Scenario(Integer.parseInt(fields[0]), fields[1],
+						Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+						Integer.parseInt(fields[4]), Integer.parseInt(fields[5]),
+						Integer.parseInt(fields[6]), Integer.parseInt(fields[7]),
+						Double.parseDouble(fields[8])));
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IOException("Malformed scenario line: " + line);
+			}
+		}
+		return scenarios;
+	}
+
+	/**
+	 * Writes the queries in the <code>.scen</code> format
+	 * @param scenarios the queries
+	 * @param out destination of the scenario
+	 * @throws IOException if the scenario can't be written
+	 */
+	public static void writeScenarios(List<Scenario> scenarios, Writer out) throws IOException
+	{
+		PrintWriter writer = new PrintWriter(out);
+		writer.print("version 1\n");
+		for (Scenario s : scenarios)
+		{
+			writer.print(String.format(Locale.US, "%d\t%s\t%d\t%d\t%d\t%d\t%d\t%d\t%.8f\n", s.getBucket(),
+					s.getMap(), s.getWidth(), s.getHeight(), s.getStartX(), s.getStartY(), s.getGoalX(),
+					s.getGoalY(), s.getOptimalLength()));
+		}
+		writer.flush();
+		if (writer.checkError())
+		{
+			throw new IOException("The scenario can't be written");
+		}
+	}
+
+	private static int cellCost(char c)
+	{
+		if (c == '.' || c == 'G' || c == 'S')
+		{
+			return 1;
+		}
+		if (c >= '2' && c <= '9')
+		{
+			return c - '0';
+		}
+		return -1;
+	}
+
+	private static char cellChar(int cost)
+	{
+		if (cost < 0)
+		{
+			return '@';
+		}
+		if (cost <= 1)
+		{
+			return '.';
+		}
+		return (char) ('0' + Math.min(cost, 9));
+	}
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package benchmarks;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.LandmarkHeuristic;
+import pathfinder.Pathfinder;
+import pathfinder.SearchMetrics;
+import pathfinder.heuristics.DiagonalEqual;
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.heuristics.EuclidianHeuristic;
+import pathfinder.heuristics.IHeuristic;
+import pathfinder.heuristics.ManhattanHeuristic;
+import benchmarks.MapGenerator.MapType;
+import benchmarks.MovingAIFormat.Scenario;
+
+/**
+ * Measures <code>Pathfinder.findPath</code> with every heuristic on the maps of
+ * <code>MapGenerator</code> or on a map and a scenario in the Moving AI formats. For every
+ * map and heuristic it prints the throughput, the percentiles of the latency of a single
+ * query, the number of bytes allocated per query and the average number of expanded nodes.<br>
+ * Usage:<br>
+ * <code>PathfinderBenchmark</code> - runs the generated maps<br>
+ * <code>PathfinderBenchmark -write dir</code> - also saves the generated maps and their
+ * scenarios to the directory<br>
+ * <code>PathfinderBenchmark file.map file.scen</code> - runs the queries of the scenario<br>
+ * This is a quick stand alone runner, the JMH version of the benchmark is
+ * <code>PathfinderJmhBenchmark</code> in the <code>jmh</code> source folder.
+ * @author Egor Tsinko
+ */
+public class PathfinderBenchmark
+{
+	static final int[] SIZES = {64, 256, 512};
+
+	static final long SEED = 2007;
+
+	static final int QUERIES = 200;
+
+	private static final int LANDMARKS = 8;
+
+	private static final int WARMUP_ROUNDS = 3;
+
+	private static final int ROUNDS = 5;
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		File writeDir = null;
+		if (args.length == 2 && args[0].equals("-write"))
+		{
+			writeDir = new File(args[1]);
+			writeDir.mkdirs();
+		}
+		else if (args.length == 2)
+		{
+			runScenario(new File(args[0]), new File(args[1]));
+			return;
+		}
+		else if (args.length != 0)
+		{
+			System.out.println("Usage: PathfinderBenchmark [-write dir | file.map file.scen]");
+			return;
+		}
+
+		printHeader();
+		for (MapType type : MapType.values())
+		{
+			for (int size : SIZES)
+			{
+				ArrayGridMap map = MapGenerator.generate(type, size, SEED);
+				Point[][] queries = MapGenerator.randomQueries(map, QUERIES, SEED);
+				String name = type.name().toLowerCase() + "-" + size;
+				if (writeDir != null)
+				{
+					save(writeDir, name, map, queries);
+				}
+				runHeuristics(name, map, queries);
+			}
+		}
+	}
+
+	private static void runScenario(File mapFile, File scenarioFile) throws IOException, InterruptedException
+	{
+		ArrayGridMap map;
+		List<Scenario> scenarios;
+		Reader in = new FileReader(mapFile);
+		try
+		{
+			map = MovingAIFormat.readMap(in);
+		}
+		finally
+		{
+			in.close();
+		}
+		in = new FileReader(scenarioFile);
+		try
+		{
+			scenarios = MovingAIFormat.readScenarios(in);
+		}
+		finally
+		{
+			in.close();
+		}
+		Point[][] queries = new Point[scenarios.size()][];
+		for (int i = 0; i < queries.length; i++)
+		{
+			Scenario s = scenarios.get(i);
+			queries[i] = new Point[] {new Point(s.getStartX(), s.getStartY()), new Point(s.getGoalX(), s.getGoalY())};
+		}
+		printHeader();
+		runHeuristics(mapFile.getName(), map, queries);
+	}
+
+	/**
+	 * Saves the map and the queries with their optimal lengths, computed with Dijkstra's search
+	 */
+	private static void save(File dir, String name, ArrayGridMap map, Point[][] queries) throws IOException
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(new IHeuristic<Point>()
+		{
+			public float calculateHeuristic(Point start, Point goal)
+			{
+				return 0;
+			}
+		});
+		GridPathHelper helper = new GridPathHelper(map);
+		List<Scenario> scenarios = new ArrayList<Scenario>();
+		for (Point[] query : queries)
+		{
+			if (finder.findPath(helper, query[0], query[1]) != null)
+			{
+				double length = finder.getGVal(query[1]);
+				scenarios.add(new Scenario((int) (length / 4), name + ".map", map.getWidth(), map.getHeight(),
+						query[0].x, query[0].y, query[1].x, query[1].y, length));
+			}
+		}
+		Writer out = new FileWriter(new File(dir, name + ".map"));
+		try
+		{
+			MovingAIFormat.writeMap(map, out);
+		}
+		finally
+		{
+			out.close();
+		}
+		out = new FileWriter(new File(dir, name + ".map.scen"));
+		try
+		{
+			MovingAIFormat.writeScenarios(scenarios, out);
+		}
+		finally
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Creates every heuristic for the map, the landmarks are chosen from the first start point
+	 */
+	static Map<String, IHeuristic<Point>> heuristics(ArrayGridMap map, Point seed) throws InterruptedException
+	{
+		Map<String, IHeuristic<Point>> result = new LinkedHashMap<String, IHeuristic<Point>>();
+		result.put("manhattan", new ManhattanHeuristic<Point>());
+		result.put("diagonal", new DiagonalEqual<Point>());
+		result.put("octile", new DiagonalNotEqual<Point>());
+		result.put("euclidian", new EuclidianHeuristic<Point>());
+		result.put("landmarks", LandmarkHeuristic.build(new GridPathHelper(map), map.getWidth(), map.getHeight(),
+				seed, LANDMARKS, Runtime.getRuntime().availableProcessors()));
+		return result;
+	}
+
+	private static void runHeuristics(String name, ArrayGridMap map, Point[][] queries) throws InterruptedException
+	{
+		GridPathHelper helper = new GridPathHelper(map);
+		for (Map.Entry<String, IHeuristic<Point>> entry : heuristics(map, queries[0][0]).entrySet())
+		{
+			Pathfinder<Point> finder = new Pathfinder<Point>();
+			finder.setHeuristic(entry.getValue());
+			for (int round = 0; round < WARMUP_ROUNDS; round++)
+			{
+				for (Point[] query : queries)
+				{
+					finder.findPath(helper, query[0], query[1]);
+				}
+			}
+
+			SearchMetrics metrics = new SearchMetrics();
+			finder.setListener(metrics);
+			long[] latencies = new long[ROUNDS * queries.length];
+			int n = 0;
+			long allocated = allocatedBytes();
+			long startTime = System.nanoTime();
+			for (int round = 0; round < ROUNDS; round++)
+			{
+				for (Point[] query : queries)
+				{
+					long queryStart = System.nanoTime();
+					finder.findPath(helper, query[0], query[1]);
+					latencies[n++] = System.nanoTime() - queryStart;
+				}
+			}
+			long totalTime = System.nanoTime() - startTime;
+			long allocatedPerQuery = allocated < 0 ? -1 : (allocatedBytes() - allocated) / n;
+
+			Arrays.sort(latencies);
+			System.out.printf("%-16s %-10s %10.0f %9.1f %9.1f %9.1f %10d %10.0f%n", name, entry.getKey(),
+					n / (totalTime / 1e9), percentile(latencies, 0.5) / 1000.0, percentile(latencies, 0.99) / 1000.0,
+					percentile(latencies, 0.999) / 1000.0, allocatedPerQuery, metrics.getExpandedNodes().getMean());
+		}
+	}
+
+	private static void printHeader()
+	{
+		System.out.println("map              heuristic       ops/s   p50 us    p99 us  p99.9 us    B/query  exp/query");
+	}
+
+	private static long percentile(long[] sorted, double fraction)
+	{
+		int index = (int) Math.ceil(fraction * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+	}
+
+	/**
+	 * @return number of bytes allocated by the calling thread or -1 if the JVM can't tell it
+	 */
+	public static long allocatedBytes()
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean)
+		{
+			com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+			if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled())
+			{
+				return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+			}
+		}
+		return -1;
+	}
+}
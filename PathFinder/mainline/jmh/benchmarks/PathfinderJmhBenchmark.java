@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package benchmarks;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+import benchmarks.MapGenerator.MapType;
+
+/**
+ * JMH benchmark of <code>Pathfinder.findPath</code> on the maps of <code>MapGenerator</code>
+ * with every heuristic. Every invocation runs the next query of a fixed list of random
+ * queries, so the results are averaged over short and long paths.<br>
+ * The <code>jmh</code> folder is a separate source folder, it needs <code>jmh-core</code>
+ * and <code>jmh-generator-annprocess</code> on the class path and the main source folder,
+ * which has the map generator. Run it with<br>
+ * <code>java org.openjdk.jmh.Main PathfinderJmhBenchmark -prof gc</code><br>
+ * The throughput mode gives ops/s and the sample mode gives the percentiles of the latency,
+ * the <code>gc</code> profiler reports the allocation rate and bytes per query, and the
+ * <code>expansions</code> counter is the number of expanded nodes per query.
+ * @author Egor Tsinko
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PathfinderJmhBenchmark
+{
+	@Param({"MAZE", "ROOMS", "RANDOM", "WEIGHTED"})
+	public MapType mapType;
+
+	@Param({"64", "256", "512"})
+	public int size;
+
+	@Param({"manhattan", "diagonal", "octile", "euclidian", "landmarks"})
+	public String heuristic;
+
+	private GridPathHelper helper;
+
+	private Pathfinder<Point> finder;
+
+	private Point[][] queries;
+
+	private int next = 0;
+
+	/**
+	 * Number of expanded nodes, reported by JMH per invocation
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Counters
+	{
+		public long expansions;
+
+		@Setup(Level.Iteration)
+		public void clear()
+		{
+			expansions = 0;
+		}
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() throws InterruptedException
+	{
+		ArrayGridMap map = MapGenerator.generate(mapType, size, PathfinderBenchmark.SEED);
+		helper = new GridPathHelper(map);
+		queries = MapGenerator.randomQueries(map, PathfinderBenchmark.QUERIES, PathfinderBenchmark.SEED);
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(PathfinderBenchmark.heuristics(map, queries[0][0]).get(heuristic));
+	}
+
+	@Benchmark
+	public List<Point> findPath(Counters counters)
+	{
+		Point[] query = queries[next];
+		next = next + 1 == queries.length ? 0 : next + 1;
+		List<Point> path = finder.findPath(helper, query[0], query[1]);
+		counters.expansions += finder.getSteps();
+		return path;
+	}
+}
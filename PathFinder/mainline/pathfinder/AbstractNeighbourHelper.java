@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base class for helpers which only implement the sink based enumeration of the
+ * neighbours. The list based methods of <code>IPathHelper</code>, used by the engines other
+ * than <code>Pathfinder</code>, are implemented through it.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public abstract class AbstractNeighbourHelper<T extends Point> implements INeighbourHelper<T>
+{
+	public List<T> getNeighbours(T point)
+	{
+		final List<T> points = new ArrayList<T>(8);
+		getNeighbours(point, new INeighbourSink()
+		{
+			public void addNeighbour(int x, int y, float cost)
+			{
+				points.add(createPoint(x, y));
+			}
+		});
+		return points;
+	}
+
+	/**
+	 * Finds the cost among the neighbours of the <b>sourcePoint</b>
+	 * @return the cost or <code>Float.POSITIVE_INFINITY</code> if <b>destPoint</b> is not a neighbour
+	 */
+	public float getCost(T sourcePoint, final T destPoint)
+	{
+		final float[] result = {Float.POSITIVE_INFINITY};
+		getNeighbours(sourcePoint, new INeighbourSink()
+		{
+			public void addNeighbour(int x, int y, float cost)
+			{
+				if (x == destPoint.x && y == destPoint.y && result[0] == Float.POSITIVE_INFINITY)
+				{
+					result[0] = cost;
+				}
+			}
+		});
+		return result[0];
+	}
+}
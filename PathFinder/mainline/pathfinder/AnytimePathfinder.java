@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.LinkedList;
+import java.util.List;
+
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Anytime path finder based on ARA* (Anytime Repairing A*). The first search inflates the
+ * heuristic by the initial weight, so a path, at most weight times more expensive than the
+ * optimal one, is found quickly. Then the weight is decreased step by step and every next
+ * search improves the path, reusing the nodes of the previous searches: only the nodes
+ * which became inconsistent are expanded again. The search stops when the time limit
+ * expires, the bound on suboptimality reaches the target or the path is proven optimal,
+ * and returns the best path found so far with its bound.<br>
+ * The heuristic must not overestimate the cost, otherwise the bounds are not valid.
+ * An instance must not be used by several threads at the same time. The algorithm is
+ * described in <a href="http://www.cs.cmu.edu/~maxim/files/ara_nips03.pdf">ARA*</a> by
+ * M. Likhachev, G. Gordon and S. Thrun.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class AnytimePathfinder<T extends Point>
+{
+	/** how often the deadline is checked, in expanded nodes */
+	private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+	private IHeuristic<T> heuristic = new DiagonalNotEqual<T>();
+
+	private double scale = 1.0;
+
+	private double initialWeight = 3.0;
+
+	private double weightStep = 0.5;
+
+	private final Nodes<T> nodes = new Nodes<T>();
+
+	private final IndexedBinaryHeap openNodes = new IndexedBinaryHeap(nodes);
+
+	private IPathHelper<T> helper;
+
+	private T goal;
+
+	/** current weight of the heuristic */
+	private double weight;
+
+	private long deadline;
+
+	private int steps;
+
+	/**
+	 * Nodes with the heuristic estimate kept separately from <code>hVal</code>, which holds
+	 * the estimate multiplied by the current weight
+	 */
+	private static class Nodes<T extends Point> extends NodeStore<T>
+	{
+		double[] h;
+
+		/** true for the closed nodes which got cheaper routes during the current iteration */
+		boolean[] inconsistent;
+
+		void allocate(int capacity)
+		{
+			super.allocate(capacity);
+			h = grow(h, capacity);
+			inconsistent = grow(inconsistent, capacity);
+		}
+	}
+
+	/**
+	 * Sets new scale for results of the heuristics. The default value is 1.0
+	 * @param scale new scale
+	 * @see Pathfinder#setScale(double)
+	 */
+	public void setScale(double scale)
+	{
+		this.scale = scale;
+	}
+
+	/**
+	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>
+	 * @param heuristic
+	 */
+	public void setHeuristic(IHeuristic<T> heuristic)
+	{
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Sets the weight of the heuristic for the first search. The default is 3.0
+	 * @param initialWeight weight, not less than 1.0
+	 */
+	public void setInitialWeight(double initialWeight)
+	{
+		if (initialWeight < 1.0)
+		{
+			throw new IllegalArgumentException("Weight must not be less than 1.0: " + initialWeight);
+		}
+		this.initialWeight = initialWeight;
+	}
+
+	/**
+	 * Sets how much the weight is decreased before every next search. The default is 0.5
+	 * @param weightStep positive decrement of the weight
+	 */
+	public void setWeightStep(double weightStep)
+	{
+		if (weightStep <= 0.0)
+		{
+			throw new IllegalArgumentException("Weight step must be positive: " + weightStep);
+		}
+		this.weightStep = weightStep;
+	}
+
+	/**
+	 * Finds the best path from <b>start</b> to <b>goal</b> within the <b>timeLimit</b>,
+	 * improving it until it is proven optimal
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @param timeLimit time limit in nanoseconds
+	 * @return the best path found and its bound
+	 */
+	public AnytimeResult<T> findPath(IPathHelper<T> helper, T start, T goal, long timeLimit)
+	{
+		return findPath(helper, start, goal, timeLimit, 1.0);
+	}
+
+	/**
+	 * Finds the best path from <b>start</b> to <b>goal</b> within the <b>timeLimit</b>. The path
+	 * is improved until its cost is proven to be at most <b>targetBound</b> times the cost of
+	 * the optimal path.
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @param timeLimit time limit in nanoseconds
+	 * @param targetBound suboptimality that is good enough, 1.0 to search for the optimal path
+	 * @return the best path found and its bound. If the time limit expires before the
+	 * first path is found, the result contains no path.
+	 */
+	public AnytimeResult<T> findPath(IPathHelper<T> helper, T start, T goal, long timeLimit, double targetBound)
+	{
+		long startTime = System.nanoTime();
+		deadline = startTime + timeLimit;
+		steps = 0;
+		if (start.equals(goal))
+		{
+			return new AnytimeResult<T>(new LinkedList<T>(), 0.0, 1.0, 0, 0, System.nanoTime() - startTime);
+		}
+		this.helper = helper;
+		this.goal = goal;
+		this.weight = initialWeight;
+		nodes.clear();
+		openNodes.clear();
+		int startNode = nodes.add(start);
+		nodes.h[startNode] = calculateHVal(start);
+		nodes.inconsistent[startNode] = false;
+		nodes.hVal[startNode] = weight * nodes.h[startNode];
+		openNodes.add(startNode);
+
+		List<T> path = null;
+		double cost = Double.POSITIVE_INFINITY;
+		double bound = Double.POSITIVE_INFINITY;
+		int iterations = 0;
+		while (improvePath())
+		{
+			iterations++;
+			int goalNode = nodes.find(goal);
+			if (goalNode == -1)
+			{
+				//Goal is unreachable
+				break;
+			}
+			path = backTrackPath(goalNode);
+			//Ancestors of the goal may have got cheaper routes after it was reached, so the
+			//path can be cheaper than the g value of the goal
+			cost = pathCost(start, path);
+			bound = Math.min(weight, cost / lowestUnexpandedCost(cost));
+			if (bound <= targetBound || weight <= 1.0)
+			{
+				break;
+			}
+			weight = Math.max(1.0, Math.min(weight - weightStep, bound));
+			reopen();
+		}
+		return new AnytimeResult<T>(path, cost, Math.max(1.0, bound), iterations, steps, 
+				System.nanoTime() - startTime);
+	}
+
+	private double calculateHVal(T p)
+	{
+		return scale * heuristic.calculateHeuristic(p, goal);
+	}
+
+	/**
+	 * Runs weighted A* until no open node is better than the goal
+	 * @return false if the deadline expired
+	 */
+	private boolean improvePath()
+	{
+		while (!openNodes.isEmpty())
+		{
+			int goalNode = nodes.find(goal);
+			if (goalNode != -1 && nodes.compare(goalNode, openNodes.peek()) <= 0)
+			{
+				return true;
+			}
+			if (steps % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() - deadline > 0)
+			{
+				return false;
+			}
+			steps++;
+			int node = openNodes.poll();
+			nodes.closed[node] = true;
+			T coord = nodes.point(node);
+			for (T p : helper.getNeighbours(coord))
+			{
+				if (!p.equals(coord))
+				{
+					updateNeighbourNode(node, p);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Creates or updates the neighbour node. A closed node which got a cheaper route is
+	 * not expanded again during this iteration, it is remembered as inconsistent instead.
+	 * @param parent id of the parent node
+	 * @param neighbourPos position of the neighbour
+	 */
+	private void updateNeighbourNode(int parent, T neighbourPos)
+	{
+		int neighbourNode = nodes.find(neighbourPos);
+		double gVal = nodes.gVal[parent] + helper.getCost(nodes.point(parent), neighbourPos);
+		if (neighbourNode == -1)
+		{
+			neighbourNode = nodes.add(neighbourPos);
+			nodes.parent[neighbourNode] = parent;
+			nodes.gVal[neighbourNode] = gVal;
+			nodes.h[neighbourNode] = calculateHVal(neighbourPos);
+			nodes.hVal[neighbourNode] = weight * nodes.h[neighbourNode];
+			nodes.inconsistent[neighbourNode] = false;
+			openNodes.add(neighbourNode);
+		}
+		else if (nodes.gVal[neighbourNode] > gVal)
+		{
+			nodes.parent[neighbourNode] = parent;
+			nodes.gVal[neighbourNode] = gVal;
+			if (!nodes.closed[neighbourNode])
+			{
+				if (openNodes.contains(neighbourNode))
+				{
+					openNodes.decreaseKey(neighbourNode);
+				}
+				else
+				{
+					openNodes.add(neighbourNode);
+				}
+			}
+			else
+			{
+				nodes.inconsistent[neighbourNode] = true;
+			}
+		}
+	}
+
+	/**
+	 * @param cost cost of the current path
+	 * @return the lowest <code>g+h</code> among the open and inconsistent nodes, which is a lower
+	 * bound of the cost of the optimal path, or <b>cost</b> if there are no such nodes
+	 */
+	private double lowestUnexpandedCost(double cost)
+	{
+		double result = cost;
+		for (int n = 0; n < nodes.size; n++)
+		{
+			if (openNodes.contains(n) || nodes.inconsistent[n])
+			{
+				result = Math.min(result, nodes.gVal[n] + nodes.h[n]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Prepares the next iteration: moves the inconsistent nodes to the open list, 
+	 * recalculates the priorities with the new weight and empties the closed list
+	 */
+	private void reopen()
+	{
+		openNodes.clear();
+		for (int n = 0; n < nodes.size; n++)
+		{
+			nodes.hVal[n] = weight * nodes.h[n];
+			if (nodes.inconsistent[n] || !nodes.closed[n])
+			{
+				openNodes.add(n);
+			}
+			nodes.closed[n] = false;
+			nodes.inconsistent[n] = false;
+		}
+	}
+
+	private double pathCost(T start, List<T> path)
+	{
+		double cost = 0.0;
+		T previous = start;
+		for (T p : path)
+		{
+			cost += helper.getCost(previous, p);
+			previous = p;
+		}
+		return cost;
+	}
+
+	/**
+	 * Back tracks the path from the <b>node</b>
+	 * @param node id of the end node
+	 * @return list of the points without the start
+	 */
+	private List<T> backTrackPath(int node)
+	{
+		LinkedList<T> path = new LinkedList<T>();
+		int traversalNode = node;
+		while (nodes.parent[traversalNode] != -1)
+		{
+			path.addFirst(nodes.point(traversalNode));
+			traversalNode = nodes.parent[traversalNode];
+		}
+		return path;
+	}
+}
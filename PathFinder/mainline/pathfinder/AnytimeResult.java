@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Result of an anytime search: the best path found before the deadline together with
+ * the bound on its suboptimality. The cost of the path is at most <code>getBound()</code>
+ * times the cost of the optimal path.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see AnytimePathfinder
+ */
+public class AnytimeResult<T extends Point>
+{
+	private final List<T> path;
+
+	private final double cost;
+
+	private final double bound;
+
+	private final int iterations;
+
+	private final int steps;
+
+	private final long elapsedTime;
+
+	AnytimeResult(List<T> path, double cost, double bound, int iterations, int steps, long elapsedTime)
+	{
+		this.path = path;
+		this.cost = cost;
+		this.bound = bound;
+		this.iterations = iterations;
+		this.steps = steps;
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if no path was found before the deadline or path doesn't exist
+	 */
+	public List<T> getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * @return true if a path was found
+	 */
+	public boolean isFound()
+	{
+		return path != null;
+	}
+
+	/**
+	 * @return cost of the path or <code>Double.POSITIVE_INFINITY</code> if no path was found
+	 */
+	public double getCost()
+	{
+		return cost;
+	}
+
+	/**
+	 * @return bound on the suboptimality of the path, 1.0 if the path is optimal, 
+	 * <code>Double.POSITIVE_INFINITY</code> if no path was found
+	 */
+	public double getBound()
+	{
+		return bound;
+	}
+
+	/**
+	 * @return true if the path is proven to be optimal
+	 */
+	public boolean isOptimal()
+	{
+		return bound <= 1.0;
+	}
+
+	/**
+	 * @return number of completed searches, each with a lower weight than the previous one
+	 */
+	public int getIterations()
+	{
+		return iterations;
+	}
+
+	/**
+	 * @return number of nodes expanded by all the iterations
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * @return time of the search in nanoseconds
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+}
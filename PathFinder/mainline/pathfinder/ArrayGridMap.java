@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Grid map which keeps the costs of the cells in a flat array, the cost of the cell with
+ * coordinates (x, y) is stored at index <code>y * width + x</code>. This is the same layout
+ * <code>GridPathfinder</code> uses, so both can share one array.
+ * @author Egor Tsinko
+ */
+public class ArrayGridMap implements IGridMap
+{
+	private final int width;
+
+	private final int height;
+
+	private final int[] costs;
+
+	/**
+	 * Creates a map with all the cells having cost 1
+	 * @param width width of the map
+	 * @param height height of the map
+	 */
+	public ArrayGridMap(int width, int height)
+	{
+		this(width, height, new int[width * height]);
+		Arrays.fill(costs, 1);
+	}
+
+	/**
+	 * Creates a map over the array of costs. The array is not copied.
+	 * @param width width of the map
+	 * @param height height of the map
+	 * @param costs costs of the cells, <code>width * height</code> elements
+	 */
+	public ArrayGridMap(int width, int height, int[] costs)
+	{
+		if (width <= 0 || height <= 0 || costs.length < width * height)
+		{
+			throw new IllegalArgumentException("Cost array doesn't match the size of the map");
+		}
+		this.width = width;
+		this.height = height;
+		this.costs = costs;
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public int getCost(int x, int y)
+	{
+		return costs[y * width + x];
+	}
+
+	/**
+	 * Sets the cost of the cell (x, y)
+	 * @param x x coordinate of the cell
+	 * @param y y coordinate of the cell
+	 * @param cost new cost, negative if the cell is not passable
+	 */
+	public void setCost(int x, int y, int cost)
+	{
+		costs[y * width + x] = cost;
+	}
+
+	/**
+	 * @return the array of costs backing this map
+	 */
+	public int[] getCosts()
+	{
+		return costs;
+	}
+}
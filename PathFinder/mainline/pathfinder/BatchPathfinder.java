@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs batches of path queries against one <code>IPathHelper</code> in parallel.
+ * The queries are split into chunks which are processed by the workers of an
+ * <code>ExecutorService</code>. Every worker thread searches through the same
+ * <code>Pathfinder</code> and therefore reuses its own search context from batch to batch.<br>
+ * The helper is called from several threads at the same time, so it must be safe
+ * to read concurrently.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class BatchPathfinder<T extends Point>
+{
+	/** number of chunks per worker, more chunks balance the load better */
+	private static final int CHUNKS_PER_WORKER = 4;
+
+	private final Pathfinder<T> finder;
+
+	private final ExecutorService executor;
+
+	private final int workers;
+
+	/** true if the executor was created by this class and has to be shut down by it */
+	private final boolean ownExecutor;
+
+	/**
+	 * Creates a batch finder with one worker per available processor
+	 * @param finder configured finder to run the queries with
+	 */
+	public BatchPathfinder(Pathfinder<T> finder)
+	{
+		this(finder, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a batch finder with its own pool of <b>workers</b> daemon threads
+	 * @param finder configured finder to run the queries with
+	 * @param workers number of worker threads
+	 */
+	public BatchPathfinder(Pathfinder<T> finder, int workers)
+	{
+		this(finder, Executors.newFixedThreadPool(workers, new ThreadFactory()
+		{
+			public Thread newThread(Runnable r)
+			{
+				Thread thread = new Thread(r, "pathfinder-batch-worker");
+				thread.setDaemon(true);
+				return thread;
+			}
+		}), workers, true);
+	}
+
+	/**
+	 * Creates a batch finder which runs the queries on the given <b>executor</b>.
+	 * The executor is not shut down by this class.
+	 * @param finder configured finder to run the queries with
+	 * @param executor executor to run the queries on
+	 * @param workers number of threads of the executor, used to split the batch into chunks
+	 */
+	public BatchPathfinder(Pathfinder<T> finder, ExecutorService executor, int workers)
+	{
+		this(finder, executor, workers, false);
+	}
+
+	private BatchPathfinder(Pathfinder<T> finder, ExecutorService executor, int workers, boolean ownExecutor)
+	{
+		if (workers <= 0)
+		{
+			throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+		}
+		this.finder = finder;
+		this.executor = executor;
+		this.workers = workers;
+		this.ownExecutor = ownExecutor;
+	}
+
+	/**
+	 * Finds paths for all the <b>queries</b> with the <b>helper</b>
+	 * @param helper helper shared by all the queries
+	 * @param queries pairs of start and goal points
+	 * @return paths in the order of the queries together with the latency statistics
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for the workers
+	 */
+	public BatchResult<T> findPaths(final IPathHelper<T> helper, Collection<? extends PathQuery<T>> queries)
+		throws InterruptedException
+	{
+		long startTime = System.nanoTime();
+		final List<PathQuery<T>> queryList = new ArrayList<PathQuery<T>>(queries);
+		final int count = queryList.size();
+		final Object[] paths = new Object[count];
+		final long[] latencies = new long[count];
+
+		int chunkSize = Math.max(1, (count + workers * CHUNKS_PER_WORKER - 1) / (workers * CHUNKS_PER_WORKER));
+		List<Future<?>> futures = new ArrayList<Future<?>>();
+		for (int from = 0; from < count; from += chunkSize)
+		{
+			final int chunkStart = from;
+			final int chunkEnd = Math.min(count, from + chunkSize);
+			futures.add(executor.submit(new Callable<Object>()
+			{
+				public Object call()
+				{
+					for (int i = chunkStart; i < chunkEnd; i++)
+					{
+						PathQuery<T> query = queryList.get(i);
+						long queryStart = System.nanoTime();
+						paths[i] = finder.findPath(helper, query.getStart(), query.getGoal());
+						latencies[i] = System.nanoTime() - queryStart;
+					}
+					return null;
+				}
+			}));
+		}
+		try
+		{
+			for (Future<?> future : futures)
+			{
+				future.get();
+			}
+		}
+		catch (ExecutionException e)
+		{
+			for (Future<?> future : futures)
+			{
+				future.cancel(true);
+			}
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		catch (InterruptedException e)
+		{
+			for (Future<?> future : futures)
+			{
+				future.cancel(true);
+			}
+			throw e;
+		}
+		return new BatchResult<T>(toPathList(paths), latencies, System.nanoTime() - startTime);
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<List<T>> toPathList(Object[] paths)
+	{
+		return (List<List<T>>) (List<?>) Arrays.asList(paths);
+	}
+
+	/**
+	 * Shuts down the pool of workers if it was created by this class
+	 */
+	public void shutdown()
+	{
+		if (ownExecutor)
+		{
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Results of a batch of path queries. Paths are stored in the same order as the queries
+ * were given. Besides the paths the result contains the latency of every query and the
+ * total time of the batch, which can be used to size the pool of workers.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see BatchPathfinder
+ */
+public class BatchResult<T extends Point>
+{
+	private final List<List<T>> paths;
+
+	private final long[] latencies;
+
+	/** latencies sorted in ascending order, for percentiles */
+	private final long[] sortedLatencies;
+
+	private final long elapsedTime;
+
+	BatchResult(List<List<T>> paths, long[] latencies, long elapsedTime)
+	{
+		this.paths = paths;
+		this.latencies = latencies;
+		this.sortedLatencies = latencies.clone();
+		Arrays.sort(sortedLatencies);
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * @return paths in the order of the queries, an element is <b>null</b> if the path
+	 * for that query doesn't exist
+	 */
+	public List<List<T>> getPaths()
+	{
+		return paths;
+	}
+
+	/**
+	 * @param i index of the query
+	 * @return path of the i-th query or <b>null</b> if path doesn't exist
+	 */
+	public List<T> getPath(int i)
+	{
+		return paths.get(i);
+	}
+
+	/**
+	 * @return number of queries in the batch
+	 */
+	public int size()
+	{
+		return latencies.length;
+	}
+
+	/**
+	 * @param i index of the query
+	 * @return time it took to answer the i-th query in nanoseconds
+	 */
+	public long getLatency(int i)
+	{
+		return latencies[i];
+	}
+
+	/**
+	 * Gets the latency below which the given fraction of the queries were answered
+	 * @param percentile fraction of queries between 0.0 and 1.0, for example 0.99
+	 * @return latency in nanoseconds
+	 */
+	public long getLatencyPercentile(double percentile)
+	{
+		if (sortedLatencies.length == 0)
+		{
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile * sortedLatencies.length) - 1;
+		index = Math.max(0, Math.min(sortedLatencies.length - 1, index));
+		return sortedLatencies[index];
+	}
+
+	/**
+	 * @return the longest latency of a query in the batch in nanoseconds
+	 */
+	public long getMaxLatency()
+	{
+		return getLatencyPercentile(1.0);
+	}
+
+	/**
+	 * @return wall clock time of the whole batch in nanoseconds
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+
+	/**
+	 * @return number of queries answered per second
+	 */
+	public double getThroughput()
+	{
+		return elapsedTime == 0 ? 0.0 : latencies.length * 1.0e9 / elapsedTime;
+	}
+}
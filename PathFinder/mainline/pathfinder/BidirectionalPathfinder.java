@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.LinkedList;
+import java.util.List;
+
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Implementation of bidirectional A*. One search goes forward from <b>start</b> using
+ * <code>getNeighbours</code>, the other goes backward from <b>goal</b> using
+ * <code>getPredecessors</code> of <code>IReversiblePathHelper</code>. On every step the side
+ * with the smaller list of open nodes is expanded. Whenever the searches meet, the cost of
+ * the path through the meeting point is recorded, and the search stops when the lowest
+ * <code>gVal+hVal</code> on either side is not less than the best recorded cost. 
+ * With a heuristic that doesn't overestimate the cost the path is optimal.<br>
+ * Unlike <code>Pathfinder</code> no tie breaker is applied to the heuristic, since the
+ * stopping criterion relies on the heuristic being admissible.<br>
+ * An instance must not be used by several threads at the same time.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class BidirectionalPathfinder<T extends Point>
+{
+	private IHeuristic<T> heuristic = new DiagonalNotEqual<T>();
+
+	private double scale = 1.0;
+
+	/** nodes of the forward search */
+	private final NodeStore<T> forward = new NodeStore<T>();
+
+	private final IndexedBinaryHeap forwardOpen = new IndexedBinaryHeap(forward);
+
+	/** nodes of the backward search */
+	private final NodeStore<T> backward = new NodeStore<T>();
+
+	private final IndexedBinaryHeap backwardOpen = new IndexedBinaryHeap(backward);
+
+	private IReversiblePathHelper<T> helper;
+
+	private T start;
+
+	private T goal;
+
+	/** cost of the best path found so far */
+	private double bestCost;
+
+	/** point where the best path found so far crosses from one search to the other */
+	private T meetingPoint;
+
+	/** total time it took algorithm to calculate the path */
+	private long elapsedTime = 0;
+
+	private int forwardSteps = 0;
+
+	private int backwardSteps = 0;
+
+	/**
+	 * Sets new scale for results of the heuristics. 
+	 * The default value is 1.0
+	 * @param scale new scale
+	 * @see Pathfinder#setScale(double)
+	 */
+	public void setScale(double scale)
+	{
+		this.scale = scale;
+	}
+
+	/**
+	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>.
+	 * The backward search estimates the cost from <b>start</b> to a point with the same function.
+	 * @param heuristic
+	 */
+	public void setHeuristic(IHeuristic<T> heuristic)
+	{
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * This function finds optimal path from <b>start</b> to <b>goal</b> with the <b>helper</b>
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if path doesn't exist.
+	 */
+	public List<T> findPath(IReversiblePathHelper<T> helper, T start, T goal)
+	{
+		long startTime = System.nanoTime();
+		this.helper = helper;
+		this.start = start;
+		this.goal = goal;
+		forward.clear();
+		forwardOpen.clear();
+		backward.clear();
+		backwardOpen.clear();
+		forwardSteps = 0;
+		backwardSteps = 0;
+		bestCost = Double.POSITIVE_INFINITY;
+		meetingPoint = null;
+
+		List<T> path;
+		if (start.equals(goal))
+		{
+			bestCost = 0.0;
+			meetingPoint = start;
+			path = new LinkedList<T>();
+		}
+		else
+		{
+			path = calculatePath();
+		}
+		this.helper = null;
+		elapsedTime = System.nanoTime() - startTime;
+		return path;
+	}
+
+	/**
+	 * This function calculates the path 
+	 * @return path
+	 */
+	private List<T> calculatePath()
+	{
+		int startNode = forward.add(start);
+		forward.hVal[startNode] = scale * heuristic.calculateHeuristic(start, goal);
+		forwardOpen.add(startNode);
+		int goalNode = backward.add(goal);
+		backward.hVal[goalNode] = scale * heuristic.calculateHeuristic(start, goal);
+		backwardOpen.add(goalNode);
+
+		while (!forwardOpen.isEmpty() && !backwardOpen.isEmpty())
+		{
+			if (topValue(forward, forwardOpen) >= bestCost || topValue(backward, backwardOpen) >= bestCost)
+			{
+				break;
+			}
+			if (forwardOpen.size() <= backwardOpen.size())
+			{
+				forwardSteps++;
+				int node = forwardOpen.poll();
+				forward.closed[node] = true;
+				T coord = forward.point(node);
+				for (T p : helper.getNeighbours(coord))
+				{
+					if (!p.equals(coord))
+					{
+						double gVal = forward.gVal[node] + helper.getCost(coord, p);
+						relax(forward, forwardOpen, backward, node, p, gVal, true);
+					}
+				}
+			}
+			else
+			{
+				backwardSteps++;
+				int node = backwardOpen.poll();
+				backward.closed[node] = true;
+				T coord = backward.point(node);
+				for (T p : helper.getPredecessors(coord))
+				{
+					if (!p.equals(coord))
+					{
+						double gVal = backward.gVal[node] + helper.getCost(p, coord);
+						relax(backward, backwardOpen, forward, node, p, gVal, false);
+					}
+				}
+			}
+		}
+		if (meetingPoint == null)
+		{
+			return null;
+		}
+		return backTrackPath();
+	}
+
+	/**
+	 * @return the lowest <code>gVal+hVal</code> in the list of open nodes
+	 */
+	private double topValue(NodeStore<T> nodes, IndexedBinaryHeap open)
+	{
+		int top = open.peek();
+		return nodes.gVal[top] + nodes.hVal[top];
+	}
+
+	/**
+	 * Adds or updates the node <b>p</b> of one side of the search and checks whether the
+	 * other side has already reached it
+	 * @param nodes nodes of this side
+	 * @param open open nodes of this side
+	 * @param other nodes of the other side
+	 * @param parent id of the node being expanded
+	 * @param p neighbour point
+	 * @param gVal cost of reaching <b>p</b> through <b>parent</b>
+	 * @param isForward true for the forward search, false for the backward search
+	 */
+	private void relax(NodeStore<T> nodes, IndexedBinaryHeap open, NodeStore<T> other,
+			int parent, T p, double gVal, boolean isForward)
+	{
+		int node = nodes.find(p);
+		if (node != -1 && nodes.closed[node])
+		{
+			return;
+		}
+		if (node == -1)
+		{
+			node = nodes.add(p);
+			nodes.parent[node] = parent;
+			nodes.gVal[node] = gVal;
+			nodes.hVal[node] = scale * (isForward ? 
+					heuristic.calculateHeuristic(p, goal) : heuristic.calculateHeuristic(start, p));
+			open.add(node);
+		}
+		else if (nodes.gVal[node] > gVal)
+		{
+			nodes.parent[node] = parent;
+			nodes.gVal[node] = gVal;
+			open.decreaseKey(node);
+		}
+		else
+		{
+			return;
+		}
+		int otherNode = other.find(p);
+		if (otherNode != -1 && gVal + other.gVal[otherNode] < bestCost)
+		{
+			bestCost = gVal + other.gVal[otherNode];
+			meetingPoint = nodes.point(node);
+		}
+	}
+
+	/**
+	 * Joins the forward path to the meeting point and the backward path from it
+	 * @return list of the points without the <b>start</b>
+	 */
+	private List<T> backTrackPath()
+	{
+		LinkedList<T> path = new LinkedList<T>();
+		for (int n = forward.find(meetingPoint); n != -1; n = forward.parent[n])
+		{
+			path.addFirst(forward.point(n));
+		}
+		//Remove the starting point, we don't need it
+		path.remove();
+		for (int n = backward.parent[backward.find(meetingPoint)]; n != -1; n = backward.parent[n])
+		{
+			path.addLast(backward.point(n));
+		}
+		return path;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return cost of the last found path
+	 */
+	public double getPathCost()
+	{
+		return bestCost;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of steps of both searches it took to find the optimal path
+	 */
+	public int getSteps()
+	{
+		return forwardSteps + backwardSteps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of steps of the forward search
+	 */
+	public int getForwardSteps()
+	{
+		return forwardSteps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of steps of the backward search
+	 */
+	public int getBackwardSteps()
+	{
+		return backwardSteps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return time of the last run in nanoseconds 
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+}
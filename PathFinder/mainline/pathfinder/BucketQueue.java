@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Open list for searches with whole <code>gVal+hVal</code> values (Dial's buckets). Every
+ * value has its bucket, a doubly linked list of nodes threaded through <code>next</code> and
+ * <code>previous</code> arrays, and the <code>heapIndex</code> of a node holds its bucket. The
+ * queue remembers the lowest bucket which may be non-empty, with a consistent heuristic
+ * the values of the expanded nodes never decrease, so the scan for the next node is
+ * amortised O(1). Nodes with a lower value than the current one are still accepted, the
+ * scan moves back to them.<br>
+ * Only a window of consecutive buckets is kept, in a circular array, so the memory depends
+ * on the spread of the values of the open nodes, not on the values themselves. Nodes above
+ * the window wait in an unsorted overflow list, when the window runs empty it is moved to
+ * the lowest of them. The window grows up to <code>MAX_CAPACITY</code> buckets if the
+ * overflow nodes don't fit into it.<br>
+ * Nodes of a bucket are taken in LIFO order, which prefers the nodes added last, usually
+ * the ones closer to the goal.
+ * @author Egor Tsinko
+ */
+class BucketQueue implements OpenList
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** maximal number of buckets in the window, a power of two */
+	private static final int MAX_CAPACITY = 1 << 14;
+
+	private final NodeValues store;
+
+	/** first node of every bucket of the window or -1, at <code>bucket &amp; mask</code> */
+	private int[] heads = new int[INITIAL_CAPACITY];
+
+	private int mask = INITIAL_CAPACITY - 1;
+
+	private int[] next = new int[INITIAL_CAPACITY];
+
+	private int[] previous = new int[INITIAL_CAPACITY];
+
+	/** lowest bucket of the window, which ends before <code>base + heads.length</code> */
+	private int base = 0;
+
+	/** no bucket of the window below this one contains nodes */
+	private int lowest = 0;
+
+	/** number of nodes in the window */
+	private int windowSize = 0;
+
+	/** first node of the overflow list or -1 */
+	private int overflow = -1;
+
+	private int size = 0;
+
+	/**
+	 * @param store store which holds values of the nodes
+	 */
+	BucketQueue(NodeValues store)
+	{
+		this.store = store;
+		Arrays.fill(heads, -1);
+	}
+
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	public boolean contains(int node)
+	{
+		return store.heapIndex[node] >= 0;
+	}
+
+	public void add(int node)
+	{
+		if (size == 0)
+		{
+			base = bucket(node);
+			lowest = base;
+		}
+		insert(node, bucket(node));
+		size++;
+	}
+
+	public int peek()
+	{
+		if (size == 0)
+		{
+			return -1;
+		}
+		if (windowSize == 0)
+		{
+			moveWindow();
+		}
+		while (heads[lowest & mask] == -1)
+		{
+			lowest++;
+		}
+		return heads[lowest & mask];
+	}
+
+	public int poll()
+	{
+		int node = peek();
+		if (node != -1)
+		{
+			unlink(node);
+			size--;
+		}
+		return node;
+	}
+
+	public void decreaseKey(int node)
+	{
+		int bucket = bucket(node);
+		if (bucket != store.heapIndex[node])
+		{
+			unlink(node);
+			insert(node, bucket);
+		}
+	}
+
+	public void clear()
+	{
+		for (int bucket = lowest; windowSize > 0; bucket++)
+		{
+			for (int node = heads[bucket & mask]; node != -1; node = next[node])
+			{
+				store.heapIndex[node] = -1;
+				windowSize--;
+			}
+			heads[bucket & mask] = -1;
+		}
+		for (int node = overflow; node != -1; node = next[node])
+		{
+			store.heapIndex[node] = -1;
+		}
+		overflow = -1;
+		size = 0;
+	}
+
+	/**
+	 * @return bucket of the node, its whole <code>gVal+hVal</code>
+	 */
+	private int bucket(int node)
+	{
+		double value = store.gVal[node] + store.hVal[node];
+		if (value < 0 || value >= Integer.MAX_VALUE)
+		{
+			throw new IllegalStateException("Value of a node is out of range of the buckets: " + value);
+		}
+		return (int) value;
+	}
+
+	/**
+	 * @return true if the bucket is above the window, then its nodes are in the overflow list
+	 */
+	private boolean aboveWindow(int bucket)
+	{
+		return bucket - base >= heads.length;
+	}
+
+	private void insert(int node, int bucket)
+	{
+		if (node >= next.length)
+		{
+			int capacity = Math.max(node + 1, next.length << 1);
+			next = Arrays.copyOf(next, capacity);
+			previous = Arrays.copyOf(previous, capacity);
+		}
+		if (bucket < base)
+		{
+			lowerWindow(bucket);
+		}
+		store.heapIndex[node] = bucket;
+		if (aboveWindow(bucket))
+		{
+			overflow = push(overflow, node);
+			return;
+		}
+		heads[bucket & mask] = push(heads[bucket & mask], node);
+		windowSize++;
+		if (bucket < lowest)
+		{
+			lowest = bucket;
+		}
+	}
+
+	/**
+	 * Links the <b>node</b> in front of the list
+	 * @return the new head of the list
+	 */
+	private int push(int head, int node)
+	{
+		next[node] = head;
+		previous[node] = -1;
+		if (head != -1)
+		{
+			previous[head] = node;
+		}
+		return node;
+	}
+
+	private void unlink(int node)
+	{
+		int bucket = store.heapIndex[node];
+		boolean inWindow = !aboveWindow(bucket);
+		if (previous[node] != -1)
+		{
+			next[previous[node]] = next[node];
+		}
+		else if (inWindow)
+		{
+			heads[bucket & mask] = next[node];
+		}
+		else
+		{
+			overflow = next[node];
+		}
+		if (next[node] != -1)
+		{
+			previous[next[node]] = previous[node];
+		}
+		if (inWindow)
+		{
+			windowSize--;
+		}
+		store.heapIndex[node] = -1;
+	}
+
+	/**
+	 * Moves the window down so that it starts at the <b>bucket</b>, the nodes which don't fit
+	 * into it anymore go to the overflow list
+	 */
+	private void lowerWindow(int bucket)
+	{
+		int end = base + heads.length;
+		for (int b = Math.max(bucket + heads.length, base); windowSize > 0 && b < end; b++)
+		{
+			int node = heads[b & mask];
+			heads[b & mask] = -1;
+			while (node != -1)
+			{
+				int following = next[node];
+				overflow = push(overflow, node);
+				windowSize--;
+				node = following;
+			}
+		}
+		base = bucket;
+		lowest = bucket;
+	}
+
+	/**
+	 * Moves the empty window to the lowest bucket of the overflow list and takes the nodes
+	 * which fit into it from the list. The window grows if the nodes span more buckets.
+	 */
+	private void moveWindow()
+	{
+		int min = Integer.MAX_VALUE;
+		int max = 0;
+		for (int node = overflow; node != -1; node = next[node])
+		{
+			min = Math.min(min, store.heapIndex[node]);
+			max = Math.max(max, store.heapIndex[node]);
+		}
+		if (max - min >= heads.length && heads.length < MAX_CAPACITY)
+		{
+			int capacity = Math.min(MAX_CAPACITY, Integer.highestOneBit(max - min) << 1);
+			heads = new int[capacity];
+			Arrays.fill(heads, -1);
+			mask = capacity - 1;
+		}
+		base = min;
+		lowest = min;
+		int node = overflow;
+		overflow = -1;
+		while (node != -1)
+		{
+			int following = next[node];
+			int bucket = store.heapIndex[node];
+			if (aboveWindow(bucket))
+			{
+				overflow = push(overflow, node);
+			}
+			else
+			{
+				heads[bucket & mask] = push(heads[bucket & mask], node);
+				windowSize++;
+			}
+			node = following;
+		}
+	}
+}
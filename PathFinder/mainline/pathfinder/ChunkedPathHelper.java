@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * Helper of a <code>ChunkedWorld</code>. It moves the same way as <code>GridPathHelper</code>,
+ * but gets the costs of all the neighbours of a cell from its chunk at once, unless the cell
+ * is on the border of the chunk. <code>Pathfinder</code> prefetches the chunks towards the
+ * goal before a search and reports the chunk faults of the search.
+ * @author Egor Tsinko
+ */
+public class ChunkedPathHelper extends GridPathHelper implements IChunkedPathHelper<Point>
+{
+	private final ChunkedWorld world;
+
+	/**
+	 * @param world world to search in
+	 */
+	public ChunkedPathHelper(ChunkedWorld world)
+	{
+		super(world);
+		this.world = world;
+	}
+
+	public void getNeighbours(Point point, INeighbourSink sink)
+	{
+		int size = world.getChunkSize();
+		int localX = point.x % size;
+		int localY = point.y % size;
+		if (localX == 0 || localY == 0 || localX == size - 1 || localY == size - 1)
+		{
+			super.getNeighbours(point, sink);
+			return;
+		}
+		//All the neighbours are in the same chunk, cells outside of the world are walls
+		int[] chunk = world.chunk(point.x / size, point.y / size);
+		for (int dx = -1; dx <= 1; dx++)
+		{
+			for (int dy = -1; dy <= 1; dy++)
+			{
+				int cost = chunk[(localY + dy) * size + localX + dx];
+				if ((dx != 0 || dy != 0) && cost >= 0)
+				{
+					sink.addNeighbour(point.x + dx, point.y + dy, dx != 0 && dy != 0 ? cost * SQRT2 : cost);
+				}
+			}
+		}
+	}
+
+	public void prefetch(Point start, Point goal)
+	{
+		world.prefetch(start.x, start.y, goal.x, goal.y);
+	}
+
+	public long getChunkFaults()
+	{
+		return world.getChunkFaults();
+	}
+}
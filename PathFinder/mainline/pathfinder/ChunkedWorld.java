@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Grid map of a world which doesn't fit into memory. The world is divided into square
+ * chunks which are loaded from an <code>IChunkStore</code> when they are accessed, at most
+ * <b>capacity</b> chunks stay in memory and the least recently used one is dropped when
+ * another chunk is loaded.<br>
+ * A chunk which isn't in memory when it is accessed is a chunk fault, the accessing thread
+ * loads it, or waits for the load if it has already been started by another thread. To
+ * avoid the faults the chunks can be prefetched by an executor, for a search they are
+ * prefetched along the straight line from the start to the goal, which is the direction
+ * the heuristic pulls the search to.<br>
+ * The world can be used by several threads at the same time, a chunk requested by several
+ * threads is loaded once. Use it with <code>ChunkedPathHelper</code>.
+ * @author Egor Tsinko
+ */
+public class ChunkedWorld implements IGridMap
+{
+	private final IChunkStore store;
+
+	private final int chunkSize;
+
+	private final int width;
+
+	private final int height;
+
+	private final int capacity;
+
+	/** executor of the prefetch loads or null */
+	private final Executor prefetcher;
+
+	/** chunks in memory, in the order of access, guarded by itself */
+	private final LinkedHashMap<Long, int[]> resident;
+
+	/** chunks which are being loaded, guarded by <code>resident</code> */
+	private final Map<Long, FutureTask<int[]>> loading = new HashMap<Long, FutureTask<int[]>>();
+
+	/** number of chunk faults of every thread */
+	private final ThreadLocal<long[]> faults = new ThreadLocal<long[]>()
+	{
+		protected long[] initialValue()
+		{
+			return new long[1];
+		}
+	};
+
+	private final AtomicLong loads = new AtomicLong();
+
+	private final AtomicLong prefetches = new AtomicLong();
+
+	/**
+	 * Creates a world without prefetching
+	 * @param store source of the chunks
+	 * @param capacity maximal number of chunks in memory
+	 */
+	public ChunkedWorld(IChunkStore store, int capacity)
+	{
+		this(store, capacity, null);
+	}
+
+	/**
+	 * @param store source of the chunks
+	 * @param capacity maximal number of chunks in memory
+	 * @param prefetcher executor which loads the prefetched chunks or <b>null</b> to
+	 * disable prefetching
+	 */
+	public ChunkedWorld(IChunkStore store, final int capacity, Executor prefetcher)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException("Capacity must be positive");
+		}
+		this.store = store;
+		this.chunkSize = store.getChunkSize();
+		this.width = store.getWidth();
+		this.height = store.getHeight();
+		this.capacity = capacity;
+		this.prefetcher = prefetcher;
+		this.resident = new LinkedHashMap<Long, int[]>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest)
+			{
+				return size() > capacity;
+			}
+		};
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public int getCost(int x, int y)
+	{
+		int[] chunk = chunk(x / chunkSize, y / chunkSize);
+		return chunk[(y % chunkSize) * chunkSize + x % chunkSize];
+	}
+
+	/**
+	 * @return number of cells along both sides of a chunk
+	 */
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	/**
+	 * @return maximal number of chunks in memory
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * @return number of chunks in memory
+	 */
+	public int getResidentChunks()
+	{
+		synchronized (resident)
+		{
+			return resident.size();
+		}
+	}
+
+	/**
+	 * @return number of chunks loaded from the store, including the prefetched ones
+	 */
+	public long getLoadedChunks()
+	{
+		return loads.get();
+	}
+
+	/**
+	 * @return number of chunks loaded by the prefetcher
+	 */
+	public long getPrefetchedChunks()
+	{
+		return prefetches.get();
+	}
+
+	/**
+	 * @return number of chunks the calling thread had to load itself
+	 * @see IChunkedPathHelper#getChunkFaults()
+	 */
+	public long getChunkFaults()
+	{
+		return faults.get()[0];
+	}
+
+	/**
+	 * Gets the costs of the chunk (<b>cx</b>, <b>cy</b>), loads it if it isn't in memory
+	 * @param cx x coordinate of the chunk
+	 * @param cy y coordinate of the chunk
+	 * @return costs of the chunk row by row
+	 */
+	int[] chunk(int cx, int cy)
+	{
+		Long key = Long.valueOf(NodeStore.pack(cx, cy));
+		FutureTask<int[]> task;
+		synchronized (resident)
+		{
+			int[] chunk = resident.get(key);
+			if (chunk != null)
+			{
+				return chunk;
+			}
+			task = loading.get(key);
+			if (task == null)
+			{
+				task = newLoad(cx, cy, key);
+				loading.put(key, task);
+			}
+		}
+		//The search waits for the chunk in any case. A prefetch which hasn't started yet is
+		//done right here instead of waiting for the loads queued before it, run does nothing
+		//if the load has already started.
+		faults.get()[0]++;
+		task.run();
+		try
+		{
+			return task.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for chunk " + cx + ", " + cy);
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Chunk " + cx + ", " + cy + " can't be loaded", e.getCause());
+		}
+	}
+
+	/**
+	 * Starts loading the chunks on the line from the cell (<b>startX</b>, <b>startY</b>) to the
+	 * cell (<b>goalX</b>, <b>goalY</b>) which aren't in memory. At most half of the capacity is
+	 * prefetched, so that the chunks around the start aren't dropped. Does nothing if there
+	 * is no prefetcher.
+	 * @param startX x coordinate of the start cell
+	 * @param startY y coordinate of the start cell
+	 * @param goalX x coordinate of the goal cell
+	 * @param goalY y coordinate of the goal cell
+	 */
+	public void prefetch(int startX, int startY, int goalX, int goalY)
+	{
+		if (prefetcher == null)
+		{
+			return;
+		}
+		int cx = startX / chunkSize;
+		int cy = startY / chunkSize;
+		int gx = goalX / chunkSize;
+		int gy = goalY / chunkSize;
+		int dx = Math.abs(gx - cx);
+		int dy = Math.abs(gy - cy);
+		int sx = cx < gx ? 1 : -1;
+		int sy = cy < gy ? 1 : -1;
+		int error = dx - dy;
+		int limit = Math.max(1, capacity / 2);
+		for (int i = 0; i < limit; i++)
+		{
+			Long key = Long.valueOf(NodeStore.pack(cx, cy));
+			FutureTask<int[]> task = null;
+			synchronized (resident)
+			{
+				if (!resident.containsKey(key) && !loading.containsKey(key))
+				{
+					task = newLoad(cx, cy, key);
+					loading.put(key, task);
+				}
+			}
+			if (task != null)
+			{
+				prefetches.incrementAndGet();
+				prefetcher.execute(task);
+			}
+			if (cx == gx && cy == gy)
+			{
+				break;
+			}
+			//Next chunk of the line
+			int e2 = error << 1;
+			if (e2 > -dy)
+			{
+				error -= dy;
+				cx += sx;
+			}
+			if (e2 < dx)
+			{
+				error += dx;
+				cy += sy;
+			}
+		}
+	}
+
+	/**
+	 * Creates the task which loads the chunk and makes it resident
+	 */
+	private FutureTask<int[]> newLoad(final int cx, final int cy, final Long key)
+	{
+		return new FutureTask<int[]>(new Callable<int[]>()
+		{
+			public int[] call() throws Exception
+			{
+				int[] chunk = null;
+				try
+				{
+					chunk = store.loadChunk(cx, cy);
+					loads.incrementAndGet();
+					return chunk;
+				}
+				finally
+				{
+					synchronized (resident)
+					{
+						if (chunk != null)
+						{
+							resident.put(key, chunk);
+						}
+						//A failed load is tried again by the next access
+						loading.remove(key);
+					}
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.io.ByteArrayOutputStream;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Path kept in primitive arrays: the coordinates of every step packed into a <code>long</code>
+ * and the cost of movement from the start to every step. Any step is accessed in O(1).
+ * Like the list returned by <code>findPath</code>, the path doesn't contain the start.<br>
+ * No point objects are kept, a point is created every time a step is read with
+ * <code>getPoint</code> or the list view. The points are created by the helper of the search
+ * if it implements <code>INeighbourHelper</code>, otherwise they are plain
+ * <code>java.awt.Point</code> objects, so with other helpers the paths of subclasses of
+ * <code>Point</code> can be read only by the coordinates.<br>
+ * Paths which consist of moves to the adjacent points can be encoded as runs of directions,
+ * a few bytes for a straight path of any length, to be stored or sent over network and
+ * decoded with <code>decodeDirections</code>.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see Pathfinder#findCompactPath(IPathHelper, Point, Point)
+ */
+public class CompactPath<T extends Point>
+{
+	/** x offsets of the directions, clockwise from north */
+	private static final int[] DX = { 0, 1, 1, 1, 0, -1, -1, -1 };
+
+	private static final int[] DY = { -1, -1, 0, 1, 1, 1, 0, -1 };
+
+	/** maximal length of one run of the direction encoding */
+	private static final int MAX_RUN = 255;
+
+	private final int startX;
+
+	private final int startY;
+
+	/** packed coordinates of the steps */
+	private final long[] steps;
+
+	/** cost of movement from the start to every step */
+	private final double[] costs;
+
+	/** creates the points of the steps or null to create plain <code>Point</code> objects */
+	private final INeighbourHelper<T> factory;
+
+	CompactPath(int startX, int startY, long[] steps, double[] costs, INeighbourHelper<T> factory)
+	{
+		this.startX = startX;
+		this.startY = startY;
+		this.steps = steps;
+		this.costs = costs;
+		this.factory = factory;
+	}
+
+	/**
+	 * @return number of steps, the start is not counted
+	 */
+	public int size()
+	{
+		return steps.length;
+	}
+
+	/**
+	 * @return x coordinate of the start
+	 */
+	public int getStartX()
+	{
+		return startX;
+	}
+
+	/**
+	 * @return y coordinate of the start
+	 */
+	public int getStartY()
+	{
+		return startY;
+	}
+
+	/**
+	 * @param i index of the step
+	 * @return x coordinate of the step
+	 */
+	public int getX(int i)
+	{
+		return (int) (steps[i] >> 32);
+	}
+
+	/**
+	 * @param i index of the step
+	 * @return y coordinate of the step
+	 */
+	public int getY(int i)
+	{
+		return (int) steps[i];
+	}
+
+	/**
+	 * @param i index of the step
+	 * @return coordinates of the step packed as <code>(long) x << 32 | y</code>
+	 */
+	public long getPacked(int i)
+	{
+		return steps[i];
+	}
+
+	/**
+	 * Creates the point of the step, a new object is returned by every call
+	 * @param i index of the step
+	 * @return the point of the step
+	 * @throws ClassCastException if <b>T</b> is a subclass of <code>Point</code> and the
+	 * helper of the search doesn't implement <code>INeighbourHelper</code>
+	 */
+	@SuppressWarnings("unchecked")
+	public T getPoint(int i)
+	{
+		if (factory != null)
+		{
+			return factory.createPoint(getX(i), getY(i));
+		}
+		return (T) new Point(getX(i), getY(i));
+	}
+
+	/**
+	 * @param i index of the step
+	 * @return cost of movement from the start to the step
+	 */
+	public double getCost(int i)
+	{
+		return costs[i];
+	}
+
+	/**
+	 * @return cost of the whole path, 0 if the path is empty
+	 */
+	public double getTotalCost()
+	{
+		return steps.length == 0 ? 0.0 : costs[steps.length - 1];
+	}
+
+	/**
+	 * Gets an unmodifiable list view of the path. Nothing is copied, the list reads the
+	 * steps of this path and creates the points with <code>getPoint</code> when they are read.
+	 * @return list of points that actor must sequentially walk through to reach goal
+	 */
+	public List<T> asList()
+	{
+		return new ListView();
+	}
+
+	/**
+	 * Encodes the path as runs of directions. Every run takes two bytes: the direction,
+	 * 0 is north (decreasing y) and the next ones go clockwise, and the number of moves,
+	 * from 1 to 255.
+	 * @return the runs
+	 * @throws IllegalStateException if a step is not a move to an adjacent point
+	 */
+	public byte[] encodeDirections()
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		int previousX = startX;
+		int previousY = startY;
+		int direction = -1;
+		int run = 0;
+		for (int i = 0; i < steps.length; i++)
+		{
+			int d = direction(getX(i) - previousX, getY(i) - previousY);
+			if (d == -1)
+			{
+				throw new IllegalStateException("Step " + i + " is not a move to an adjacent point");
+			}
+			if (d != direction || run == MAX_RUN)
+			{
+				if (run > 0)
+				{
+					out.write(direction);
+					out.write(run);
+				}
+				direction = d;
+				run = 0;
+			}
+			run++;
+			previousX = getX(i);
+			previousY = getY(i);
+		}
+		if (run > 0)
+		{
+			out.write(direction);
+			out.write(run);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Decodes the runs of directions created by <code>encodeDirections</code>
+	 * @param startX x coordinate of the start
+	 * @param startY y coordinate of the start
+	 * @param runs encoded directions
+	 * @return coordinates of the steps packed as <code>(long) x << 32 | y</code>
+	 * @throws IllegalArgumentException if the runs are malformed
+	 */
+	public static long[] decodeDirections(int startX, int startY, byte[] runs)
+	{
+		if (runs.length % 2 != 0)
+		{
+			throw new IllegalArgumentException("Runs of directions must have even length");
+		}
+		int length = 0;
+		for (int i = 1; i < runs.length; i += 2)
+		{
+			length += runs[i] & 0xFF;
+		}
+		long[] result = new long[length];
+		int x = startX;
+		int y = startY;
+		int step = 0;
+		for (int i = 0; i < runs.length; i += 2)
+		{
+			int direction = runs[i];
+			if (direction < 0 || direction >= DX.length)
+			{
+				throw new IllegalArgumentException("Invalid direction: " + direction);
+			}
+			for (int run = runs[i + 1] & 0xFF; run > 0; run--)
+			{
+				x += DX[direction];
+				y += DY[direction];
+				result[step++] = NodeStore.pack(x, y);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return index of the direction or -1 if (dx, dy) is not a move to an adjacent point
+	 */
+	private static int direction(int dx, int dy)
+	{
+		for (int d = 0; d < DX.length; d++)
+		{
+			if (DX[d] == dx && DY[d] == dy)
+			{
+				return d;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compares the steps of the paths, costs are not compared
+	 */
+	public boolean equals(Object o)
+	{
+		if (!(o instanceof CompactPath<?>))
+		{
+			return false;
+		}
+		CompactPath<?> other = (CompactPath<?>) o;
+		return startX == other.startX && startY == other.startY && Arrays.equals(steps, other.steps);
+	}
+
+	public int hashCode()
+	{
+		return Arrays.hashCode(steps) * 31 + startX * 17 + startY;
+	}
+
+	/**
+	 * Unmodifiable list view of the points of the path
+	 */
+	private class ListView extends AbstractList<T> implements RandomAccess
+	{
+		public T get(int index)
+		{
+			return getPoint(index);
+		}
+
+		public int size()
+		{
+			return steps.length;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * <code>GridPathHelper</code> with a <code>ConnectivityIndex</code> of its map, the searches
+ * for the goals which are not connected to the start finish without expanding any node.
+ * The index has to be told about the changes of passability of the map through
+ * <code>getIndex().cellChanged</code>.
+ * @author Egor Tsinko
+ */
+public class ConnectedGridPathHelper extends GridPathHelper implements IConnectivityPathHelper<Point>
+{
+	private final ConnectivityIndex index;
+
+	/**
+	 * Creates the helper and builds the index of the <b>map</b>
+	 * @param map map to search on
+	 */
+	public ConnectedGridPathHelper(IGridMap map)
+	{
+		this(map, new ConnectivityIndex(map));
+	}
+
+	/**
+	 * @param map map to search on
+	 * @param index index of the <b>map</b>, can be shared by several helpers
+	 */
+	public ConnectedGridPathHelper(IGridMap map, ConnectivityIndex index)
+	{
+		super(map);
+		this.index = index;
+	}
+
+	/**
+	 * @return index of the map
+	 */
+	public ConnectivityIndex getIndex()
+	{
+		return index;
+	}
+
+	public boolean isConnected(Point start, Point goal)
+	{
+		return index.isConnected(start.x, start.y, goal.x, goal.y);
+	}
+}
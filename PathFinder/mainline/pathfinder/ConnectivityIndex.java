@@ -0,0 +1,346 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index of the connected areas of a grid map, which tells in O(1) whether a path between
+ * two cells can exist. The cells are connected in all 8 directions, the same way
+ * <code>GridPathHelper</code> moves.<br>
+ * The areas are kept in a union-find structure. When a cell becomes passable its area is
+ * merged with the areas of its neighbours right away. When a cell becomes a wall, the index
+ * checks if the passable neighbours of the cell are still connected around it; if they are,
+ * no area can be split. Otherwise the area might have been split, and the index keeps treating it
+ * as one area until <code>rebuild</code> is called. So the index never reports cells as
+ * disconnected when there is a path between them, it can only report some disconnected
+ * cells as connected until it is rebuilt.<br>
+ * All the methods are thread safe. The queries only read the index, so any number of them
+ * can run at the same time, the updates are exclusive.
+ * @author Egor Tsinko
+ * @see ConnectedGridPathHelper
+ */
+public class ConnectivityIndex
+{
+	private final IGridMap map;
+
+	private final int width;
+
+	private final int height;
+
+	/** parent of every cell in the union-find forest, a root is its own parent */
+	private final int[] parent;
+
+	/** upper bound of the height of the tree of every root */
+	private final byte[] rank;
+
+	/** passability of the cells as it is known to the index */
+	private final boolean[] passable;
+
+	/** number of cells which could have split an area since the last rebuild */
+	private int possibleSplits = 0;
+
+	/** shared by the queries, exclusive for the updates */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	/**
+	 * Builds the index of the <b>map</b>
+	 * @param map the map
+	 */
+	public ConnectivityIndex(IGridMap map)
+	{
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+		this.parent = new int[width * height];
+		this.rank = new byte[width * height];
+		this.passable = new boolean[width * height];
+		rebuild();
+	}
+
+	/**
+	 * Rebuilds the index from the current costs of the map, so that the areas split by the
+	 * new walls are separated. Takes time proportional to the size of the map.
+	 */
+	public void rebuild()
+	{
+		lock.writeLock().lock();
+		try
+		{
+			rebuildLocked();
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void rebuildLocked()
+	{
+		for (int y = 0; y < height; y++)
+		{
+			for (int x = 0; x < width; x++)
+			{
+				int cell = y * width + x;
+				parent[cell] = cell;
+				rank[cell] = 0;
+				passable[cell] = map.getCost(x, y) >= 0;
+				if (passable[cell])
+				{
+					//Neighbours which have already been visited
+					union(cell, x - 1, y - 1);
+					union(cell, x, y - 1);
+					union(cell, x + 1, y - 1);
+					union(cell, x - 1, y);
+				}
+			}
+		}
+		//Flatten the trees, so that the queries don't walk them
+		for (int cell = 0; cell < parent.length; cell++)
+		{
+			parent[cell] = find(cell);
+		}
+		possibleSplits = 0;
+	}
+
+	/**
+	 * Updates the index after the cost of the cell (<b>x</b>, <b>y</b>) has been changed in
+	 * the map. Changes which don't change the passability of the cell are ignored.
+	 * @param x x coordinate of the cell
+	 * @param y y coordinate of the cell
+	 */
+	public void cellChanged(int x, int y)
+	{
+		lock.writeLock().lock();
+		try
+		{
+			cellChangedLocked(x, y);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void cellChangedLocked(int x, int y)
+	{
+		int cell = y * width + x;
+		boolean nowPassable = map.getCost(x, y) >= 0;
+		if (nowPassable == passable[cell])
+		{
+			return;
+		}
+		passable[cell] = nowPassable;
+		if (nowPassable)
+		{
+			//The cell stays in the tree it was in, other cells can be linked through it
+			for (int dx = -1; dx <= 1; dx++)
+			{
+				for (int dy = -1; dy <= 1; dy++)
+				{
+					union(cell, x + dx, y + dy);
+				}
+			}
+		}
+		else if (!neighboursConnected(x, y))
+		{
+			possibleSplits++;
+		}
+	}
+
+	/**
+	 * Checks if there can be a path between two cells
+	 * @param x1 x coordinate of the first cell
+	 * @param y1 y coordinate of the first cell
+	 * @param x2 x coordinate of the second cell
+	 * @param y2 y coordinate of the second cell
+	 * @return false if there is no path for sure, true if both cells are passable and in the same area
+	 */
+	public boolean isConnected(int x1, int y1, int x2, int y2)
+	{
+		if (!inside(x1, y1) || !inside(x2, y2))
+		{
+			return false;
+		}
+		int a = y1 * width + x1;
+		int b = y2 * width + x2;
+		lock.readLock().lock();
+		try
+		{
+			return passable[a] && passable[b] && root(a) == root(b);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Gets the label of the area of the cell. Two passable cells are in the same area if they
+	 * have the same label. Labels can change when the index is updated.
+	 * @param x x coordinate of the cell
+	 * @param y y coordinate of the cell
+	 * @return label of the area or -1 if the cell is not passable or outside of the map
+	 */
+	public int getComponent(int x, int y)
+	{
+		if (!inside(x, y))
+		{
+			return -1;
+		}
+		int cell = y * width + x;
+		lock.readLock().lock();
+		try
+		{
+			return passable[cell] ? root(cell) : -1;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return number of changes since the last rebuild after which an area could have been
+	 * split, if it is 0 the index is exact
+	 */
+	public int getPossibleSplits()
+	{
+		lock.readLock().lock();
+		try
+		{
+			return possibleSplits;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	private boolean inside(int x, int y)
+	{
+		return x >= 0 && y >= 0 && x < width && y < height;
+	}
+
+	/**
+	 * Checks if the passable neighbours of the cell are connected with each other without
+	 * the cell itself, then the cell wasn't needed to connect anything
+	 */
+	private boolean neighboursConnected(int x, int y)
+	{
+		int[] dx = new int[8];
+		int[] dy = new int[8];
+		int count = 0;
+		for (int i = -1; i <= 1; i++)
+		{
+			for (int j = -1; j <= 1; j++)
+			{
+				if ((i != 0 || j != 0) && inside(x + i, y + j) && passable[(y + j) * width + x + i])
+				{
+					dx[count] = i;
+					dy[count] = j;
+					count++;
+				}
+			}
+		}
+		if (count <= 1)
+		{
+			return true;
+		}
+		//Flood fill over the neighbours, two of them are adjacent if they touch each other
+		int reached = 1;
+		int[] queue = new int[count];
+		boolean[] visited = new boolean[count];
+		visited[0] = true;
+		for (int head = 0; head < reached; head++)
+		{
+			int n = queue[head];
+			for (int m = 0; m < count; m++)
+			{
+				if (!visited[m] && Math.abs(dx[n] - dx[m]) <= 1 && Math.abs(dy[n] - dy[m]) <= 1)
+				{
+					visited[m] = true;
+					queue[reached++] = m;
+				}
+			}
+		}
+		return reached == count;
+	}
+
+	/**
+	 * Finds the root of the tree of the cell without changing the trees, used by the queries
+	 */
+	private int root(int cell)
+	{
+		while (parent[cell] != cell)
+		{
+			cell = parent[cell];
+		}
+		return cell;
+	}
+
+	/**
+	 * Finds the root of the tree of the cell and links all the cells on the way to the root
+	 * directly, so that the queries walk short paths. Only for the updates.
+	 */
+	private int find(int cell)
+	{
+		int root = root(cell);
+		while (parent[cell] != root)
+		{
+			int next = parent[cell];
+			parent[cell] = root;
+			cell = next;
+		}
+		return root;
+	}
+
+	/**
+	 * Merges the area of the <b>cell</b> with the area of the cell (<b>x</b>, <b>y</b>) if it is
+	 * passable
+	 */
+	private void union(int cell, int x, int y)
+	{
+		if (!inside(x, y) || !passable[y * width + x])
+		{
+			return;
+		}
+		int a = find(cell);
+		int b = find(y * width + x);
+		if (a == b)
+		{
+			return;
+		}
+		if (rank[a] < rank[b])
+		{
+			parent[a] = b;
+		}
+		else if (rank[a] > rank[b])
+		{
+			parent[b] = a;
+		}
+		else
+		{
+			parent[b] = a;
+			rank[a]++;
+		}
+	}
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Flow field towards a single goal. Instead of running a search for every actor that
+ * heads to the same point, one Dijkstra expansion runs backward from the <b>goal</b> and
+ * stores, for every reached point, its cost to the goal and the next point to walk to.
+ * After a point has been reached, its next step is returned in O(1).<br>
+ * The field is built lazily: a query for a point that is not reached yet continues the
+ * expansion only until that point is settled, so agents close to the goal don't pay for
+ * the whole map. <code>expandAll</code> builds the complete field at once.<br>
+ * If the helper implements <code>IReversiblePathHelper</code>, the expansion follows
+ * <code>getPredecessors</code>, otherwise movement is assumed to be symmetric and
+ * <code>getNeighbours</code> is used. The field describes the map at the time of the
+ * expansion, it has to be rebuilt after the map changes. An instance must not be used
+ * by several threads at the same time.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class FlowField<T extends Point>
+{
+	private final IPathHelper<T> helper;
+
+	private final IReversiblePathHelper<T> reversibleHelper;
+
+	private final T goal;
+
+	/** <code>gVal</code> is the cost to the goal, <code>parent</code> is the next step */
+	private final NodeStore<T> nodes = new NodeStore<T>();
+
+	private final IndexedBinaryHeap openNodes = new IndexedBinaryHeap(nodes);
+
+	private int steps = 0;
+
+	/**
+	 * Creates the flow field, no points are expanded until the first query
+	 * @param helper
+	 * @param goal point all the actors head to
+	 */
+	@SuppressWarnings("unchecked")
+	public FlowField(IPathHelper<T> helper, T goal)
+	{
+		this.helper = helper;
+		this.reversibleHelper = helper instanceof IReversiblePathHelper<?> ? 
+				(IReversiblePathHelper<T>) helper : null;
+		this.goal = goal;
+		int goalNode = nodes.add(goal);
+		openNodes.add(goalNode);
+	}
+
+	/**
+	 * @return the goal of the field
+	 */
+	public T getGoal()
+	{
+		return goal;
+	}
+
+	/**
+	 * Gets the next point an actor at <b>p</b> has to walk to
+	 * @param p current position of the actor
+	 * @return the next point or <b>null</b> if <b>p</b> is the goal or the goal isn't reachable from it
+	 */
+	public T getNextStep(T p)
+	{
+		int node = settle(p);
+		if (node == -1 || nodes.parent[node] == -1)
+		{
+			return null;
+		}
+		return nodes.point(nodes.parent[node]);
+	}
+
+	/**
+	 * Gets the cost of the optimal path from <b>p</b> to the goal
+	 * @param p start point
+	 * @return the cost or <code>Double.POSITIVE_INFINITY</code> if the goal isn't reachable
+	 */
+	public double getDistance(T p)
+	{
+		int node = settle(p);
+		return node == -1 ? Double.POSITIVE_INFINITY : nodes.gVal[node];
+	}
+
+	/**
+	 * @param p start point
+	 * @return true if the goal is reachable from <b>p</b>
+	 */
+	public boolean isReachable(T p)
+	{
+		return settle(p) != -1;
+	}
+
+	/**
+	 * Follows the field from <b>p</b> to the goal
+	 * @param p start point
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if path doesn't exist.
+	 */
+	public List<T> getPath(T p)
+	{
+		int node = settle(p);
+		if (node == -1)
+		{
+			return null;
+		}
+		LinkedList<T> path = new LinkedList<T>();
+		node = nodes.parent[node];
+		while (node != -1)
+		{
+			path.add(nodes.point(node));
+			node = nodes.parent[node];
+		}
+		return path;
+	}
+
+	/**
+	 * Expands the field over all the points the goal is reachable from
+	 */
+	public void expandAll()
+	{
+		while (!openNodes.isEmpty())
+		{
+			expand();
+		}
+	}
+
+	/**
+	 * @return true if all the points the goal is reachable from have been expanded
+	 */
+	public boolean isComplete()
+	{
+		return openNodes.isEmpty();
+	}
+
+	/**
+	 * Analysis function<br> 
+	 * @return number of points expanded so far
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * Continues the expansion until the node of <b>p</b> is closed
+	 * @param p point to settle
+	 * @return id of the node or -1 if the goal isn't reachable from <b>p</b>
+	 */
+	private int settle(T p)
+	{
+		int node = nodes.find(p);
+		while ((node == -1 || !nodes.closed[node]) && !openNodes.isEmpty())
+		{
+			expand();
+			if (node == -1)
+			{
+				node = nodes.find(p);
+			}
+		}
+		return node != -1 && nodes.closed[node] ? node : -1;
+	}
+
+	/**
+	 * Closes the node with the lowest cost to the goal and updates the nodes it can be
+	 * reached from
+	 */
+	private void expand()
+	{
+		steps++;
+		int node = openNodes.poll();
+		nodes.closed[node] = true;
+		T coord = nodes.point(node);
+		List<T> predecessors = reversibleHelper != null ? reversibleHelper.getPredecessors(coord) : 
+			helper.getNeighbours(coord);
+		for (T p : predecessors)
+		{
+			if (!p.equals(coord))
+			{
+				updatePredecessorNode(node, p);
+			}
+		}
+	}
+
+	/**
+	 * Creates or updates the node for <b>predecessorPos</b> which can reach the <b>node</b>.
+	 * Closed nodes are left untouched.
+	 * @param node id of the expanded node
+	 * @param predecessorPos position of the predecessor
+	 */
+	private void updatePredecessorNode(int node, T predecessorPos)
+	{
+		int predecessorNode = nodes.find(predecessorPos);
+		if (predecessorNode != -1 && nodes.closed[predecessorNode])
+		{
+			return;
+		}
+		double gVal = nodes.gVal[node] + helper.getCost(predecessorPos, nodes.point(node));
+		if (predecessorNode == -1)
+		{
+			predecessorNode = nodes.add(predecessorPos);
+			nodes.parent[predecessorNode] = node;
+			nodes.gVal[predecessorNode] = gVal;
+			openNodes.add(predecessorNode);
+		}
+		else if (nodes.gVal[predecessorNode] > gVal)
+		{
+			nodes.parent[predecessorNode] = node;
+			nodes.gVal[predecessorNode] = gVal;
+			openNodes.decreaseKey(predecessorNode);
+		}
+	}
+}
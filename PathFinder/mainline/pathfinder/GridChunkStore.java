@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Chunk store which copies the chunks out of a grid map, usually a
+ * <code>MappedGridMap</code> on a local disk.
+ * @author Egor Tsinko
+ */
+public class GridChunkStore implements IChunkStore
+{
+	private final IGridMap map;
+
+	private final int chunkSize;
+
+	/**
+	 * @param map map to load the chunks from
+	 * @param chunkSize number of cells along both sides of a chunk
+	 */
+	public GridChunkStore(IGridMap map, int chunkSize)
+	{
+		if (chunkSize <= 0)
+		{
+			throw new IllegalArgumentException("Chunk size must be positive");
+		}
+		this.map = map;
+		this.chunkSize = chunkSize;
+	}
+
+	public int getChunkSize()
+	{
+		return chunkSize;
+	}
+
+	public int getWidth()
+	{
+		return map.getWidth();
+	}
+
+	public int getHeight()
+	{
+		return map.getHeight();
+	}
+
+	public int[] loadChunk(int cx, int cy)
+	{
+		int[] costs = new int[chunkSize * chunkSize];
+		int x0 = cx * chunkSize;
+		int y0 = cy * chunkSize;
+		for (int y = 0; y < chunkSize; y++)
+		{
+			for (int x = 0; x < chunkSize; x++)
+			{
+				int mapX = x0 + x;
+				int mapY = y0 + y;
+				boolean inside = mapX < map.getWidth() && mapY < map.getHeight();
+				costs[y * chunkSize + x] = inside ? map.getCost(mapX, mapY) : -1;
+			}
+		}
+		return costs;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.util.Arrays;
+
+/**
+ * Values of the nodes of a grid search. There is a node for every cell of the map, node id
+ * is the index of the cell. A node belongs to the current search only if its stamp
+ * equals to the current generation, so nothing has to be cleared between searches.
+ * @author Egor Tsinko
+ */
+class GridNodes extends NodeValues
+{
+	int[] parent;
+
+	/** generation in which the node was reached */
+	int[] stamp;
+
+	/** generation in which the node was closed */
+	int[] closedStamp;
+
+	int generation = 0;
+
+	GridNodes(int size)
+	{
+		gVal = new double[size];
+		hVal = new double[size];
+		heapIndex = new int[size];
+		parent = new int[size];
+		stamp = new int[size];
+		closedStamp = new int[size];
+	}
+
+	/**
+	 * Starts a new search, all the nodes of the previous search become unreached
+	 */
+	void nextGeneration()
+	{
+		generation++;
+		if (generation == Integer.MAX_VALUE)
+		{
+			Arrays.fill(stamp, 0);
+			Arrays.fill(closedStamp, 0);
+			generation = 1;
+		}
+	}
+
+	boolean isReached(int node)
+	{
+		return stamp[node] == generation;
+	}
+
+	boolean isClosed(int node)
+	{
+		return closedStamp[node] == generation;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementation of <code>IPathHelper</code> for a grid map, so that <code>Pathfinder</code>
+ * can search on any <code>IGridMap</code>. Movement is allowed in all 8 directions to every
+ * passable cell. The cost of a movement is the cost of the destination cell, diagonal
+ * movements cost <b>sqrt(2)</b> times more, which is what <code>DiagonalNotEqual</code>
+ * expects. Every movement can be reversed, so the predecessors of a cell are its neighbours.
+ * The neighbours can also be passed to a sink, which <code>Pathfinder</code> prefers.
+ * @author Egor Tsinko
+ */
+public class GridPathHelper implements IReversiblePathHelper<Point>, INeighbourHelper<Point>
+{
+	static final float SQRT2 = (float) Math.sqrt(2.0);
+
+	private final IGridMap map;
+
+	/**
+	 * @param map map to search on
+	 */
+	public GridPathHelper(IGridMap map)
+	{
+		this.map = map;
+	}
+
+	/**
+	 * @return the map of this helper
+	 */
+	public IGridMap getMap()
+	{
+		return map;
+	}
+
+	public float getCost(Point sourcePoint, Point destPoint)
+	{
+		float cost = map.getCost(destPoint.x, destPoint.y);
+		if (sourcePoint.x != destPoint.x && sourcePoint.y != destPoint.y)
+		{
+			cost *= SQRT2;
+		}
+		return cost;
+	}
+
+	public List<Point> getNeighbours(Point point)
+	{
+		List<Point> points = new ArrayList<Point>(8);
+		for (int x = Math.max(0, point.x - 1); x <= Math.min(map.getWidth() - 1, point.x + 1); x++)
+		{
+			for (int y = Math.max(0, point.y - 1); y <= Math.min(map.getHeight() - 1, point.y + 1); y++)
+			{
+				if ((point.x != x || point.y != y) && map.getCost(x, y) >= 0)
+				{
+					points.add(new Point(x, y));
+				}
+			}
+		}
+		return points;
+	}
+
+	public void getNeighbours(Point point, INeighbourSink sink)
+	{
+		for (int x = Math.max(0, point.x - 1); x <= Math.min(map.getWidth() - 1, point.x + 1); x++)
+		{
+			for (int y = Math.max(0, point.y - 1); y <= Math.min(map.getHeight() - 1, point.y + 1); y++)
+			{
+				int cost = map.getCost(x, y);
+				if ((point.x != x || point.y != y) && cost >= 0)
+				{
+					sink.addNeighbour(x, y, point.x != x && point.y != y ? cost * SQRT2 : cost);
+				}
+			}
+		}
+	}
+
+	public Point createPoint(int x, int y)
+	{
+		return new Point(x, y);
+	}
+
+	public List<Point> getPredecessors(Point point)
+	{
+		return getNeighbours(point);
+	}
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Implementation of A* path finding algorithm specialised for dense grid maps.
+ * The map is given by its <b>width</b>, <b>height</b> and a flat array of costs, where the
+ * cost of the cell with coordinates (x, y) is stored at index <code>y * width + x</code>.
+ * The cost of movement to a cell is the cost of the cell itself, cells with negative cost
+ * are not passable. Movement is allowed in all 8 directions.<br>
+ * Unlike <code>Pathfinder</code> this class doesn't go through <code>IPathHelper</code>.
+ * All the memory it needs is allocated in the constructor and reused, so once it is created
+ * a search doesn't produce any garbage. The path is not returned as a list, it is kept inside
+ * the finder and can be read with <code>getPathX</code> and <code>getPathY</code>.<br>
+ * An instance must not be used by several threads at the same time.
+ * @author Egor Tsinko
+ */
+public class GridPathfinder
+{
+	/** cost of a cell which is not passable, any negative cost works the same way */
+	public static final int BLOCKED = -1;
+
+	private final int width;
+
+	private final int height;
+
+	private final int[] costs;
+
+	private final GridNodes nodes;
+
+	private final IndexedBinaryHeap openNodes;
+
+	/** cells of the last found path, without the start cell */
+	private final int[] path;
+
+	private int pathLength = -1;
+
+	/** reusable points to pass the coordinates to the heuristic function */
+	private final Point hStart = new Point();
+
+	private final Point hGoal = new Point();
+
+	private IHeuristic<Point> heuristic = new DiagonalNotEqual<Point>();
+
+	private double scale = 1.0;
+
+	private double tieBreaker = 1.0;
+
+	/** total time it took algorithm to calculate the path */
+	private long elapsedTime = 0;
+
+	private int steps = 0;
+
+	/**
+	 * Creates a finder for the map. The array of costs is not copied, so the changes
+	 * made to it are seen by the following searches.
+	 * @param width width of the map
+	 * @param height height of the map
+	 * @param costs costs of the cells, <code>width * height</code> elements
+	 */
+	public GridPathfinder(int width, int height, int[] costs)
+	{
+		if (width <= 0 || height <= 0 || costs.length < width * height)
+		{
+			throw new IllegalArgumentException("Cost array doesn't match the size of the map");
+		}
+		this.width = width;
+		this.height = height;
+		this.costs = costs;
+		int size = width * height;
+		nodes = new GridNodes(size);
+		openNodes = new IndexedBinaryHeap(nodes, size);
+		path = new int[size];
+	}
+
+	/**
+	 * Sets new scale for results of the heuristics. 
+	 * The default value is 1.0
+	 * @param scale new scale
+	 * @see Pathfinder#setScale(double)
+	 */
+	public void setScale(double scale)
+	{
+		this.scale = scale;
+	}
+
+	/**
+	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>
+	 * @param heuristic
+	 */
+	public void setHeuristic(IHeuristic<Point> heuristic)
+	{
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * @return width of the map
+	 */
+	public int getWidth()
+	{
+		return width;
+	}
+
+	/**
+	 * @return height of the map
+	 */
+	public int getHeight()
+	{
+		return height;
+	}
+
+	/**
+	 * This function finds optimal path from the start cell to the goal cell
+	 * @param startX x coordinate of the start
+	 * @param startY y coordinate of the start
+	 * @param goalX x coordinate of the goal
+	 * @param goalY y coordinate of the goal
+	 * @return number of cells that actor must sequentially walk through to reach goal or 
+	 * -1 if path doesn't exist.
+	 */
+	public int findPath(int startX, int startY, int goalX, int goalY)
+	{
+		long startTime = System.nanoTime();
+		steps = 0;
+		pathLength = -1;
+		openNodes.clear();
+		nodes.nextGeneration();
+
+		int start = startY * width + startX;
+		int goal = goalY * width + goalX;
+		if (start == goal)
+		{
+			pathLength = 0;
+		}
+		else
+		{
+			hGoal.setLocation(goalX, goalY);
+			tieBreaker = 1.0 + 1.0 / (4 * (Math.abs(startX - goalX) + Math.abs(startY - goalY)));
+			pathLength = calculatePath(start, goal);
+		}
+		elapsedTime = System.nanoTime() - startTime;
+		return pathLength;
+	}
+
+	/**
+	 * This function calculates the path 
+	 * @param start index of the start cell
+	 * @param goal index of the goal cell
+	 * @return length of the path or -1
+	 */
+	private int calculatePath(int start, int goal)
+	{
+		reach(start, -1, 0.0);
+		openNodes.add(start);
+
+		//While there are nodes in the open list
+		while (!openNodes.isEmpty())
+		{
+			steps++;
+			//Get the node with the lowest gVal+hVal
+			int node = openNodes.poll();
+			//Add it to the closed list
+			nodes.closedStamp[node] = nodes.generation;
+
+			if (node == goal)
+			{
+				// We found the path
+				return backTrackPath(node);
+			}
+
+			int x = node % width;
+			int y = node / width;
+			double gVal = nodes.gVal[node];
+			for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+			{
+				for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+				{
+					int neighbour = ny * width + nx;
+					int cost = costs[neighbour];
+					if (neighbour == node || cost < 0 || nodes.isClosed(neighbour))
+					{
+						continue;
+					}
+					double newGVal = gVal + cost;
+					if (!nodes.isReached(neighbour))
+					{
+						reach(neighbour, node, newGVal);
+						openNodes.add(neighbour);
+					}
+					else if (nodes.gVal[neighbour] >= newGVal)
+					{
+						nodes.parent[neighbour] = node;
+						nodes.gVal[neighbour] = newGVal;
+						openNodes.decreaseKey(neighbour);
+					}
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Marks the <b>node</b> as reached in the current search
+	 */
+	private void reach(int node, int parent, double gVal)
+	{
+		nodes.stamp[node] = nodes.generation;
+		nodes.parent[node] = parent;
+		nodes.gVal[node] = gVal;
+		hStart.setLocation(node % width, node / width);
+		nodes.hVal[node] = scale * tieBreaker * heuristic.calculateHeuristic(hStart, hGoal);
+	}
+
+	/**
+	 * Back tracks the path from the <b>node</b> into the <code>path</code> array
+	 * @param node end node that has to be backtracked
+	 * @return length of the path, without the start cell
+	 */
+	private int backTrackPath(int node)
+	{
+		int length = 0;
+		for (int n = node; nodes.parent[n] != -1; n = nodes.parent[n])
+		{
+			length++;
+		}
+		int i = length;
+		for (int n = node; nodes.parent[n] != -1; n = nodes.parent[n])
+		{
+			path[--i] = n;
+		}
+		return length;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return number of cells in the last found path or -1 if the path wasn't found
+	 */
+	public int getPathLength()
+	{
+		return pathLength;
+	}
+
+	/**
+	 * @param i index of the point in the path, starting with 0 for the first move
+	 * @return x coordinate of the i-th point of the last found path
+	 */
+	public int getPathX(int i)
+	{
+		checkPathIndex(i);
+		return path[i] % width;
+	}
+
+	/**
+	 * @param i index of the point in the path, starting with 0 for the first move
+	 * @return y coordinate of the i-th point of the last found path
+	 */
+	public int getPathY(int i)
+	{
+		checkPathIndex(i);
+		return path[i] / width;
+	}
+
+	private void checkPathIndex(int i)
+	{
+		if (i < 0 || i >= pathLength)
+		{
+			throw new IndexOutOfBoundsException("Index: " + i + ", Path length: " + pathLength);
+		}
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Gets <b>g</b> value for the closed cell (x, y), if the cell wasn't closed 0 is returned
+	 * @return g value
+	 */
+	public double getGVal(int x, int y)
+	{
+		int node = y * width + x;
+		return nodes.isClosed(node) ? nodes.gVal[node] : 0;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Gets <b>h</b> value for the closed cell (x, y), if the cell wasn't closed 0 is returned
+	 * @return h value
+	 */
+	public double getHVal(int x, int y)
+	{
+		int node = y * width + x;
+		return nodes.isClosed(node) ? nodes.hVal[node] : 0;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of steps it took to find the optimal path
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return time of the last run in nanoseconds 
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return the tiebreaker multiplier used to adjust the result of the heuristic function 
+	 */
+	public double getTieBreaker()
+	{
+		return tieBreaker;
+	}
+}
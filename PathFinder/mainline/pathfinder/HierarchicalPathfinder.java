@@ -0,0 +1,716 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Hierarchical path finding (HPA*) on a grid map. The map is split into square clusters,
+ * the passable cells on both sides of a border between two clusters form entrances, and
+ * every entrance gets one or two pairs of transition cells. A diagonal move across a
+ * border or through the corner of four clusters, which isn't next to an entrance, gets
+ * its own pair of transition cells. The distances between the transition cells of a
+ * cluster are calculated with <code>Pathfinder</code> restricted to the cluster and cached
+ * in an abstract graph.<br>
+ * A query first searches the abstract graph, which has only a few nodes per cluster, and
+ * then refines every abstract segment to the real cells. The refinement can be done lazily
+ * with <code>pathIterator</code>, one segment at a time as the actor walks.<br>
+ * The paths are close to optimal, but not always optimal. The costs of the movements are
+ * the same as in <code>GridPathHelper</code>.<br>
+ * When the map changes, the changed cells must be reported with <code>cellChanged</code>
+ * and <code>update</code> must be called. Only the clusters around the changed cells are
+ * rebuilt. An instance must not be used by several threads at the same time.
+ * The algorithm is described in
+ * <a href="http://webdocs.cs.ualberta.ca/~mmueller/ps/hpastar.pdf">Near Optimal
+ * Hierarchical Path-Finding</a> by A. Botea, M. M&uuml;ller and J. Schaeffer.
+ * @author Egor Tsinko
+ */
+public class HierarchicalPathfinder
+{
+	/** entrances of this length and longer get two transitions, at both ends */
+	private static final int LONG_ENTRANCE = 6;
+
+	private final IGridMap map;
+
+	private final GridPathHelper helper;
+
+	private final int clusterSize;
+
+	private final int clustersX;
+
+	private final int clustersY;
+
+	/**
+	 * transition pairs on the border between the cluster and its neighbours in +x direction,
+	 * the second cell of a diagonal pair can be in the cluster above or below the neighbour
+	 */
+	private final List<Point[]>[] eastEntrances;
+
+	/** transition pairs on the border between the cluster and its neighbour in +y direction */
+	private final List<Point[]>[] southEntrances;
+
+	/** cached costs between transitions of the same cluster */
+	private final Map<Point, Map<Point, Float>>[] intraEdges;
+
+	/** clusters that have to be rebuilt by <code>update</code> */
+	private final Set<Integer> dirtyClusters = new HashSet<Integer>();
+
+	/** finder for the searches inside one cluster */
+	private final Pathfinder<Point> clusterFinder = new Pathfinder<Point>();
+
+	/** finder for the searches in the abstract graph */
+	private final Pathfinder<Point> abstractFinder = new Pathfinder<Point>();
+
+	/** steps of the abstract search of the last query */
+	private int abstractSteps = 0;
+
+	/**
+	 * Helper that keeps the search inside one cluster
+	 */
+	private class ClusterHelper implements IPathHelper<Point>
+	{
+		private final int x0;
+
+		private final int y0;
+
+		private final int x1;
+
+		private final int y1;
+
+		ClusterHelper(int cluster)
+		{
+			x0 = (cluster % clustersX) * clusterSize;
+			y0 = (cluster / clustersX) * clusterSize;
+			x1 = Math.min(map.getWidth(), x0 + clusterSize) - 1;
+			y1 = Math.min(map.getHeight(), y0 + clusterSize) - 1;
+		}
+
+		public float getCost(Point sourcePoint, Point destPoint)
+		{
+			return helper.getCost(sourcePoint, destPoint);
+		}
+
+		public List<Point> getNeighbours(Point point)
+		{
+			List<Point> points = new ArrayList<Point>(8);
+			for (int x = Math.max(x0, point.x - 1); x <= Math.min(x1, point.x + 1); x++)
+			{
+				for (int y = Math.max(y0, point.y - 1); y <= Math.min(y1, point.y + 1); y++)
+				{
+					if ((point.x != x || point.y != y) && map.getCost(x, y) >= 0)
+					{
+						points.add(new Point(x, y));
+					}
+				}
+			}
+			return points;
+		}
+	}
+
+	/**
+	 * Helper for the abstract graph of one query. Besides the cached edges it contains
+	 * temporary edges from <b>start</b> and to <b>goal</b>.
+	 */
+	private class AbstractHelper implements IPathHelper<Point>
+	{
+		private final Point start;
+
+		private final Point goal;
+
+		private final Map<Point, Float> startEdges;
+
+		private final Map<Point, Float> goalEdges;
+
+		AbstractHelper(Point start, Point goal)
+		{
+			this.start = start;
+			this.goal = goal;
+			this.startEdges = connect(start, clusterOf(start), true);
+			this.goalEdges = connect(goal, clusterOf(goal), false);
+			if (clusterOf(start) == clusterOf(goal))
+			{
+				List<Point> direct = findInCluster(start, goal, clusterOf(start));
+				if (direct != null)
+				{
+					startEdges.put(goal, (float) clusterFinder.getGVal(goal));
+				}
+			}
+		}
+
+		public float getCost(Point sourcePoint, Point destPoint)
+		{
+			if (sourcePoint.equals(start) && startEdges.containsKey(destPoint))
+			{
+				return startEdges.get(destPoint);
+			}
+			if (destPoint.equals(goal) && goalEdges.containsKey(sourcePoint))
+			{
+				return goalEdges.get(sourcePoint);
+			}
+			Map<Point, Float> edges = intraEdges[clusterOf(sourcePoint)].get(sourcePoint);
+			if (edges != null && edges.containsKey(destPoint))
+			{
+				return edges.get(destPoint);
+			}
+			return helper.getCost(sourcePoint, destPoint);
+		}
+
+		public List<Point> getNeighbours(Point point)
+		{
+			List<Point> points = new ArrayList<Point>();
+			if (point.equals(start))
+			{
+				points.addAll(startEdges.keySet());
+			}
+			Map<Point, Float> edges = intraEdges[clusterOf(point)].get(point);
+			if (edges != null)
+			{
+				points.addAll(edges.keySet());
+				addCrossings(point, points);
+			}
+			if (goalEdges.containsKey(point))
+			{
+				points.add(goal);
+			}
+			return points;
+		}
+	}
+
+	/**
+	 * Creates the finder and builds the abstract graph for the whole map
+	 * @param map map to search on
+	 * @param clusterSize width and height of a cluster in cells
+	 */
+	public HierarchicalPathfinder(IGridMap map, int clusterSize)
+	{
+		if (clusterSize < 2)
+		{
+			throw new IllegalArgumentException("Cluster size must be at least 2: " + clusterSize);
+		}
+		this.map = map;
+		this.helper = new GridPathHelper(map);
+		this.clusterSize = clusterSize;
+		this.clustersX = (map.getWidth() + clusterSize - 1) / clusterSize;
+		this.clustersY = (map.getHeight() + clusterSize - 1) / clusterSize;
+		int clusters = clustersX * clustersY;
+		eastEntrances = newLists(clusters);
+		southEntrances = newLists(clusters);
+		intraEdges = newMaps(clusters);
+		for (int c = 0; c < clusters; c++)
+		{
+			eastEntrances[c] = new ArrayList<Point[]>();
+			southEntrances[c] = new ArrayList<Point[]>();
+			intraEdges[c] = new HashMap<Point, Map<Point, Float>>();
+			dirtyClusters.add(c);
+		}
+		update();
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <E> List<E>[] newLists(int size)
+	{
+		return new List[size];
+	}
+
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <K, V> Map<K, V>[] newMaps(int size)
+	{
+		return new Map[size];
+	}
+
+	/**
+	 * Reports a change of the cost or passability of the cell (x, y). The abstract graph
+	 * is not changed until <code>update</code> is called.
+	 * @param x x coordinate of the cell
+	 * @param y y coordinate of the cell
+	 */
+	public void cellChanged(int x, int y)
+	{
+		dirtyClusters.add((y / clusterSize) * clustersX + x / clusterSize);
+	}
+
+	/**
+	 * Rebuilds the parts of the abstract graph affected by the changed cells: the entrances
+	 * on the borders of the changed clusters and the cached distances inside the changed
+	 * clusters and the neighbours whose transitions have changed.
+	 * @return number of clusters which were rebuilt
+	 */
+	public int update()
+	{
+		if (dirtyClusters.isEmpty())
+		{
+			return 0;
+		}
+		Set<Integer> affected = new HashSet<Integer>();
+		for (int c : dirtyClusters)
+		{
+			int cx = c % clustersX;
+			int cy = c / clustersX;
+			affected.add(c);
+			//The diagonal crossings of the borders next to the cluster look into it too
+			for (int x = Math.max(0, cx - 1); x <= Math.min(cx, clustersX - 2); x++)
+			{
+				for (int y = Math.max(0, cy - 1); y <= Math.min(cy + 1, clustersY - 1); y++)
+				{
+					buildEastEntrances(y * clustersX + x, affected);
+				}
+			}
+			if (cy + 1 < clustersY)
+			{
+				buildSouthEntrances(c, affected);
+			}
+			if (cy > 0)
+			{
+				buildSouthEntrances(c - clustersX, affected);
+			}
+		}
+		for (int c : affected)
+		{
+			buildIntraEdges(c);
+		}
+		dirtyClusters.clear();
+		return affected.size();
+	}
+
+	/**
+	 * Finds the entrances on the border between cluster <b>c</b> and its neighbour in +x direction
+	 * @param affected receives the clusters whose transitions have changed
+	 */
+	private void buildEastEntrances(int c, Set<Integer> affected)
+	{
+		List<Point[]> entrances = eastEntrances[c];
+		List<Point[]> old = new ArrayList<Point[]>(entrances);
+		entrances.clear();
+		int x = (c % clustersX) * clusterSize + clusterSize - 1;
+		int y0 = (c / clustersX) * clusterSize;
+		int y1 = Math.min(map.getHeight(), y0 + clusterSize) - 1;
+		int runStart = -1;
+		for (int y = y0; y <= y1 + 1; y++)
+		{
+			boolean open = y <= y1 && map.getCost(x, y) >= 0 && map.getCost(x + 1, y) >= 0;
+			if (open && runStart == -1)
+			{
+				runStart = y;
+			}
+			else if (!open && runStart != -1)
+			{
+				int runEnd = y - 1;
+				if (runEnd - runStart + 1 >= LONG_ENTRANCE)
+				{
+					entrances.add(new Point[] {new Point(x, runStart), new Point(x + 1, runStart)});
+					entrances.add(new Point[] {new Point(x, runEnd), new Point(x + 1, runEnd)});
+				}
+				else
+				{
+					int mid = (runStart + runEnd) / 2;
+					entrances.add(new Point[] {new Point(x, mid), new Point(x + 1, mid)});
+				}
+				runStart = -1;
+			}
+		}
+		for (int y = y0; y <= y1; y++)
+		{
+			for (int ny = y - 1; ny <= y + 1; ny += 2)
+			{
+				if (ny >= 0 && ny < map.getHeight() && isLoneDiagonal(x, y, x + 1, ny))
+				{
+					entrances.add(new Point[] {new Point(x, y), new Point(x + 1, ny)});
+				}
+			}
+		}
+		addChanged(old, entrances, affected);
+	}
+
+	/**
+	 * Finds the entrances on the border between cluster <b>c</b> and its neighbour in +y direction.
+	 * The diagonal crossings through the corners of the cluster are found by
+	 * <code>buildEastEntrances</code>.
+	 * @param affected receives the clusters whose transitions have changed
+	 */
+	private void buildSouthEntrances(int c, Set<Integer> affected)
+	{
+		List<Point[]> entrances = southEntrances[c];
+		List<Point[]> old = new ArrayList<Point[]>(entrances);
+		entrances.clear();
+		int y = (c / clustersX) * clusterSize + clusterSize - 1;
+		int x0 = (c % clustersX) * clusterSize;
+		int x1 = Math.min(map.getWidth(), x0 + clusterSize) - 1;
+		int runStart = -1;
+		for (int x = x0; x <= x1 + 1; x++)
+		{
+			boolean open = x <= x1 && map.getCost(x, y) >= 0 && map.getCost(x, y + 1) >= 0;
+			if (open && runStart == -1)
+			{
+				runStart = x;
+			}
+			else if (!open && runStart != -1)
+			{
+				int runEnd = x - 1;
+				if (runEnd - runStart + 1 >= LONG_ENTRANCE)
+				{
+					entrances.add(new Point[] {new Point(runStart, y), new Point(runStart, y + 1)});
+					entrances.add(new Point[] {new Point(runEnd, y), new Point(runEnd, y + 1)});
+				}
+				else
+				{
+					int mid = (runStart + runEnd) / 2;
+					entrances.add(new Point[] {new Point(mid, y), new Point(mid, y + 1)});
+				}
+				runStart = -1;
+			}
+		}
+		for (int x = x0; x <= x1; x++)
+		{
+			for (int nx = x - 1; nx <= x + 1; nx += 2)
+			{
+				if (nx >= x0 && nx <= x1 && isLoneDiagonal(x, y, nx, y + 1))
+				{
+					entrances.add(new Point[] {new Point(x, y), new Point(nx, y + 1)});
+				}
+			}
+		}
+		addChanged(old, entrances, affected);
+	}
+
+	/**
+	 * Adds the clusters of the transitions to <b>affected</b> if the entrances have changed
+	 */
+	private void addChanged(List<Point[]> old, List<Point[]> entrances, Set<Integer> affected)
+	{
+		boolean changed = old.size() != entrances.size();
+		for (int i = 0; !changed && i < old.size(); i++)
+		{
+			changed = !Arrays.equals(old.get(i), entrances.get(i));
+		}
+		if (changed)
+		{
+			for (Point[] pair : old)
+			{
+				affected.add(clusterOf(pair[0]));
+				affected.add(clusterOf(pair[1]));
+			}
+			for (Point[] pair : entrances)
+			{
+				affected.add(clusterOf(pair[0]));
+				affected.add(clusterOf(pair[1]));
+			}
+		}
+	}
+
+	/**
+	 * Checks if the diagonal move from (<b>x</b>, <b>y</b>) to (<b>nx</b>, <b>ny</b>) is possible
+	 * and both cells it cuts the corner of are walls. If one of them is passable, the move
+	 * crosses the border next to an orthogonal entrance, which connects the same cells.
+	 */
+	private boolean isLoneDiagonal(int x, int y, int nx, int ny)
+	{
+		return map.getCost(x, y) >= 0 && map.getCost(nx, ny) >= 0
+			&& map.getCost(nx, y) < 0 && map.getCost(x, ny) < 0;
+	}
+
+	/**
+	 * Gets the transition cells of the cluster <b>c</b> from the entrances on its four borders
+	 */
+	private Set<Point> getTransitions(int c)
+	{
+		Set<Point> transitions = new HashSet<Point>();
+		for (List<Point[]> entrances : entrancesAround(c))
+		{
+			for (Point[] pair : entrances)
+			{
+				for (Point p : pair)
+				{
+					if (clusterOf(p) == c)
+					{
+						transitions.add(p);
+					}
+				}
+			}
+		}
+		return transitions;
+	}
+
+	/**
+	 * Gets the lists of entrances which can have a transition in the cluster <b>c</b>
+	 */
+	private List<List<Point[]>> entrancesAround(int c)
+	{
+		int cx = c % clustersX;
+		int cy = c / clustersX;
+		List<List<Point[]>> lists = new ArrayList<List<Point[]>>(6);
+		lists.add(eastEntrances[c]);
+		lists.add(southEntrances[c]);
+		if (cy > 0)
+		{
+			lists.add(southEntrances[c - clustersX]);
+		}
+		if (cx > 0)
+		{
+			for (int y = Math.max(0, cy - 1); y <= Math.min(cy + 1, clustersY - 1); y++)
+			{
+				lists.add(eastEntrances[y * clustersX + cx - 1]);
+			}
+		}
+		return lists;
+	}
+
+	/**
+	 * Calculates and caches the costs between all the transitions of the cluster <b>c</b>
+	 */
+	private void buildIntraEdges(int c)
+	{
+		Map<Point, Map<Point, Float>> edges = intraEdges[c];
+		edges.clear();
+		Set<Point> transitions = getTransitions(c);
+		for (Point from : transitions)
+		{
+			Map<Point, Float> fromEdges = new HashMap<Point, Float>();
+			for (Point to : transitions)
+			{
+				if (!from.equals(to) && findInCluster(from, to, c) != null)
+				{
+					fromEdges.put(to, (float) clusterFinder.getGVal(to));
+				}
+			}
+			edges.put(from, fromEdges);
+		}
+	}
+
+	/**
+	 * Adds the transitions on the other side of the borders which the transition
+	 * <b>point</b> is paired with
+	 */
+	private void addCrossings(Point point, List<Point> points)
+	{
+		for (List<Point[]> entrances : entrancesAround(clusterOf(point)))
+		{
+			addCrossings(point, entrances, points);
+		}
+	}
+
+	private void addCrossings(Point point, List<Point[]> entrances, List<Point> points)
+	{
+		for (Point[] pair : entrances)
+		{
+			if (pair[0].equals(point))
+			{
+				points.add(pair[1]);
+			}
+			else if (pair[1].equals(point))
+			{
+				points.add(pair[0]);
+			}
+		}
+	}
+
+	/**
+	 * Calculates the costs between the <b>point</b> and the transitions of its cluster
+	 * @param fromPoint true for the costs from the point, false for the costs to the point
+	 */
+	private Map<Point, Float> connect(Point point, int c, boolean fromPoint)
+	{
+		Map<Point, Float> edges = new HashMap<Point, Float>();
+		for (Point transition : getTransitions(c))
+		{
+			if (transition.equals(point))
+			{
+				edges.put(transition, 0.0f);
+			}
+			else if (fromPoint && findInCluster(point, transition, c) != null)
+			{
+				edges.put(transition, (float) clusterFinder.getGVal(transition));
+			}
+			else if (!fromPoint && findInCluster(transition, point, c) != null)
+			{
+				edges.put(transition, (float) clusterFinder.getGVal(point));
+			}
+		}
+		return edges;
+	}
+
+	private List<Point> findInCluster(Point from, Point to, int c)
+	{
+		return clusterFinder.findPath(new ClusterHelper(c), from, to);
+	}
+
+	private int clusterOf(Point p)
+	{
+		return (p.y / clusterSize) * clustersX + p.x / clusterSize;
+	}
+
+	/**
+	 * Finds the path in the abstract graph. The first point of the result is <b>start</b>,
+	 * the last one is <b>goal</b>, between them are the transitions the path goes through.
+	 * @param start start point
+	 * @param goal goal point
+	 * @return list of abstract points or <b>null</b> if path doesn't exist
+	 */
+	public List<Point> findAbstractPath(Point start, Point goal)
+	{
+		abstractSteps = 0;
+		if (map.getCost(start.x, start.y) < 0 || map.getCost(goal.x, goal.y) < 0)
+		{
+			return null;
+		}
+		LinkedList<Point> result = new LinkedList<Point>();
+		result.add(start);
+		if (!start.equals(goal))
+		{
+			List<Point> path = abstractFinder.findPath(new AbstractHelper(start, goal), start, goal);
+			abstractSteps = abstractFinder.getSteps();
+			if (path == null)
+			{
+				return null;
+			}
+			result.addAll(path);
+		}
+		return result;
+	}
+
+	/**
+	 * Refines one segment of the abstract path to the real cells
+	 * @param from first point of the segment
+	 * @param to last point of the segment
+	 * @return list of points that actor must sequentially walk through to get from <b>from</b>
+	 * to <b>to</b>, without <b>from</b>
+	 */
+	public List<Point> refineSegment(Point from, Point to)
+	{
+		int c = clusterOf(from);
+		if (c != clusterOf(to))
+		{
+			//Transitions of the same entrance are neighbours
+			List<Point> step = new LinkedList<Point>();
+			step.add(to);
+			return step;
+		}
+		List<Point> path = findInCluster(from, to, c);
+		return path != null ? path : Collections.<Point>emptyList();
+	}
+
+	/**
+	 * This function finds a path from <b>start</b> to <b>goal</b> and refines it completely
+	 * @param start start point
+	 * @param goal goal point
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if path doesn't exist.
+	 */
+	public List<Point> findPath(Point start, Point goal)
+	{
+		Iterator<Point> iterator = pathIterator(start, goal);
+		if (iterator == null)
+		{
+			return null;
+		}
+		List<Point> path = new LinkedList<Point>();
+		while (iterator.hasNext())
+		{
+			path.add(iterator.next());
+		}
+		return path;
+	}
+
+	/**
+	 * Finds the abstract path from <b>start</b> to <b>goal</b> and returns an iterator
+	 * over the real cells of the path. Segments of the abstract path are refined only when
+	 * the iterator reaches them.
+	 * @param start start point
+	 * @param goal goal point
+	 * @return iterator over the points of the path, without <b>start</b>, or <b>null</b>
+	 * if path doesn't exist.
+	 */
+	public Iterator<Point> pathIterator(Point start, Point goal)
+	{
+		final List<Point> abstractPath = findAbstractPath(start, goal);
+		if (abstractPath == null)
+		{
+			return null;
+		}
+		return new Iterator<Point>()
+		{
+			private final Iterator<Point> waypoints = abstractPath.iterator();
+
+			private Point last = waypoints.next();
+
+			private Iterator<Point> segment = Collections.<Point>emptyList().iterator();
+
+			public boolean hasNext()
+			{
+				while (!segment.hasNext() && waypoints.hasNext())
+				{
+					Point next = waypoints.next();
+					if (!next.equals(last))
+					{
+						segment = refineSegment(last, next).iterator();
+					}
+					last = next;
+				}
+				return segment.hasNext();
+			}
+
+			public Point next()
+			{
+				if (!hasNext())
+				{
+					throw new NoSuchElementException();
+				}
+				return segment.next();
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * @return number of transition cells in the abstract graph
+	 */
+	public int getTransitionCount()
+	{
+		int count = 0;
+		for (Map<Point, Map<Point, Float>> edges : intraEdges)
+		{
+			count += edges.size();
+		}
+		return count;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of steps of the abstract search of the last query
+	 */
+	public int getAbstractSteps()
+	{
+		return abstractSteps;
+	}
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.io.IOException;
+
+/**
+ * Source of the chunks of a <code>ChunkedWorld</code>. A chunk is a square of
+ * <code>chunkSize</code> x <code>chunkSize</code> cells, the chunk (cx, cy) contains the
+ * cells from (cx * chunkSize, cy * chunkSize). Chunks can be loaded by several threads
+ * at the same time.
+ * @author Egor Tsinko
+ * @see GridChunkStore
+ */
+public interface IChunkStore
+{
+	/**
+	 * @return number of cells along both sides of a chunk
+	 */
+	public int getChunkSize();
+
+	/**
+	 * @return number of cells of the world along x axis
+	 */
+	public int getWidth();
+
+	/**
+	 * @return number of cells of the world along y axis
+	 */
+	public int getHeight();
+
+	/**
+	 * Loads the costs of the chunk (<b>cx</b>, <b>cy</b>)
+	 * @param cx x coordinate of the chunk
+	 * @param cy y coordinate of the chunk
+	 * @return costs of the cells of the chunk row by row, <code>chunkSize * chunkSize</code>
+	 * elements, negative for the cells which are not passable or outside of the world
+	 * @throws IOException if the chunk can't be loaded
+	 */
+	public int[] loadChunk(int cx, int cy) throws IOException;
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * Helper of a world which is loaded into memory in chunks while it is searched. Before
+ * a search starts, <code>Pathfinder</code> lets the helper prefetch the chunks between the
+ * start and the goal, and it counts the chunks the helper had to load while the search was
+ * waiting, which is reported by <code>SearchContext.getChunkFaults</code>.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see ChunkedPathHelper
+ */
+public interface IChunkedPathHelper<T extends Point> extends IPathHelper<T>
+{
+	/**
+	 * Starts loading the chunks a search from <b>start</b> to <b>goal</b> is likely to
+	 * expand. The method must not wait for the chunks to be loaded.
+	 * @param start start point of the search
+	 * @param goal goal point of the search
+	 */
+	public void prefetch(T start, T goal);
+
+	/**
+	 * Gets the number of chunks the calling thread had to load or wait for because they
+	 * weren't in memory when they were accessed. The number only grows, the finder counts the
+	 * difference during a search.
+	 * @return number of chunk faults of the calling thread
+	 */
+	public long getChunkFaults();
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * Helper which can tell that there is no path between two points without searching.
+ * <code>Pathfinder</code> asks it before every search and doesn't expand any nodes if the
+ * goal can't be reached, so the search for an unreachable goal doesn't have to visit the
+ * whole area of the start.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see ConnectedGridPathHelper
+ */
+public interface IConnectivityPathHelper<T extends Point> extends IPathHelper<T>
+{
+	/**
+	 * Checks if there can be a path from <b>start</b> to <b>goal</b>. The answer must be
+	 * fast, it can be true for the points which are not connected, but it must never be
+	 * false for the points which are.
+	 * @param start start point
+	 * @param goal goal point
+	 * @return false if there is no path for sure
+	 */
+	public boolean isConnected(T start, T goal);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Interface for maps made of square cells. Cells are addressed by their x and y
+ * coordinates, starting from 0.
+ * @author Egor Tsinko
+ */
+public interface IGridMap
+{
+	/**
+	 * @return number of cells along x axis
+	 */
+	public int getWidth();
+
+	/**
+	 * @return number of cells along y axis
+	 */
+	public int getHeight();
+
+	/**
+	 * Gets the cost of movement to the cell (x, y)
+	 * @param x x coordinate of the cell, between 0 and width-1
+	 * @param y y coordinate of the cell, between 0 and height-1
+	 * @return the cost or a negative number if the cell is not passable
+	 */
+	public int getCost(int x, int y);
+}
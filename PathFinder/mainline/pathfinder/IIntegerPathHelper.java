@@ -0,0 +1,35 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * Helper which declares that <code>getCost</code> always returns whole non-negative numbers.
+ * For such helpers <code>Pathfinder</code> rounds the heuristic estimates down to whole
+ * numbers as well and keeps the open nodes in buckets of equal <code>g+h</code> instead of
+ * a binary heap, so adding and removing an open node takes amortised constant time.
+ * A heuristic rounded down stays admissible, so the paths are still optimal.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public interface IIntegerPathHelper<T extends Point> extends IPathHelper<T>
+{
+}
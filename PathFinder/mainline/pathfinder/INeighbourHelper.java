@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * Helper which passes the neighbours of a point to a sink instead of returning a list of
+ * new points. <code>Pathfinder</code> uses this method when the helper implements it, and
+ * creates point objects with <code>createPoint</code> only for the points it hasn't seen
+ * during the search, so an expansion itself allocates nothing. Other search engines
+ * still use the methods of <code>IPathHelper</code>, <code>AbstractNeighbourHelper</code>
+ * implements them on top of this interface.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public interface INeighbourHelper<T extends Point> extends IPathHelper<T>
+{
+	/**
+	 * Passes all the valid points that are possible to travel to from <b>point</b> with the
+	 * costs of movement to the <b>sink</b>. The order must be the same as in the list
+	 * returned by <code>getNeighbours(T)</code>.
+	 * @param point point to get neighbours for
+	 * @param sink receiver of the neighbours
+	 */
+	public void getNeighbours(T point, INeighbourSink sink);
+
+	/**
+	 * Creates a point, called only for the coordinates just passed to the sink
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return new point
+	 */
+	public T createPoint(int x, int y);
+}
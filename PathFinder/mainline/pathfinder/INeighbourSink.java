@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Receiver of the neighbours of a point, supplied by the search engine to 
+ * <code>INeighbourHelper.getNeighbours</code>. Passing the neighbours as primitive values
+ * doesn't require a list or point objects for every expansion.
+ * @author Egor Tsinko
+ */
+public interface INeighbourSink
+{
+	/**
+	 * Adds a neighbour of the point which is being expanded
+	 * @param x x coordinate of the neighbour
+	 * @param y y coordinate of the neighbour
+	 * @param cost cost of movement from the point to the neighbour
+	 */
+	public void addNeighbour(int x, int y, float cost);
+}
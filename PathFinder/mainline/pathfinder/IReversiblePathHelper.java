@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Helper which, besides the neighbours of a point, can tell from which points the
+ * point can be reached. Searches that go backwards from the goal, like
+ * <code>BidirectionalPathfinder</code>, require it.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public interface IReversiblePathHelper<T extends Point> extends IPathHelper<T>
+{
+	/**
+	 * Gets the list of valid points from which it is possible to travel to <b>point</b>.
+	 * The cost of such movement is <code>getCost(predecessor, point)</code>.
+	 * For maps where every movement can be reversed these are the neighbours of the point.
+	 * @param point point to get predecessors for
+	 * @return list of predecessor points
+	 */
+	public List<T> getPredecessors(T point);
+}
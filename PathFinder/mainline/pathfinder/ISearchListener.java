@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Listener which is notified by <code>Pathfinder</code> about the start and the end of every
+ * search. It is called by the thread which runs the search, so it must be thread safe if the
+ * finder is used by several threads. A search is finished with the listener it was started
+ * with, even if the listener of the finder has been changed in between.
+ * @author Egor Tsinko
+ * @see Pathfinder#setListener(ISearchListener)
+ * @see SearchMetrics
+ * @see ISearchSliceListener
+ */
+public interface ISearchListener
+{
+	/**
+	 * Called when a search is started, before any node is expanded. A search started
+	 * through <code>startSearch</code> can be finished by another thread.
+	 * @param ctx context of the new search
+	 */
+	void searchStarted(SearchContext<?> ctx);
+
+	/**
+	 * Called when a search is finished. The counters of the search can be read from the
+	 * <b>ctx</b>, which is reused by the next search of the same thread, so it must not be
+	 * kept after the call.
+	 * @param ctx context of the finished search
+	 * @param status outcome of the search
+	 */
+	void searchFinished(SearchContext<?> ctx, SearchStatus status);
+}
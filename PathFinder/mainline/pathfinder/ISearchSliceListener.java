@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Listener which is also notified about every portion of a search run through a
+ * <code>SearchHandle</code>. The portions are reported between <code>searchStarted</code>
+ * and <code>searchFinished</code> of the same search.
+ * @author Egor Tsinko
+ * @see SearchHandle
+ */
+public interface ISearchSliceListener extends ISearchListener
+{
+	/**
+	 * Called before a portion of the search is run
+	 * @param ctx context of the search
+	 */
+	void sliceStarted(SearchContext<?> ctx);
+
+	/**
+	 * Called after a portion of the search has been run, before <code>searchFinished</code>
+	 * if the search has finished in this portion
+	 * @param ctx context of the search
+	 * @param finished true if the search has finished in this portion
+	 */
+	void sliceFinished(SearchContext<?> ctx, boolean finished);
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Incremental path finder based on D* Lite. The search goes backward from the <b>goal</b>
+ * and its tree is kept between the calls of <code>findPath</code>. When the cost of movement
+ * to or from some point changes, for example a door closes or a wall is destroyed, the
+ * point is reported with <code>pointChanged</code> and the next <code>findPath</code> repairs
+ * only the part of the tree that depends on it. The actor can also move along the path,
+ * the start may change between the calls without a new search.<br>
+ * The tree is discarded when the goal or the helper changes. The heuristic must not
+ * overestimate the cost, no tie breaker is applied.<br>
+ * If the helper implements <code>IReversiblePathHelper</code>, <code>getPredecessors</code>
+ * must return every point which has the given point among its neighbours, before and after
+ * the change, it may return more points. <code>GridPathHelper</code> satisfies this. Other
+ * helpers are assumed to have symmetric movement and <code>getNeighbours</code> is used.
+ * An instance must not be used by several threads at the same time. The algorithm is
+ * described in
+ * <a href="http://idm-lab.org/bib/abstracts/papers/aaai02b.pdf">D* Lite</a> by
+ * S. Koenig and M. Likhachev.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class IncrementalPathfinder<T extends Point>
+{
+	private static final double EPSILON = 0.000001;
+
+	/**
+	 * keys are compared with a larger tolerance since heuristics return <code>float</code>
+	 * and keys of the nodes on equally good paths must be equal
+	 */
+	private static final double KEY_EPSILON = 0.0001;
+
+	private static final double INFINITY = Double.POSITIVE_INFINITY;
+
+	private IHeuristic<T> heuristic = new DiagonalNotEqual<T>();
+
+	private double scale = 1.0;
+
+	/** nodes of the search tree, <code>gVal</code> holds g values */
+	private final Nodes<T> nodes = new Nodes<T>();
+
+	private final IndexedBinaryHeap openNodes = new IndexedBinaryHeap(nodes);
+
+	private IPathHelper<T> helper;
+
+	/** the helper if it implements <code>IReversiblePathHelper</code>, otherwise null */
+	private IReversiblePathHelper<T> reversibleHelper;
+
+	private T start;
+
+	private T goal;
+
+	/** start at the time the keys were last adjusted */
+	private T lastStart;
+
+	/** key modifier, accumulates the heuristic distance the start has moved */
+	private double km = 0.0;
+
+	/** points reported since the last search */
+	private final Set<T> changedPoints = new LinkedHashSet<T>();
+
+	/** total time it took algorithm to calculate the path */
+	private long elapsedTime = 0;
+
+	private int steps = 0;
+
+	/**
+	 * Nodes with right-hand side values and two-part keys. The open list orders them by
+	 * the keys instead of <code>gVal+hVal</code>.
+	 */
+	private static class Nodes<T extends Point> extends NodeStore<T>
+	{
+		/** one step lookahead values of g */
+		double[] rhs;
+
+		double[] key1;
+
+		double[] key2;
+
+		void allocate(int capacity)
+		{
+			super.allocate(capacity);
+			rhs = grow(rhs, capacity);
+			key1 = grow(key1, capacity);
+			key2 = grow(key2, capacity);
+		}
+
+		int compare(int a, int b)
+		{
+			return compareKeys(key1[a], key2[a], key1[b], key2[b]);
+		}
+	}
+
+	/**
+	 * Compares keys [k1, k2] and [l1, l2] lexicographically
+	 */
+	private static int compareKeys(double k1, double k2, double l1, double l2)
+	{
+		if (Math.abs(k1 - l1) >= KEY_EPSILON && k1 != l1)
+		{
+			return k1 < l1 ? -1 : 1;
+		}
+		if (Math.abs(k2 - l2) >= KEY_EPSILON && k2 != l2)
+		{
+			return k2 < l2 ? -1 : 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Sets new scale for results of the heuristics. The search tree is discarded.
+	 * The default value is 1.0
+	 * @param scale new scale
+	 * @see Pathfinder#setScale(double)
+	 */
+	public void setScale(double scale)
+	{
+		this.scale = scale;
+		this.goal = null;
+	}
+
+	/**
+	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>.
+	 * The search tree is discarded.
+	 * @param heuristic
+	 */
+	public void setHeuristic(IHeuristic<T> heuristic)
+	{
+		this.heuristic = heuristic;
+		this.goal = null;
+	}
+
+	/**
+	 * Reports that the cost of movement to or from the point <b>p</b> has changed, including
+	 * the case when the point became passable or impassable. The search tree is repaired
+	 * by the next call of <code>findPath</code>.
+	 * @param p changed point
+	 */
+	public void pointChanged(T p)
+	{
+		changedPoints.add(p);
+	}
+
+	/**
+	 * This function finds optimal path from <b>start</b> to <b>goal</b> with the <b>helper</b>.
+	 * If the goal and the helper are the same as in the previous call, the previous search
+	 * tree is reused and repaired for the reported changes.
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if path doesn't exist.
+	 */
+	public List<T> findPath(IPathHelper<T> helper, T start, T goal)
+	{
+		long startTime = System.nanoTime();
+		steps = 0;
+		if (helper != this.helper || !goal.equals(this.goal))
+		{
+			initialize(helper, start, goal);
+		}
+		else
+		{
+			this.start = start;
+			km += calculateHVal(lastStart, start);
+			lastStart = start;
+			for (T p : changedPoints)
+			{
+				updateVertex(p);
+				for (T predecessor : predecessors(p))
+				{
+					updateVertex(predecessor);
+				}
+			}
+		}
+		changedPoints.clear();
+
+		List<T> path = null;
+		if (start.equals(goal))
+		{
+			path = new LinkedList<T>();
+		}
+		else
+		{
+			computeShortestPath();
+			path = extractPath();
+		}
+		elapsedTime = System.nanoTime() - startTime;
+		return path;
+	}
+
+	@SuppressWarnings("unchecked")
+	private void initialize(IPathHelper<T> helper, T start, T goal)
+	{
+		this.helper = helper;
+		this.reversibleHelper = helper instanceof IReversiblePathHelper<?> ? 
+				(IReversiblePathHelper<T>) helper : null;
+		this.start = start;
+		this.goal = goal;
+		this.lastStart = start;
+		km = 0.0;
+		nodes.clear();
+		openNodes.clear();
+		int goalNode = node(goal);
+		nodes.rhs[goalNode] = 0.0;
+		calculateKey(goalNode);
+		openNodes.add(goalNode);
+	}
+
+	/**
+	 * Gets the points from which <b>p</b> can be reached
+	 * @param p the point
+	 * @return predecessors of the point
+	 */
+	private List<T> predecessors(T p)
+	{
+		return reversibleHelper != null ? reversibleHelper.getPredecessors(p) : helper.getNeighbours(p);
+	}
+
+	private double calculateHVal(T from, T to)
+	{
+		return scale * heuristic.calculateHeuristic(from, to);
+	}
+
+	/**
+	 * Finds the node for the point <b>p</b> or creates a new one with infinite g and rhs
+	 * @return id of the node
+	 */
+	private int node(T p)
+	{
+		int n = nodes.find(p);
+		if (n == -1)
+		{
+			n = nodes.add(p);
+			nodes.gVal[n] = INFINITY;
+			nodes.rhs[n] = INFINITY;
+		}
+		return n;
+	}
+
+	private double gVal(T p)
+	{
+		int n = nodes.find(p);
+		return n == -1 ? INFINITY : nodes.gVal[n];
+	}
+
+	private void calculateKey(int n)
+	{
+		double min = Math.min(nodes.gVal[n], nodes.rhs[n]);
+		nodes.key1[n] = min + calculateHVal(start, nodes.point(n)) + km;
+		nodes.key2[n] = min;
+	}
+
+	/**
+	 * Recalculates the rhs value of the point and puts it to, or removes it from, the list
+	 * of open nodes depending on whether it is consistent
+	 */
+	private void updateVertex(T p)
+	{
+		int n = node(p);
+		if (!p.equals(goal))
+		{
+			double rhs = INFINITY;
+			for (T successor : helper.getNeighbours(p))
+			{
+				if (!successor.equals(p))
+				{
+					rhs = Math.min(rhs, helper.getCost(p, successor) + gVal(successor));
+				}
+			}
+			nodes.rhs[n] = rhs;
+		}
+		boolean consistent = Math.abs(nodes.gVal[n] - nodes.rhs[n]) < EPSILON ||
+			nodes.gVal[n] == nodes.rhs[n];
+		boolean open = openNodes.contains(n);
+		if (!consistent)
+		{
+			calculateKey(n);
+			if (open)
+			{
+				openNodes.update(n);
+			}
+			else
+			{
+				openNodes.add(n);
+			}
+		}
+		else if (open)
+		{
+			openNodes.remove(n);
+		}
+	}
+
+	/**
+	 * Expands the inconsistent nodes until the start is consistent and no open node
+	 * has a lower key than the start
+	 */
+	private void computeShortestPath()
+	{
+		int startNode = node(start);
+		while (!openNodes.isEmpty())
+		{
+			int top = openNodes.peek();
+			double startKey1 = Math.min(nodes.gVal[startNode], nodes.rhs[startNode]) + km;
+			double startKey2 = Math.min(nodes.gVal[startNode], nodes.rhs[startNode]);
+			boolean startConsistent = nodes.gVal[startNode] == nodes.rhs[startNode] ||
+				Math.abs(nodes.gVal[startNode] - nodes.rhs[startNode]) < EPSILON;
+			if (compareKeys(nodes.key1[top], nodes.key2[top], startKey1, startKey2) >= 0 && startConsistent)
+			{
+				break;
+			}
+			steps++;
+			double oldKey1 = nodes.key1[top];
+			double oldKey2 = nodes.key2[top];
+			calculateKey(top);
+			if (compareKeys(oldKey1, oldKey2, nodes.key1[top], nodes.key2[top]) < 0)
+			{
+				openNodes.update(top);
+			}
+			else if (nodes.gVal[top] > nodes.rhs[top])
+			{
+				nodes.gVal[top] = nodes.rhs[top];
+				openNodes.remove(top);
+				T u = nodes.point(top);
+				for (T predecessor : predecessors(u))
+				{
+					if (!predecessor.equals(u))
+					{
+						updateVertex(predecessor);
+					}
+				}
+			}
+			else
+			{
+				nodes.gVal[top] = INFINITY;
+				T u = nodes.point(top);
+				updateVertex(u);
+				for (T predecessor : predecessors(u))
+				{
+					if (!predecessor.equals(u))
+					{
+						updateVertex(predecessor);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Follows the cheapest successors from the start to the goal
+	 * @return list of the points without the <b>start</b> or <b>null</b> if path doesn't exist
+	 */
+	private List<T> extractPath()
+	{
+		if (gVal(start) == INFINITY)
+		{
+			return null;
+		}
+		LinkedList<T> path = new LinkedList<T>();
+		T current = start;
+		//Path can't be longer than the number of known nodes
+		for (int i = 0; i < nodes.size && !current.equals(goal); i++)
+		{
+			T best = null;
+			double bestCost = INFINITY;
+			for (T successor : helper.getNeighbours(current))
+			{
+				if (!successor.equals(current))
+				{
+					double cost = helper.getCost(current, successor) + gVal(successor);
+					if (cost < bestCost)
+					{
+						bestCost = cost;
+						best = successor;
+					}
+				}
+			}
+			if (best == null)
+			{
+				return null;
+			}
+			path.add(best);
+			current = best;
+		}
+		return current.equals(goal) ? path : null;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return cost of the path from the start to the goal or infinity if it doesn't exist
+	 */
+	public double getPathCost()
+	{
+		return start == null ? INFINITY : gVal(start);
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of nodes expanded by the last call
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return time of the last run in nanoseconds 
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+}
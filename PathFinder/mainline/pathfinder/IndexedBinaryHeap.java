@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Binary min-heap of node ids which keeps every node's position in the
+ * <code>heapIndex</code> array of the <code>NodeValues</code>. Knowing the position allows
+ * to check membership in O(1) and to decrease the value of a node already in the heap
+ * in O(log n), instead of scanning the whole open list.
+ * @author Egor Tsinko
+ */
+class IndexedBinaryHeap implements OpenList
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	private final NodeValues store;
+
+	private int[] heap;
+
+	private int size = 0;
+
+	/**
+	 * @param store store which holds values of the nodes
+	 */
+	IndexedBinaryHeap(NodeValues store)
+	{
+		this(store, INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param store store which holds values of the nodes
+	 * @param capacity initial capacity of the heap
+	 */
+	IndexedBinaryHeap(NodeValues store, int capacity)
+	{
+		this.store = store;
+		this.heap = new int[Math.max(1, capacity)];
+	}
+
+	/**
+	 * @return true if the heap doesn't contain any nodes
+	 */
+	public boolean isEmpty()
+	{
+		return size == 0;
+	}
+
+	/**
+	 * @return number of nodes in the heap
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @param node id of the node to check
+	 * @return true if the <b>node</b> is in the heap
+	 */
+	public boolean contains(int node)
+	{
+		int index = store.heapIndex[node];
+		return index >= 0 && index < size && heap[index] == node;
+	}
+
+	/**
+	 * Adds the <b>node</b> to the heap
+	 * @param node id of the node to add
+	 */
+	public void add(int node)
+	{
+		if (size == heap.length)
+		{
+			int[] newHeap = new int[heap.length << 1];
+			System.arraycopy(heap, 0, newHeap, 0, size);
+			heap = newHeap;
+		}
+		size++;
+		siftUp(size - 1, node);
+	}
+
+	/**
+	 * Gets the node with the lowest <code>gVal+hVal</code> without removing it
+	 * @return id of the node or -1 if the heap is empty
+	 */
+	public int peek()
+	{
+		return size == 0 ? -1 : heap[0];
+	}
+
+	/**
+	 * Removes the node with the lowest <code>gVal+hVal</code> from the heap
+	 * @return id of the node or -1 if the heap is empty
+	 */
+	public int poll()
+	{
+		if (size == 0)
+		{
+			return -1;
+		}
+		int result = heap[0];
+		size--;
+		if (size > 0)
+		{
+			siftDown(0, heap[size]);
+		}
+		store.heapIndex[result] = -1;
+		return result;
+	}
+
+	/**
+	 * Restores the heap order after the value of the <b>node</b> has been decreased
+	 * @param node id of the node which value has been decreased
+	 */
+	public void decreaseKey(int node)
+	{
+		siftUp(store.heapIndex[node], node);
+	}
+
+	/**
+	 * Restores the heap order after the value of the <b>node</b> has been changed in
+	 * any direction
+	 * @param node id of the node which value has been changed
+	 */
+	void update(int node)
+	{
+		int index = store.heapIndex[node];
+		siftUp(index, node);
+		if (store.heapIndex[node] == index)
+		{
+			siftDown(index, node);
+		}
+	}
+
+	/**
+	 * Removes the <b>node</b> from the heap
+	 * @param node id of the node to remove
+	 */
+	void remove(int node)
+	{
+		int index = store.heapIndex[node];
+		size--;
+		store.heapIndex[node] = -1;
+		if (index != size)
+		{
+			int last = heap[size];
+			siftDown(index, last);
+			if (heap[index] == last)
+			{
+				siftUp(index, last);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the nodes from the heap
+	 */
+	public void clear()
+	{
+		for (int i = 0; i < size; i++)
+		{
+			store.heapIndex[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	private void siftUp(int index, int node)
+	{
+		while (index > 0)
+		{
+			int parent = (index - 1) >>> 1;
+			int parentNode = heap[parent];
+			if (store.compare(node, parentNode) >= 0)
+			{
+				break;
+			}
+			place(index, parentNode);
+			index = parent;
+		}
+		place(index, node);
+	}
+
+	private void siftDown(int index, int node)
+	{
+		int half = size >>> 1;
+		while (index < half)
+		{
+			int child = (index << 1) + 1;
+			int right = child + 1;
+			if (right < size && store.compare(heap[child], heap[right]) > 0)
+			{
+				child = right;
+			}
+			if (store.compare(node, heap[child]) <= 0)
+			{
+				break;
+			}
+			place(index, heap[child]);
+			index = child;
+		}
+		place(index, node);
+	}
+
+	private void place(int index, int node)
+	{
+		heap[index] = node;
+		store.heapIndex[node] = index;
+	}
+}
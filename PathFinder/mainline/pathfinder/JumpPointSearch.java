@@ -0,0 +1,575 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Implementation of Jump Point Search for uniform-cost grid maps with movement in all
+ * 8 directions. Straight movement costs 1 and diagonal movement costs <b>sqrt(2)</b>, the
+ * costs of passable cells are ignored, so the paths are optimal only for maps where every
+ * passable cell has the same cost. On such maps JPS returns paths of the same cost as
+ * <code>Pathfinder</code> with a <code>GridPathHelper</code>, but it expands only the jump
+ * points instead of all the symmetric paths between them. The algorithm is described in
+ * <a href="http://users.cecs.anu.edu.au/~dharabor/data/papers/harabor-grastien-aaai11.pdf">
+ * Online Graph Pruning for Pathfinding on Grid Maps</a> by D. Harabor and A. Grastien.<br>
+ * After <code>precomputeJumpDistances</code> is called the search switches to JPS+: the
+ * distances to the next jump point (or to the wall) in every direction are read from a table
+ * instead of being scanned during the search. The table has to be recomputed when the map
+ * changes.<br>
+ * Like <code>GridPathfinder</code> this class allocates its memory in the constructor and
+ * keeps the path inside, it can be read with <code>getPathX</code> and <code>getPathY</code>.
+ * An instance must not be used by several threads at the same time.
+ * @author Egor Tsinko
+ */
+public class JumpPointSearch
+{
+	private static final double SQRT2 = Math.sqrt(2.0);
+
+	/** directions, index in these arrays is the index of the direction in jump distance table */
+	private static final int[] DX = {1, 1, 0, -1, -1, -1, 0, 1};
+
+	private static final int[] DY = {0, 1, 1, 1, 0, -1, -1, -1};
+
+	/** index of the direction by (dy + 1) * 3 + dx + 1 */
+	private static final int[] DIRECTIONS = {5, 6, 7, 4, -1, 0, 3, 2, 1};
+
+	private final IGridMap map;
+
+	private final int width;
+
+	private final int height;
+
+	private final GridNodes nodes;
+
+	private final IndexedBinaryHeap openNodes;
+
+	/** cells of the last found path, without the start cell */
+	private final int[] path;
+
+	private int pathLength = -1;
+
+	private double pathCost = 0.0;
+
+	/** directions of the successors of the node being expanded */
+	private final int[] successorDx = new int[8];
+
+	private final int[] successorDy = new int[8];
+
+	/** reusable points to pass the coordinates to the heuristic function */
+	private final Point hStart = new Point();
+
+	private final Point hGoal = new Point();
+
+	private IHeuristic<Point> heuristic = new DiagonalNotEqual<Point>();
+
+	/** JPS+ distances [direction][cell], null if plain JPS is used */
+	private int[][] jumpDistances = null;
+
+	private int goalX;
+
+	private int goalY;
+
+	/** total time it took algorithm to calculate the path */
+	private long elapsedTime = 0;
+
+	private int steps = 0;
+
+	/**
+	 * @param map map to search on
+	 */
+	public JumpPointSearch(IGridMap map)
+	{
+		this.map = map;
+		this.width = map.getWidth();
+		this.height = map.getHeight();
+		int size = width * height;
+		nodes = new GridNodes(size);
+		openNodes = new IndexedBinaryHeap(nodes, size);
+		path = new int[size];
+	}
+
+	/**
+	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>. The heuristic
+	 * must not overestimate the cost, otherwise the path is not optimal.
+	 * @param heuristic
+	 */
+	public void setHeuristic(IHeuristic<Point> heuristic)
+	{
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Computes the table of jump distances and switches the search to JPS+. Must be
+	 * called again after the passability of any cell of the map has changed.
+	 */
+	public void precomputeJumpDistances()
+	{
+		int[][] distances = new int[8][width * height];
+		//Straight directions first, diagonal distances depend on them
+		for (int dir = 0; dir < 8; dir += 2)
+		{
+			computeJumpDistances(distances, dir);
+		}
+		for (int dir = 1; dir < 8; dir += 2)
+		{
+			computeJumpDistances(distances, dir);
+		}
+		jumpDistances = distances;
+	}
+
+	/**
+	 * Switches the search back to plain JPS and releases the table of jump distances
+	 */
+	public void clearJumpDistances()
+	{
+		jumpDistances = null;
+	}
+
+	/**
+	 * @return true if the search uses precomputed jump distances (JPS+)
+	 */
+	public boolean isPrecomputed()
+	{
+		return jumpDistances != null;
+	}
+
+	/**
+	 * Fills the table of jump distances for the direction <b>dir</b>. A positive distance is
+	 * the number of moves to the next jump point, otherwise its absolute value is the number
+	 * of moves before the wall.
+	 */
+	private void computeJumpDistances(int[][] distances, int dir)
+	{
+		int dx = DX[dir];
+		int dy = DY[dir];
+		int[] table = distances[dir];
+		//Cells are visited so that the next cell in the direction is always computed first
+		int xFrom = dx > 0 ? width - 1 : 0;
+		int xStep = dx > 0 ? -1 : 1;
+		int yFrom = dy > 0 ? height - 1 : 0;
+		int yStep = dy > 0 ? -1 : 1;
+		for (int y = yFrom; y >= 0 && y < height; y += yStep)
+		{
+			for (int x = xFrom; x >= 0 && x < width; x += xStep)
+			{
+				int nx = x + dx;
+				int ny = y + dy;
+				int distance;
+				if (!passable(nx, ny))
+				{
+					distance = 0;
+				}
+				else if (isJumpPoint(distances, nx, ny, dx, dy))
+				{
+					distance = 1;
+				}
+				else
+				{
+					int next = distances[dir][ny * width + nx];
+					distance = next > 0 ? next + 1 : next - 1;
+				}
+				table[y * width + x] = distance;
+			}
+		}
+	}
+
+	/**
+	 * Checks if the cell (x, y), entered in the direction (dx, dy), is a jump point
+	 * when the goal is not taken into account
+	 */
+	private boolean isJumpPoint(int[][] distances, int x, int y, int dx, int dy)
+	{
+		if (hasForcedNeighbour(x, y, dx, dy))
+		{
+			return true;
+		}
+		if (dx != 0 && dy != 0)
+		{
+			int cell = y * width + x;
+			return distances[direction(dx, 0)][cell] > 0 || distances[direction(0, dy)][cell] > 0;
+		}
+		return false;
+	}
+
+	/**
+	 * This function finds optimal path from the start cell to the goal cell
+	 * @param startX x coordinate of the start
+	 * @param startY y coordinate of the start
+	 * @param goalX x coordinate of the goal
+	 * @param goalY y coordinate of the goal
+	 * @return number of cells that actor must sequentially walk through to reach goal or 
+	 * -1 if path doesn't exist.
+	 */
+	public int findPath(int startX, int startY, int goalX, int goalY)
+	{
+		long startTime = System.nanoTime();
+		steps = 0;
+		pathLength = -1;
+		pathCost = 0.0;
+		openNodes.clear();
+		nodes.nextGeneration();
+		this.goalX = goalX;
+		this.goalY = goalY;
+
+		if (startX == goalX && startY == goalY)
+		{
+			pathLength = 0;
+		}
+		else if (passable(goalX, goalY))
+		{
+			hGoal.setLocation(goalX, goalY);
+			pathLength = calculatePath(startY * width + startX, goalY * width + goalX);
+		}
+		elapsedTime = System.nanoTime() - startTime;
+		return pathLength;
+	}
+
+	/**
+	 * This function calculates the path 
+	 * @param start index of the start cell
+	 * @param goal index of the goal cell
+	 * @return length of the path or -1
+	 */
+	private int calculatePath(int start, int goal)
+	{
+		reach(start, -1, 0.0);
+		openNodes.add(start);
+
+		while (!openNodes.isEmpty())
+		{
+			steps++;
+			int node = openNodes.poll();
+			nodes.closedStamp[node] = nodes.generation;
+
+			if (node == goal)
+			{
+				pathCost = nodes.gVal[node];
+				return backTrackPath(node);
+			}
+
+			int x = node % width;
+			int y = node / width;
+			int successors = findSuccessorDirections(node, x, y);
+			for (int i = 0; i < successors; i++)
+			{
+				int jumpPoint = (jumpDistances != null) ? 
+						jumpPlus(x, y, successorDx[i], successorDy[i]) : 
+						jump(x, y, successorDx[i], successorDy[i]);
+				if (jumpPoint == -1 || nodes.isClosed(jumpPoint))
+				{
+					continue;
+				}
+				double gVal = nodes.gVal[node] + distance(node, jumpPoint);
+				if (!nodes.isReached(jumpPoint))
+				{
+					reach(jumpPoint, node, gVal);
+					openNodes.add(jumpPoint);
+				}
+				else if (nodes.gVal[jumpPoint] > gVal)
+				{
+					nodes.parent[jumpPoint] = node;
+					nodes.gVal[jumpPoint] = gVal;
+					openNodes.decreaseKey(jumpPoint);
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Prunes the neighbours of the node, leaving only the natural and forced neighbours
+	 * for the direction the node was reached from. The directions are written to
+	 * <code>successorDx</code> and <code>successorDy</code>.
+	 * @return number of directions
+	 */
+	private int findSuccessorDirections(int node, int x, int y)
+	{
+		int parent = nodes.parent[node];
+		int count = 0;
+		if (parent == -1)
+		{
+			for (int dir = 0; dir < 8; dir++)
+			{
+				successorDx[count] = DX[dir];
+				successorDy[count++] = DY[dir];
+			}
+			return count;
+		}
+		int dx = Integer.signum(x - parent % width);
+		int dy = Integer.signum(y - parent / width);
+		if (dx != 0 && dy != 0)
+		{
+			count = addDirection(count, 0, dy);
+			count = addDirection(count, dx, 0);
+			count = addDirection(count, dx, dy);
+			if (!passable(x - dx, y))
+			{
+				count = addDirection(count, -dx, dy);
+			}
+			if (!passable(x, y - dy))
+			{
+				count = addDirection(count, dx, -dy);
+			}
+		}
+		else if (dx != 0)
+		{
+			count = addDirection(count, dx, 0);
+			if (!passable(x, y + 1))
+			{
+				count = addDirection(count, dx, 1);
+			}
+			if (!passable(x, y - 1))
+			{
+				count = addDirection(count, dx, -1);
+			}
+		}
+		else
+		{
+			count = addDirection(count, 0, dy);
+			if (!passable(x + 1, y))
+			{
+				count = addDirection(count, 1, dy);
+			}
+			if (!passable(x - 1, y))
+			{
+				count = addDirection(count, -1, dy);
+			}
+		}
+		return count;
+	}
+
+	private int addDirection(int count, int dx, int dy)
+	{
+		successorDx[count] = dx;
+		successorDy[count] = dy;
+		return count + 1;
+	}
+
+	/**
+	 * Moves from the cell (x, y) in the direction (dx, dy) until it finds a jump point
+	 * @return index of the jump point or -1 if there is none
+	 */
+	private int jump(int x, int y, int dx, int dy)
+	{
+		while (true)
+		{
+			x += dx;
+			y += dy;
+			if (!passable(x, y))
+			{
+				return -1;
+			}
+			if ((x == goalX && y == goalY) || hasForcedNeighbour(x, y, dx, dy))
+			{
+				return y * width + x;
+			}
+			if (dx != 0 && dy != 0 && (jump(x, y, dx, 0) != -1 || jump(x, y, 0, dy) != -1))
+			{
+				return y * width + x;
+			}
+		}
+	}
+
+	/**
+	 * Same as <code>jump</code>, but reads the distances from the JPS+ table. If the goal
+	 * can be reached before the jump point, the goal itself or, for diagonal directions,
+	 * the cell which is on the same row or column as the goal is returned.
+	 * @return index of the jump point or -1 if there is none
+	 */
+	private int jumpPlus(int x, int y, int dx, int dy)
+	{
+		int distance = jumpDistances[direction(dx, dy)][y * width + x];
+		int freeCells = Math.abs(distance);
+		int goalDx = goalX - x;
+		int goalDy = goalY - y;
+		if (dx != 0 && dy != 0)
+		{
+			if (Integer.signum(goalDx) == dx && Integer.signum(goalDy) == dy)
+			{
+				int moves = Math.min(Math.abs(goalDx), Math.abs(goalDy));
+				if (moves <= freeCells)
+				{
+					return (y + moves * dy) * width + x + moves * dx;
+				}
+			}
+		}
+		else if ((dx != 0 && goalDy == 0 && Integer.signum(goalDx) == dx && Math.abs(goalDx) <= freeCells) ||
+				(dy != 0 && goalDx == 0 && Integer.signum(goalDy) == dy && Math.abs(goalDy) <= freeCells))
+		{
+			return goalY * width + goalX;
+		}
+		if (distance > 0)
+		{
+			return (y + distance * dy) * width + x + distance * dx;
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks if the cell (x, y) entered in the direction (dx, dy) has a forced neighbour
+	 */
+	private boolean hasForcedNeighbour(int x, int y, int dx, int dy)
+	{
+		if (dx != 0 && dy != 0)
+		{
+			return (passable(x - dx, y + dy) && !passable(x - dx, y)) ||
+				(passable(x + dx, y - dy) && !passable(x, y - dy));
+		}
+		if (dx != 0)
+		{
+			return (passable(x + dx, y + 1) && !passable(x, y + 1)) ||
+				(passable(x + dx, y - 1) && !passable(x, y - 1));
+		}
+		return (passable(x + 1, y + dy) && !passable(x + 1, y)) ||
+			(passable(x - 1, y + dy) && !passable(x - 1, y));
+	}
+
+	private boolean passable(int x, int y)
+	{
+		return x >= 0 && y >= 0 && x < width && y < height && map.getCost(x, y) >= 0;
+	}
+
+	private static int direction(int dx, int dy)
+	{
+		return DIRECTIONS[(dy + 1) * 3 + dx + 1];
+	}
+
+	/**
+	 * @return cost of the straight or diagonal movement between two cells on the same line
+	 */
+	private double distance(int from, int to)
+	{
+		int dx = Math.abs(to % width - from % width);
+		int dy = Math.abs(to / width - from / width);
+		return (dx != 0 && dy != 0) ? Math.max(dx, dy) * SQRT2 : Math.max(dx, dy);
+	}
+
+	/**
+	 * Marks the <b>node</b> as reached in the current search
+	 */
+	private void reach(int node, int parent, double gVal)
+	{
+		nodes.stamp[node] = nodes.generation;
+		nodes.parent[node] = parent;
+		nodes.gVal[node] = gVal;
+		hStart.setLocation(node % width, node / width);
+		nodes.hVal[node] = heuristic.calculateHeuristic(hStart, hGoal);
+	}
+
+	/**
+	 * Back tracks the path from the <b>node</b> into the <code>path</code> array, filling
+	 * the cells between the jump points
+	 * @param node end node that has to be backtracked
+	 * @return length of the path, without the start cell
+	 */
+	private int backTrackPath(int node)
+	{
+		int length = 0;
+		for (int n = node; nodes.parent[n] != -1; n = nodes.parent[n])
+		{
+			int p = nodes.parent[n];
+			length += Math.max(Math.abs(n % width - p % width), Math.abs(n / width - p / width));
+		}
+		int i = length;
+		for (int n = node; nodes.parent[n] != -1; n = nodes.parent[n])
+		{
+			int p = nodes.parent[n];
+			int x = n % width;
+			int y = n / width;
+			int dx = Integer.signum(p % width - x);
+			int dy = Integer.signum(p / width - y);
+			while (y * width + x != p)
+			{
+				path[--i] = y * width + x;
+				x += dx;
+				y += dy;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return number of cells in the last found path or -1 if the path wasn't found
+	 */
+	public int getPathLength()
+	{
+		return pathLength;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return cost of the last found path
+	 */
+	public double getPathCost()
+	{
+		return pathCost;
+	}
+
+	/**
+	 * @param i index of the point in the path, starting with 0 for the first move
+	 * @return x coordinate of the i-th point of the last found path
+	 */
+	public int getPathX(int i)
+	{
+		checkPathIndex(i);
+		return path[i] % width;
+	}
+
+	/**
+	 * @param i index of the point in the path, starting with 0 for the first move
+	 * @return y coordinate of the i-th point of the last found path
+	 */
+	public int getPathY(int i)
+	{
+		checkPathIndex(i);
+		return path[i] / width;
+	}
+
+	private void checkPathIndex(int i)
+	{
+		if (i < 0 || i >= pathLength)
+		{
+			throw new IndexOutOfBoundsException("Index: " + i + ", Path length: " + pathLength);
+		}
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of jump points expanded to find the optimal path
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return time of the last run in nanoseconds 
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+}
@@ -0,0 +1,378 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * ALT (A*, landmarks and triangle inequality) heuristic. For a few landmark points the
+ * exact costs from every point to the landmark and from the landmark to every point are
+ * precomputed, and the estimate of the cost from <b>start</b> to <b>goal</b> is the best of
+ * the lower bounds given by the triangle inequality:<br>
+ * <code>d(L, goal) - d(L, start)</code> and <code>d(start, L) - d(goal, L)</code><br>
+ * Unlike the geometric heuristics it knows about walls and costs of the map, so on mazes
+ * and weighted maps A* expands much fewer nodes. The estimate is admissible for any costs,
+ * including asymmetric ones. It is the exact cost of the movement, so the scale of the
+ * <code>Pathfinder</code> should be left at 1.0.<br>
+ * The tables cover the points with coordinates in [0, width) x [0, height), the helper must
+ * not return points outside of this rectangle. For other points the estimate is 0. 
+ * The distances are kept as <code>float</code>, two tables of width*height values per 
+ * landmark, and can be saved with <code>save</code> and loaded with <code>load</code>
+ * instead of being computed every time the map is loaded. The tables describe the map at
+ * the time they were built.<br>
+ * An instance can be shared by several threads.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class LandmarkHeuristic<T extends Point> implements IHeuristic<T>
+{
+	/** "ALT1", the first int of the saved tables */
+	private static final int MAGIC = 0x414C5431;
+
+	private static final float UNREACHABLE = Float.POSITIVE_INFINITY;
+
+	private final int width;
+
+	private final int height;
+
+	private final int[] landmarkX;
+
+	private final int[] landmarkY;
+
+	/** <code>from[i][y*width+x]</code> is the cost from the landmark <b>i</b> to (x, y) */
+	private final float[][] from;
+
+	/** <code>to[i][y*width+x]</code> is the cost from (x, y) to the landmark <b>i</b> */
+	private final float[][] to;
+
+	private LandmarkHeuristic(int width, int height, int[] landmarkX, int[] landmarkY, float[][] from, float[][] to)
+	{
+		this.width = width;
+		this.height = height;
+		this.landmarkX = landmarkX;
+		this.landmarkY = landmarkY;
+		this.from = from;
+		this.to = to;
+	}
+
+	/**
+	 * Chooses <b>count</b> landmarks with the farthest-point strategy and computes their
+	 * tables. The first landmark is the point farthest from <b>seed</b>, every next one is the
+	 * point farthest from all the landmarks chosen so far, so the landmarks end up spread
+	 * over the borders of the map. The landmarks are chosen among the points reachable from
+	 * the seed. The tables of different landmarks are computed in parallel.
+	 * @param helper helper of the map
+	 * @param width width of the map
+	 * @param height height of the map
+	 * @param seed any passable point of the map
+	 * @param count number of landmarks
+	 * @param threads number of threads to compute the tables with
+	 * @return the heuristic
+	 * @throws InterruptedException if the calling thread was interrupted while waiting for the tables
+	 */
+	public static <T extends Point> LandmarkHeuristic<T> build(final IPathHelper<T> helper, final int width,
+			final int height, T seed, int count, int threads) throws InterruptedException
+	{
+		if (count <= 0 || threads <= 0)
+		{
+			throw new IllegalArgumentException("Number of landmarks and threads must be positive");
+		}
+		final Object[] cellPoints = new Object[width * height];
+		int[] landmarkX = new int[count];
+		int[] landmarkY = new int[count];
+		float[][] from = new float[count][];
+		float[][] to = new float[count][];
+		List<Future<float[]>> futures = new ArrayList<Future<float[]>>();
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try
+		{
+			//Costs from the seed are only used to choose the first landmark
+			float[] nearest = distances(helper, seed, width, height, false, cellPoints);
+			for (int i = 0; i < count; i++)
+			{
+				int cell = farthest(nearest);
+				if (cell == -1)
+				{
+					throw new IllegalArgumentException("Seed point is outside of the map: " + seed);
+				}
+				@SuppressWarnings("unchecked")
+				final T landmark = (T) cellPoints[cell];
+				landmarkX[i] = landmark.x;
+				landmarkY[i] = landmark.y;
+				futures.add(executor.submit(new Callable<float[]>()
+				{
+					public float[] call()
+					{
+						return distances(helper, landmark, width, height, true, null);
+					}
+				}));
+				//Selection of the next landmark needs this table, so it is computed here
+				from[i] = distances(helper, landmark, width, height, false, cellPoints);
+				if (i == 0)
+				{
+					nearest = from[0].clone();
+				}
+				else
+				{
+					for (int c = 0; c < nearest.length; c++)
+					{
+						nearest[c] = Math.min(nearest[c], from[i][c]);
+					}
+				}
+			}
+			for (int i = 0; i < count; i++)
+			{
+				to[i] = futures.get(i).get();
+			}
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException)
+			{
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error)
+			{
+				throw (Error) cause;
+			}
+			throw new RuntimeException(cause);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		return new LandmarkHeuristic<T>(width, height, landmarkX, landmarkY, from, to);
+	}
+
+	/**
+	 * @return the reachable cell with the highest finite value or -1 if there is none
+	 */
+	private static int farthest(float[] distances)
+	{
+		int result = -1;
+		for (int c = 0; c < distances.length; c++)
+		{
+			if (distances[c] != UNREACHABLE && (result == -1 || distances[c] > distances[result]))
+			{
+				result = c;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Runs Dijkstra's search from the <b>source</b> over the whole map
+	 * @param backward if true, the costs to the source are computed, otherwise the costs from it
+	 * @param cellPoints if not null, receives the points of the reached cells
+	 * @return table of the costs, <code>UNREACHABLE</code> for the points which weren't reached
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T extends Point> float[] distances(IPathHelper<T> helper, T source, int width, int height, 
+			boolean backward, Object[] cellPoints)
+	{
+		float[] result = new float[width * height];
+		Arrays.fill(result, UNREACHABLE);
+		IReversiblePathHelper<T> reversibleHelper = helper instanceof IReversiblePathHelper<?> ? 
+				(IReversiblePathHelper<T>) helper : null;
+		NodeStore<T> nodes = new NodeStore<T>();
+		IndexedBinaryHeap openNodes = new IndexedBinaryHeap(nodes);
+		if (source.x < 0 || source.y < 0 || source.x >= width || source.y >= height)
+		{
+			return result;
+		}
+		openNodes.add(nodes.add(source));
+		while (!openNodes.isEmpty())
+		{
+			int node = openNodes.poll();
+			nodes.closed[node] = true;
+			T coord = nodes.point(node);
+			int cell = coord.y * width + coord.x;
+			result[cell] = (float) nodes.gVal[node];
+			if (cellPoints != null)
+			{
+				cellPoints[cell] = coord;
+			}
+			List<T> neighbours = !backward ? helper.getNeighbours(coord) : 
+				reversibleHelper != null ? reversibleHelper.getPredecessors(coord) : helper.getNeighbours(coord);
+			for (T p : neighbours)
+			{
+				if (p.x < 0 || p.y < 0 || p.x >= width || p.y >= height || p.equals(coord))
+				{
+					continue;
+				}
+				int n = nodes.find(p);
+				if (n != -1 && nodes.closed[n])
+				{
+					continue;
+				}
+				double gVal = nodes.gVal[node] + (backward ? helper.getCost(p, coord) : helper.getCost(coord, p));
+				if (n == -1)
+				{
+					n = nodes.add(p);
+					nodes.gVal[n] = gVal;
+					openNodes.add(n);
+				}
+				else if (nodes.gVal[n] > gVal)
+				{
+					nodes.gVal[n] = gVal;
+					openNodes.decreaseKey(n);
+				}
+			}
+		}
+		return result;
+	}
+
+	public float calculateHeuristic(T start, T goal)
+	{
+		if (start.x < 0 || start.y < 0 || start.x >= width || start.y >= height ||
+			goal.x < 0 || goal.y < 0 || goal.x >= width || goal.y >= height)
+		{
+			return 0.0f;
+		}
+		int s = start.y * width + start.x;
+		int g = goal.y * width + goal.x;
+		float result = 0.0f;
+		for (int i = 0; i < from.length; i++)
+		{
+			float[] fromLandmark = from[i];
+			float[] toLandmark = to[i];
+			//Unreachable points give no bound
+			if (fromLandmark[s] != UNREACHABLE && fromLandmark[g] != UNREACHABLE)
+			{
+				result = Math.max(result, fromLandmark[g] - fromLandmark[s]);
+			}
+			if (toLandmark[s] != UNREACHABLE && toLandmark[g] != UNREACHABLE)
+			{
+				result = Math.max(result, toLandmark[s] - toLandmark[g]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return number of the landmarks
+	 */
+	public int getLandmarkCount()
+	{
+		return landmarkX.length;
+	}
+
+	/**
+	 * @param i index of the landmark
+	 * @return coordinates of the landmark
+	 */
+	public Point getLandmark(int i)
+	{
+		return new Point(landmarkX[i], landmarkY[i]);
+	}
+
+	/**
+	 * Writes the tables to the <b>out</b>. The stream is not closed.
+	 * @param out stream to write to
+	 * @throws IOException
+	 */
+	public void save(OutputStream out) throws IOException
+	{
+		DataOutputStream data = new DataOutputStream(out);
+		data.writeInt(MAGIC);
+		data.writeInt(width);
+		data.writeInt(height);
+		data.writeInt(landmarkX.length);
+		for (int i = 0; i < landmarkX.length; i++)
+		{
+			data.writeInt(landmarkX[i]);
+			data.writeInt(landmarkY[i]);
+			writeTable(data, from[i]);
+			writeTable(data, to[i]);
+		}
+		data.flush();
+	}
+
+	/**
+	 * Reads tables written by <code>save</code> from the <b>in</b>. The stream is not closed.
+	 * @param in stream to read from
+	 * @return the heuristic
+	 * @throws IOException if the stream can't be read or doesn't contain landmark tables
+	 */
+	public static <T extends Point> LandmarkHeuristic<T> load(InputStream in) throws IOException
+	{
+		DataInputStream data = new DataInputStream(in);
+		if (data.readInt() != MAGIC)
+		{
+			throw new IOException("Stream doesn't contain landmark tables");
+		}
+		int width = data.readInt();
+		int height = data.readInt();
+		int count = data.readInt();
+		if (width <= 0 || height <= 0 || count <= 0)
+		{
+			throw new IOException("Invalid size of landmark tables");
+		}
+		int[] landmarkX = new int[count];
+		int[] landmarkY = new int[count];
+		float[][] from = new float[count][];
+		float[][] to = new float[count][];
+		for (int i = 0; i < count; i++)
+		{
+			landmarkX[i] = data.readInt();
+			landmarkY[i] = data.readInt();
+			from[i] = readTable(data, width * height);
+			to[i] = readTable(data, width * height);
+		}
+		return new LandmarkHeuristic<T>(width, height, landmarkX, landmarkY, from, to);
+	}
+
+	/**
+	 * Writes the table as one block of big-endian floats, the same format as
+	 * <code>writeFloat</code> would produce value by value
+	 */
+	private static void writeTable(DataOutputStream data, float[] table) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(table.length * 4);
+		buffer.asFloatBuffer().put(table);
+		data.write(buffer.array());
+	}
+
+	private static float[] readTable(DataInputStream data, int size) throws IOException
+	{
+		byte[] bytes = new byte[size * 4];
+		data.readFully(bytes);
+		float[] table = new float[size];
+		ByteBuffer.wrap(bytes).asFloatBuffer().get(table);
+		return table;
+	}
+}
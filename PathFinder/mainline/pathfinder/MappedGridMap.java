@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Grid map which keeps the costs of the cells in a memory mapped file instead of the heap,
+ * for worlds which are too large to be held in arrays. Every cell takes one byte: the costs
+ * from 1 to 255 are stored as <code>cost - 1</code> and the value 255 marks a cell which is
+ * not passable, so a new file filled with zeros is a map where every cell has cost 1.<br>
+ * The cells are stored in square tiles of 64x64 cells, one tile per 4 KB page, so a search
+ * touches only the pages of the tiles it expands, while rows of a large map would spread
+ * every small area over many pages. The file is mapped in regions of 1 GB when a cell of
+ * the region is accessed for the first time, opening a map only reads its header.<br>
+ * The map can be read by several threads at the same time. Use it with
+ * <code>GridPathHelper</code>.<br>
+ * File format: the magic number "PGM1", width and height as 4 byte big endian integers,
+ * padding to 4096 bytes, then the tiles row by row. The tiles on the right and bottom
+ * borders are padded to the full size.
+ * @author Egor Tsinko
+ */
+public class MappedGridMap implements IGridMap
+{
+	private static final int MAGIC = 0x50474D31;
+
+	private static final int HEADER_SIZE = 4096;
+
+	private static final int TILE_SHIFT = 6;
+
+	private static final int TILE_MASK = (1 << TILE_SHIFT) - 1;
+
+	private static final int TILE_BYTES = 1 << (TILE_SHIFT * 2);
+
+	/** number of tiles in one mapped region */
+	private static final int REGION_TILES = (1 << 30) / TILE_BYTES;
+
+	private static final long REGION_BYTES = (long) REGION_TILES * TILE_BYTES;
+
+	private static final int WALL = 0xFF;
+
+	/** highest cost a cell can have */
+	public static final int MAX_COST = 255;
+
+	private final int width;
+
+	private final int height;
+
+	private final int tilesX;
+
+	private final long tiles;
+
+	private final boolean writable;
+
+	private final RandomAccessFile file;
+
+	private final FileChannel channel;
+
+	private final AtomicReferenceArray<MappedByteBuffer> regions;
+
+	private MappedGridMap(RandomAccessFile file, int width, int height, boolean writable)
+	{
+		this.file = file;
+		this.channel = file.getChannel();
+		this.width = width;
+		this.height = height;
+		this.writable = writable;
+		this.tilesX = (width + TILE_MASK) >> TILE_SHIFT;
+		this.tiles = (long) tilesX * ((height + TILE_MASK) >> TILE_SHIFT);
+		this.regions = new AtomicReferenceArray<MappedByteBuffer>((int) ((tiles + REGION_TILES - 1) / REGION_TILES));
+	}
+
+	/**
+	 * Creates a new map file where every cell has cost 1. An existing file is overwritten.
+	 * @param path the file
+	 * @param width width of the map
+	 * @param height height of the map
+	 * @return the map, open for writing
+	 * @throws IOException if the file can't be created
+	 */
+	public static MappedGridMap create(File path, int width, int height) throws IOException
+	{
+		if (width <= 0 || height <= 0)
+		{
+			throw new IllegalArgumentException("Size of the map must be positive");
+		}
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		try
+		{
+			MappedGridMap map = new MappedGridMap(file, width, height, true);
+			file.setLength(0);
+			file.setLength(HEADER_SIZE + map.tiles * TILE_BYTES);
+			ByteBuffer header = ByteBuffer.allocate(12);
+			header.putInt(MAGIC).putInt(width).putInt(height).flip();
+			map.channel.write(header, 0);
+			return map;
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Creates a new map file with the costs of the <b>source</b> map
+	 * @param path the file
+	 * @param source the map to copy
+	 * @return the map, open for writing
+	 * @throws IOException if the file can't be created
+	 */
+	public static MappedGridMap create(File path, IGridMap source) throws IOException
+	{
+		MappedGridMap map = create(path, source.getWidth(), source.getHeight());
+		for (int y = 0; y < source.getHeight(); y++)
+		{
+			for (int x = 0; x < source.getWidth(); x++)
+			{
+				map.setCost(x, y, source.getCost(x, y));
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Opens an existing map file. Only the header is read, the cells are mapped when they
+	 * are accessed.
+	 * @param path the file
+	 * @param writable true if the costs will be changed
+	 * @return the map
+	 * @throws IOException if the file can't be opened or isn't a map
+	 */
+	public static MappedGridMap open(File path, boolean writable) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(path, writable ? "rw" : "r");
+		try
+		{
+			ByteBuffer header = ByteBuffer.allocate(12);
+			while (header.hasRemaining() && file.getChannel().read(header, header.position()) >= 0)
+			{
+			}
+			header.flip();
+			if (header.remaining() < 12 || header.getInt() != MAGIC)
+			{
+				throw new IOException("File doesn't contain a grid map");
+			}
+			int width = header.getInt();
+			int height = header.getInt();
+			if (width <= 0 || height <= 0)
+			{
+				throw new IOException("Invalid size of the map");
+			}
+			MappedGridMap map = new MappedGridMap(file, width, height, writable);
+			if (file.length() < HEADER_SIZE + map.tiles * TILE_BYTES)
+			{
+				throw new IOException("Map file is truncated");
+			}
+			return map;
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+	}
+
+	public int getWidth()
+	{
+		return width;
+	}
+
+	public int getHeight()
+	{
+		return height;
+	}
+
+	public int getCost(int x, int y)
+	{
+		long offset = offset(x, y);
+		int value = region(offset).get((int) (offset % REGION_BYTES)) & 0xFF;
+		return value == WALL ? -1 : value + 1;
+	}
+
+	/**
+	 * Sets the cost of the cell (x, y). The change is visible to the searches right away and
+	 * is written to the file by the operating system or by <code>flush</code>.
+	 * @param x x coordinate of the cell
+	 * @param y y coordinate of the cell
+	 * @param cost new cost from 1 to <code>MAX_COST</code>, negative if the cell is not passable
+	 */
+	public void setCost(int x, int y, int cost)
+	{
+		if (!writable)
+		{
+			throw new IllegalStateException("Map is open for reading only");
+		}
+		if (cost == 0 || cost > MAX_COST)
+		{
+			throw new IllegalArgumentException("Cost must be from 1 to " + MAX_COST + ": " + cost);
+		}
+		long offset = offset(x, y);
+		region(offset).put((int) (offset % REGION_BYTES), (byte) (cost < 0 ? WALL : cost - 1));
+	}
+
+	/**
+	 * Writes the changed cells to the file
+	 */
+	public void flush()
+	{
+		for (int i = 0; i < regions.length(); i++)
+		{
+			MappedByteBuffer region = regions.get(i);
+			if (region != null)
+			{
+				region.force();
+			}
+		}
+	}
+
+	/**
+	 * Writes the changed cells and closes the file. The memory of the mapped regions is
+	 * released when the map is garbage collected.
+	 * @throws IOException if the file can't be closed
+	 */
+	public void close() throws IOException
+	{
+		if (writable)
+		{
+			flush();
+		}
+		file.close();
+	}
+
+	/**
+	 * @return offset of the cell from the start of the tiles
+	 */
+	private long offset(int x, int y)
+	{
+		if (x < 0 || y < 0 || x >= width || y >= height)
+		{
+			throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is outside of the map");
+		}
+		long tile = (long) (y >> TILE_SHIFT) * tilesX + (x >> TILE_SHIFT);
+		return (tile << (TILE_SHIFT * 2)) + ((y & TILE_MASK) << TILE_SHIFT) + (x & TILE_MASK);
+	}
+
+	/**
+	 * Gets the region which contains the <b>offset</b>, the region is mapped if it is
+	 * accessed for the first time
+	 */
+	private MappedByteBuffer region(long offset)
+	{
+		int index = (int) (offset / REGION_BYTES);
+		MappedByteBuffer region = regions.get(index);
+		if (region == null)
+		{
+			region = map(index);
+		}
+		return region;
+	}
+
+	private synchronized MappedByteBuffer map(int index)
+	{
+		MappedByteBuffer region = regions.get(index);
+		if (region == null)
+		{
+			long start = index * REGION_BYTES;
+			long size = Math.min(REGION_BYTES, tiles * TILE_BYTES - start);
+			try
+			{
+				region = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 
+						HEADER_SIZE + start, size);
+			}
+			catch (IOException e)
+			{
+				throw new IllegalStateException("Region " + index + " of the map can't be mapped", e);
+			}
+			regions.set(index, region);
+		}
+		return region;
+	}
+}
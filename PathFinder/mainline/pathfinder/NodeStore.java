@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.Arrays;
+
+/**
+ * Storage for the nodes of a search. Every node is identified by an integer id and its
+ * data is kept in parallel primitive arrays, in addition to <code>NodeValues</code>:<br>
+ * <code>parent</code> is the id of the previous node on the path or -1<br>
+ * <code>closed</code> is true if the node is in the list of closed nodes<br>
+ * Nodes are looked up by coordinates through an open addressing hash table keyed by
+ * the coordinates packed into a <code>long</code>, so lookups neither box nor call
+ * <code>Point.hashCode</code>. A slot of the table is used only if its stamp equals to
+ * the current generation, so the store is cleared by starting a new generation instead
+ * of filling the table.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+class NodeStore<T extends Point> extends NodeValues
+{
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** number of nodes in the store */
+	int size = 0;
+
+	int[] parent;
+
+	boolean[] closed;
+
+	/** packed coordinates of the nodes */
+	long[] keys;
+
+	/** original points of the nodes, returned as a part of the path */
+	Object[] points;
+
+	/** hash table of node ids */
+	private int[] table;
+
+	/** generation in which the slot of the table was filled */
+	private int[] tableStamp;
+
+	private int generation = 1;
+
+	NodeStore()
+	{
+		allocate(INITIAL_CAPACITY);
+		table = new int[INITIAL_CAPACITY << 1];
+		tableStamp = new int[INITIAL_CAPACITY << 1];
+	}
+
+	/**
+	 * Packs coordinates into a single <code>long</code> key
+	 * @param x x coordinate
+	 * @param y y coordinate
+	 * @return the key
+	 */
+	static long pack(int x, int y)
+	{
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Finds the node with coordinates of the point <b>p</b>
+	 * @param p coordinates of the node
+	 * @return id of the node or -1 if there is no such node
+	 */
+	int find(Point p)
+	{
+		return find(pack(p.x, p.y));
+	}
+
+	/**
+	 * Finds the node with the packed coordinates <b>key</b>
+	 * @param key packed coordinates of the node
+	 * @return id of the node or -1 if there is no such node
+	 */
+	int find(long key)
+	{
+		int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		while (tableStamp[slot] == generation)
+		{
+			int id = table[slot];
+			if (keys[id] == key)
+			{
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Adds a new node for the point <b>p</b>. The caller must make sure that there is
+	 * no node with the same coordinates in the store.
+	 * @param p coordinates of the node
+	 * @return id of the new node
+	 */
+	int add(T p)
+	{
+		if (size == keys.length)
+		{
+			allocate(keys.length << 1);
+		}
+		if ((size + 1) << 1 > table.length)
+		{
+			rehash(table.length << 1);
+		}
+		int id = size++;
+		long key = pack(p.x, p.y);
+		keys[id] = key;
+		points[id] = p;
+		gVal[id] = 0.0;
+		hVal[id] = 0.0;
+		parent[id] = -1;
+		heapIndex[id] = -1;
+		closed[id] = false;
+		insert(key, id);
+		return id;
+	}
+
+	/**
+	 * @param id id of the node
+	 * @return the point the node was created for
+	 */
+	@SuppressWarnings("unchecked")
+	T point(int id)
+	{
+		return (T) points[id];
+	}
+
+	/**
+	 * Removes all the nodes from the store
+	 */
+	void clear()
+	{
+		Arrays.fill(points, 0, size, null);
+		size = 0;
+		generation++;
+		if (generation == Integer.MAX_VALUE)
+		{
+			Arrays.fill(tableStamp, 0);
+			generation = 1;
+		}
+	}
+
+	private static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private void insert(long key, int id)
+	{
+		int mask = table.length - 1;
+		int slot = hash(key) & mask;
+		while (tableStamp[slot] == generation)
+		{
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = id;
+		tableStamp[slot] = generation;
+	}
+
+	private void rehash(int capacity)
+	{
+		table = new int[capacity];
+		tableStamp = new int[capacity];
+		for (int id = 0; id < size; id++)
+		{
+			insert(keys[id], id);
+		}
+	}
+
+	/**
+	 * Grows the arrays of the node data to <b>capacity</b> elements. Subclasses which keep
+	 * additional data per node grow their arrays here as well.
+	 * @param capacity new capacity
+	 */
+	void allocate(int capacity)
+	{
+		gVal = grow(gVal, capacity);
+		hVal = grow(hVal, capacity);
+		parent = grow(parent, capacity);
+		heapIndex = grow(heapIndex, capacity);
+		keys = grow(keys, capacity);
+		closed = grow(closed, capacity);
+		Object[] newPoints = new Object[capacity];
+		if (points != null)
+		{
+			System.arraycopy(points, 0, newPoints, 0, size);
+		}
+		points = newPoints;
+	}
+
+	static double[] grow(double[] array, int capacity)
+	{
+		return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	static int[] grow(int[] array, int capacity)
+	{
+		return array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	static long[] grow(long[] array, int capacity)
+	{
+		return array == null ? new long[capacity] : Arrays.copyOf(array, capacity);
+	}
+
+	static boolean[] grow(boolean[] array, int capacity)
+	{
+		return array == null ? new boolean[capacity] : Arrays.copyOf(array, capacity);
+	}
+}
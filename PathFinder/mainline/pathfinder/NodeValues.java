@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Values of the nodes of a search, kept in primitive arrays indexed by node id:<br>
+ * <code>gVal</code> is a total cost of movements from <b>start</b> to this point<br>
+ * <code>hVal</code> is an estimate of cost of movements from this point to the <b>goal</b><br>
+ * <code>heapIndex</code> is the position of the node in the open list or -1<br>
+ * The open list (<code>IndexedBinaryHeap</code>) orders the nodes by these values.
+ * @author Egor Tsinko
+ */
+abstract class NodeValues
+{
+	private static final double EPSILON = 0.000001;
+
+	double[] gVal;
+
+	double[] hVal;
+
+	int[] heapIndex;
+
+	/**
+	 * Compares the combined value of two nodes.
+	 * @param a id of the first node
+	 * @param b id of the second node
+	 * @return 1 if (gVal+hVal) of <b>a</b> is bigger than of <b>b</b>, 0 if they are equal
+	 * and -1 otherwise
+	 */
+	int compare(int a, int b)
+	{
+		double difference = gVal[a] + hVal[a] - gVal[b] - hVal[b];
+		difference = (Math.abs(difference) < EPSILON) ? 0.0f : difference;
+		return (int) Math.signum(difference);
+	}
+}
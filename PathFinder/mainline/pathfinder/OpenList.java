@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * List of open nodes of a search, ordered by <code>gVal+hVal</code> of the nodes.
+ * The position of a node is kept in the <code>heapIndex</code> array of the
+ * <code>NodeValues</code>, -1 means that the node isn't in the list.
+ * @author Egor Tsinko
+ */
+interface OpenList
+{
+	/**
+	 * @return true if the list doesn't contain any nodes
+	 */
+	boolean isEmpty();
+
+	/**
+	 * @return number of nodes in the list
+	 */
+	int size();
+
+	/**
+	 * @param node id of the node to check
+	 * @return true if the <b>node</b> is in the list
+	 */
+	boolean contains(int node);
+
+	/**
+	 * Adds the <b>node</b> to the list
+	 * @param node id of the node to add
+	 */
+	void add(int node);
+
+	/**
+	 * Gets the node with the lowest <code>gVal+hVal</code> without removing it
+	 * @return id of the node or -1 if the list is empty
+	 */
+	int peek();
+
+	/**
+	 * Removes the node with the lowest <code>gVal+hVal</code> from the list
+	 * @return id of the node or -1 if the list is empty
+	 */
+	int poll();
+
+	/**
+	 * Restores the order after the value of the <b>node</b> has been decreased
+	 * @param node id of the node which value has been decreased
+	 */
+	void decreaseKey(int node);
+
+	/**
+	 * Removes all the nodes from the list
+	 */
+	void clear();
+}
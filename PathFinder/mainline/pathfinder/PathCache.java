@@ -0,0 +1,356 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Bounded cache of paths in front of <code>Pathfinder.findPath</code>. A path is cached by
+ * its start and goal points, the heuristic and scale of the finder and a version stamp of
+ * the map. The user of the library must change the version whenever the map changes, the
+ * paths found for older versions are never returned again and are evicted in time.<br>
+ * When there is no path for the exact query, the cache looks for a path to the same goal
+ * which passes through the requested start, and for a path from the same start which
+ * passes through the requested goal. The part of such path is returned without a search.
+ * Queries for which no path exists are cached as well.<br>
+ * Least recently used paths are evicted when either the number of paths or the total number
+ * of points in them exceeds the limit. The cache can be shared by several threads, the
+ * searches themselves are run outside of the lock.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class PathCache<T extends Point>
+{
+	private final Pathfinder<T> finder;
+
+	private final int maxEntries;
+
+	private final int maxPoints;
+
+	/** cached paths in the order of access, the first one is the least recently used */
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+
+	/** cached paths by their goal, the start of these keys is null */
+	private final Map<Key, List<Entry>> byGoal = new HashMap<Key, List<Entry>>();
+
+	/** cached paths by their start, the goal of these keys is null */
+	private final Map<Key, List<Entry>> byStart = new HashMap<Key, List<Entry>>();
+
+	private int totalPoints = 0;
+
+	private long hits = 0;
+
+	private long partialHits = 0;
+
+	private long misses = 0;
+
+	private long evictions = 0;
+
+	/**
+	 * Key of a cached path
+	 */
+	private static class Key
+	{
+		final Point start;
+
+		final Point goal;
+
+		final IHeuristic<?> heuristic;
+
+		final double scale;
+
+		final long version;
+
+		Key(Point start, Point goal, IHeuristic<?> heuristic, double scale, long version)
+		{
+			this.start = start;
+			this.goal = goal;
+			this.heuristic = heuristic;
+			this.scale = scale;
+			this.version = version;
+		}
+
+		public boolean equals(Object obj)
+		{
+			if (!(obj instanceof Key))
+			{
+				return false;
+			}
+			Key other = (Key) obj;
+			return version == other.version && scale == other.scale && heuristic == other.heuristic &&
+				(start == null ? other.start == null : start.equals(other.start)) &&
+				(goal == null ? other.goal == null : goal.equals(other.goal));
+		}
+
+		public int hashCode()
+		{
+			int hash = (int) (version ^ (version >>> 32));
+			hash = hash * 31 + System.identityHashCode(heuristic);
+			hash = hash * 31 + (start == null ? 0 : start.hashCode());
+			hash = hash * 31 + (goal == null ? 0 : goal.hashCode());
+			return hash;
+		}
+	}
+
+	/**
+	 * Cached path with the positions of its points
+	 */
+	private class Entry
+	{
+		final Key key;
+
+		/** the path or null if it doesn't exist */
+		final List<T> path;
+
+		/** index of every point in the path, built when it is first needed */
+		Map<Point, Integer> positions;
+
+		Entry(Key key, List<T> path)
+		{
+			this.key = key;
+			this.path = (path == null) ? null : new ArrayList<T>(path);
+		}
+
+		int size()
+		{
+			return path == null ? 1 : path.size() + 1;
+		}
+
+		/**
+		 * @return position of the point in the path or -1 if path doesn't pass through it
+		 */
+		int indexOf(Point p)
+		{
+			if (path == null)
+			{
+				return -1;
+			}
+			if (positions == null)
+			{
+				positions = new HashMap<Point, Integer>();
+				for (int i = 0; i < path.size(); i++)
+				{
+					positions.put(path.get(i), i);
+				}
+			}
+			Integer index = positions.get(p);
+			return index == null ? -1 : index;
+		}
+	}
+
+	/**
+	 * @param finder finder to run the searches with
+	 * @param maxEntries maximal number of cached paths
+	 * @param maxPoints maximal total number of points in the cached paths
+	 */
+	public PathCache(Pathfinder<T> finder, int maxEntries, int maxPoints)
+	{
+		this.finder = finder;
+		this.maxEntries = maxEntries;
+		this.maxPoints = maxPoints;
+	}
+
+	/**
+	 * @param finder finder to run the searches with
+	 * @param maxEntries maximal number of cached paths
+	 */
+	public PathCache(Pathfinder<T> finder, int maxEntries)
+	{
+		this(finder, maxEntries, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Gets the path from <b>start</b> to <b>goal</b> from the cache or finds it with the
+	 * <b>helper</b> and caches it
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @param mapVersion version of the map the helper works with
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if path doesn't exist. The list is a copy and can be changed by the caller.
+	 */
+	public List<T> findPath(IPathHelper<T> helper, T start, T goal, long mapVersion)
+	{
+		IHeuristic<T> heuristic = finder.getHeuristic();
+		double scale = finder.getScale();
+		Key key = new Key(start, goal, heuristic, scale, mapVersion);
+		synchronized (this)
+		{
+			Entry entry = entries.get(key);
+			if (entry != null)
+			{
+				hits++;
+				return copy(entry.path, 0, entry.path == null ? 0 : entry.path.size());
+			}
+			//A path to the same goal through the start
+			List<Entry> candidates = byGoal.get(new Key(null, goal, heuristic, scale, mapVersion));
+			if (candidates != null)
+			{
+				for (Entry candidate : candidates)
+				{
+					int index = candidate.indexOf(start);
+					if (index != -1)
+					{
+						partialHits++;
+						entries.get(candidate.key);
+						return copy(candidate.path, index + 1, candidate.path.size());
+					}
+				}
+			}
+			//A path from the same start through the goal
+			candidates = byStart.get(new Key(start, null, heuristic, scale, mapVersion));
+			if (candidates != null)
+			{
+				for (Entry candidate : candidates)
+				{
+					int index = candidate.indexOf(goal);
+					if (index != -1)
+					{
+						partialHits++;
+						entries.get(candidate.key);
+						return copy(candidate.path, 0, index + 1);
+					}
+				}
+			}
+			misses++;
+		}
+
+		List<T> path = finder.findPath(helper, start, goal);
+		synchronized (this)
+		{
+			if (!entries.containsKey(key))
+			{
+				add(new Entry(key, path));
+			}
+		}
+		return path;
+	}
+
+	private List<T> copy(List<T> path, int from, int to)
+	{
+		return path == null ? null : new LinkedList<T>(path.subList(from, to));
+	}
+
+	private void add(Entry entry)
+	{
+		entries.put(entry.key, entry);
+		totalPoints += entry.size();
+		index(byGoal, new Key(null, entry.key.goal, entry.key.heuristic, entry.key.scale, entry.key.version), entry);
+		index(byStart, new Key(entry.key.start, null, entry.key.heuristic, entry.key.scale, entry.key.version), entry);
+		Iterator<Entry> eldest = entries.values().iterator();
+		while ((entries.size() > maxEntries || totalPoints > maxPoints) && eldest.hasNext())
+		{
+			Entry evicted = eldest.next();
+			eldest.remove();
+			totalPoints -= evicted.size();
+			evictions++;
+			unindex(byGoal, new Key(null, evicted.key.goal, evicted.key.heuristic, evicted.key.scale, evicted.key.version), evicted);
+			unindex(byStart, new Key(evicted.key.start, null, evicted.key.heuristic, evicted.key.scale, evicted.key.version), evicted);
+		}
+	}
+
+	private void index(Map<Key, List<Entry>> index, Key key, Entry entry)
+	{
+		if (entry.path == null)
+		{
+			return;
+		}
+		List<Entry> list = index.get(key);
+		if (list == null)
+		{
+			list = new ArrayList<Entry>(2);
+			index.put(key, list);
+		}
+		list.add(entry);
+	}
+
+	private void unindex(Map<Key, List<Entry>> index, Key key, Entry entry)
+	{
+		List<Entry> list = index.get(key);
+		if (list != null)
+		{
+			list.remove(entry);
+			if (list.isEmpty())
+			{
+				index.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Removes all the paths from the cache. The counters are not reset.
+	 */
+	public synchronized void clear()
+	{
+		entries.clear();
+		byGoal.clear();
+		byStart.clear();
+		totalPoints = 0;
+	}
+
+	/**
+	 * @return number of cached paths
+	 */
+	public synchronized int size()
+	{
+		return entries.size();
+	}
+
+	/**
+	 * @return number of queries answered with a cached path for the same start and goal
+	 */
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * @return number of queries answered with a part of a cached path
+	 */
+	public synchronized long getPartialHits()
+	{
+		return partialHits;
+	}
+
+	/**
+	 * @return number of queries which required a search
+	 */
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * @return number of paths evicted from the cache
+	 */
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Adapter which lets <code>Pathfinder</code> use a list based <code>IPathHelper</code>
+ * through the sink based contract. The points of the list are passed to the sink one by
+ * one and <code>createPoint</code> returns the point being passed, so no new points are
+ * created.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+class PathHelperAdapter<T extends Point> implements INeighbourHelper<T>
+{
+	private IPathHelper<T> helper;
+
+	/** neighbour which is being passed to the sink */
+	private T current;
+
+	/**
+	 * @param helper helper to adapt
+	 */
+	void setHelper(IPathHelper<T> helper)
+	{
+		this.helper = helper;
+		this.current = null;
+	}
+
+	public void getNeighbours(T point, INeighbourSink sink)
+	{
+		List<T> neighbours = helper.getNeighbours(point);
+		for (T p : neighbours)
+		{
+			current = p;
+			sink.addNeighbour(p.x, p.y, helper.getCost(point, p));
+		}
+		current = null;
+	}
+
+	public T createPoint(int x, int y)
+	{
+		if (current == null || current.x != x || current.y != y)
+		{
+			throw new IllegalStateException("Point (" + x + ", " + y + ") is not being passed to the sink");
+		}
+		return current;
+	}
+
+	public float getCost(T sourcePoint, T destPoint)
+	{
+		return helper.getCost(sourcePoint, destPoint);
+	}
+
+	public List<T> getNeighbours(T point)
+	{
+		return helper.getNeighbours(point);
+	}
+}
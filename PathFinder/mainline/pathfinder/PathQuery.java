@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+
+/**
+ * A pair of <b>start</b> and <b>goal</b> points of one path query in a batch
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see BatchPathfinder
+ */
+public class PathQuery<T extends Point>
+{
+	private final T start;
+
+	private final T goal;
+
+	/**
+	 * @param start start point of the query
+	 * @param goal goal point of the query
+	 */
+	public PathQuery(T start, T goal)
+	{
+		this.start = start;
+		this.goal = goal;
+	}
+
+	/**
+	 * @return start point of the query
+	 */
+	public T getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * @return goal point of the query
+	 */
+	public T getGoal()
+	{
+		return goal;
+	}
+
+	public String toString()
+	{
+		return "PathQuery[" + start + " -> " + goal + "]";
+	}
+}
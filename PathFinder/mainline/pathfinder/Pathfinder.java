@@ -20,16 +20,13 @@
 package pathfinder;
 
 import java.awt.Point;
-import java.util.Enumeration;
-import java.util.Hashtable;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import pathfinder.heuristics.DiagonalNotEqual;
 import pathfinder.heuristics.IHeuristic;
 
-//TODO implement fillRadius, a function that gets all accessible points in some radius.
 /** 
  * Implementation of A* path finding algorithm for maps where coordinates are represented by
  * jawa.awt.Point
@@ -37,6 +34,15 @@ import pathfinder.heuristics.IHeuristic;
  * <a href="http://theory.stanford.edu/~amitp/GameProgramming/Heuristics.html">
  * http://theory.stanford.edu/~amitp/GameProgramming/Heuristics.html</a>
  * 
+ * One instance can be shared by several threads. The finder itself holds only the
+ * configuration (heuristic and scale), the state of a search is kept in a
+ * <code>SearchContext</code> which every thread reuses for its searches. The analysis
+ * functions return the results of the last search of the calling thread.
+ * 
+ * If the helper implements <code>IIntegerPathHelper</code>, the open nodes are kept in
+ * buckets of whole costs instead of a binary heap. If it implements
+ * <code>INeighbourHelper</code>, the neighbours are enumerated without allocations.
+ * 
  * @author Egor Tsinko
  * @version 1.0.0
  * @param <T> type of the point. Must extend java.awt.Point
@@ -44,117 +50,155 @@ import pathfinder.heuristics.IHeuristic;
  */
 public class Pathfinder<T extends Point>
 {	
-	/** reference to the helper class */
-	private IPathHelper<T> helper;
-	
-	/** total time it took algorithm to calculate the path */
-	private long elapsedTime = 0;
-	
-	private IHeuristic<T> heuristic = new DiagonalNotEqual<T>();	
+	/** result of <code>expandNodes</code> when there are no more nodes to expand */
+	static final int UNREACHABLE = -1;
 
-	private double scale = 1.0;
+	/** result of <code>expandNodes</code> when the search was stopped by the limits */
+	static final int SUSPENDED = -2;
 
-	private double tieBreaker = 1.0;
+	private volatile IHeuristic<T> heuristic = new DiagonalNotEqual<T>();	
 
-	private T start;
+	private volatile double scale = 1.0;
 
-	private T goal;
+	/** listener of the finished searches or null */
+	private volatile ISearchListener listener;
 
-	private Hashtable<T,Node<T>> closedNodes;
-
-	private PriorityQueue<Node<T>> openNodes;
-
-	private int steps = 0;
+	/** search contexts, one per thread that uses this finder */
+	private final ThreadLocal<SearchContext<T>> contexts = new ThreadLocal<SearchContext<T>>()
+	{
+		protected SearchContext<T> initialValue()
+		{
+			return newContext();
+		}
+	};
 
 	/**
-	 * Inner node class, stores information for a priority queue.
-	 * Total value of the node is <code>gVal + hVal<code> where:<br>
-	 * <code>gVal</code> is a total cost of movements from <b>start</b> to this point<br>
-	 * <code>hVal</code> is an estimate of cost of movements from this point to the <b>goal</b> 
+	 * Sets new scale for results of the heuristics. This parameter is neccessary if average
+	 * cost of travel between two points is not 1. The result of the heuristic function is multiplied
+	 * by the scale. <br>
+	 * The default value is 1.0
+	 * @param scale new scale
 	 */
-	private class Node<U extends Point> implements Comparable<Node<U>>
+	public void setScale(double scale) 
 	{
-		private static final double EPSILON = 0.000001;
+		this.scale = scale;
+	}
 
-		Node<U>prev = null;
+	/**
+	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>
+	 * @param heuristic
+	 */
+	public void setHeuristic(IHeuristic<T> heuristic) 
+	{
+		this.heuristic = heuristic;
+	}
 
-		U coord;
+	/**
+	 * @return the heuristic function
+	 */
+	public IHeuristic<T> getHeuristic()
+	{
+		return heuristic;
+	}
 
-		double gVal = 0.0;
+	/**
+	 * @return the scale of the heuristic function
+	 */
+	public double getScale()
+	{
+		return scale;
+	}
 
-		double hVal = 0.0;
+	/**
+	 * Sets the listener which is notified about every finished search. When there is no
+	 * listener the searches only increment the counters of their contexts.
+	 * @param listener the listener or <b>null</b> to remove it
+	 */
+	public void setListener(ISearchListener listener)
+	{
+		this.listener = listener;
+	}
 
-		Node(U p) 
-		{
-			this.coord = p;
-		}
+	/**
+	 * @return the listener of the finished searches or <b>null</b>
+	 */
+	public ISearchListener getListener()
+	{
+		return listener;
+	}
 
-		/**
-		 * Compares the combined value of this node, to the other node.
-		 * @param o - node to compare to
-		 * @return 1 if (this.gVal+this.hVal)>(o.gVal+o.hVal)<br>
-		 * 0 if (this.gVal+this.hVal)==(o.gVal+o.hVal)<br>
-		 * -1 if (this.gVal+this.hVal)<(o.gVal+o.hVal)
-		 * @see equals
-		 */
-		public int compareTo(Node<U> o) 
+	/**
+	 * Remembers the current listener in the context of the new search and notifies it
+	 * @param ctx context of the search which is about to start
+	 */
+	void notifyStarted(SearchContext<T> ctx)
+	{
+		ISearchListener l = listener;
+		ctx.listener = l;
+		if (l != null)
 		{
-			double difference = this.gVal + this.hVal - o.gVal - o.hVal;
-			difference = (Math.abs(difference) < EPSILON) ? 0.0f : difference;
-			return (int) Math.signum(difference);
+			l.searchStarted(ctx);
 		}
+	}
 
-		/**
-		 * @return true if other nodes coordinates are the same as this node's coordinates
-		 * @see compareTo
-		 */
-		public boolean equals(Object obj)
+	/**
+	 * Passes the finished search to the listener which was notified about its start, if
+	 * there is one
+	 * @param ctx context of the finished search
+	 * @param status outcome of the search
+	 */
+	void notifyFinished(SearchContext<T> ctx, SearchStatus status)
+	{
+		ISearchListener l = ctx.listener;
+		if (l != null)
 		{
-			if (coord.equals(((Node)obj).coord))
-			{
-				return true;
-			}
-			return false;
+			l.searchFinished(ctx, status);
 		}
-
 	}
 
 	/**
-	 * Sets new scale for results of the heuristics. This parameter is neccessary if average
-	 * cost of travel between two points is not 1. The result of the heuristic function is multiplied
-	 * by the scale. <br>
-	 * The default value is 1.0
-	 * @param scale new scale
+	 * Gets the search context of the calling thread. The context holds the results of the
+	 * last search this thread ran through this finder.
+	 * @return search context of the calling thread
 	 */
-	public void setScale(double scale) 
+	public SearchContext<T> getSearchContext()
 	{
-		this.scale = scale;
+		return contexts.get();
 	}
 
 	/**
-	 * Sets the heuristic function. The default is <code>DiagonalNotEqual</code>
-	 * @param heuristic
+	 * Creates a search context which passes the neighbours of the expanded nodes to this finder
+	 * @return new context
 	 */
-	public void setHeuristic(IHeuristic<T> heuristic) 
+	private SearchContext<T> newContext()
 	{
-		this.heuristic = heuristic;
+		final SearchContext<T> ctx = new SearchContext<T>();
+		ctx.sink = new INeighbourSink()
+		{
+			public void addNeighbour(int x, int y, float cost)
+			{
+				updateNeighbourNode(ctx, ctx.expandedNode, x, y, cost);
+			}
+		};
+		return ctx;
 	}
 
 	/**
 	 * This function back tracks the path from the <code>node</node> and creates the list of
 	 * points which are conected and create the most optimal path from <b>start</b> to the <b>goal</b> 
-	 * @param node end node that has to be backtracked
+	 * @param ctx context of the search
+	 * @param node id of the end node that has to be backtracked
 	 * @return list of the points
 	 */
-	private List<T> backTrackPath(Node<T> node) 
+	List<T> backTrackPath(SearchContext<T> ctx, int node) 
 	{
-		Node<T> traversalNode = node;
+		int traversalNode = node;
 		LinkedList<T> path = new LinkedList<T>();
 
-		while (traversalNode != null) 
+		while (traversalNode != -1) 
 		{
-			path.addFirst(traversalNode.coord);
-			traversalNode = traversalNode.prev;
+			path.addFirst(ctx.nodes.point(traversalNode));
+			traversalNode = ctx.nodes.parent[traversalNode];
 		}
 		//Remove the starting point, we don't need it
 		path.remove();
@@ -162,25 +206,52 @@ public class Pathfinder<T extends Point>
 		return path;
 	}
 
+	/**
+	 * Back tracks the path from the <code>node</code> into primitive arrays
+	 * @param ctx context of the search
+	 * @param node id of the end node that has to be backtracked
+	 * @return the path without the start
+	 */
+	private CompactPath<T> backTrackCompactPath(SearchContext<T> ctx, int node)
+	{
+		NodeStore<T> nodes = ctx.nodes;
+		int length = 0;
+		for (int n = node; nodes.parent[n] != -1; n = nodes.parent[n])
+		{
+			length++;
+		}
+		long[] steps = new long[length];
+		double[] costs = new double[length];
+		int n = node;
+		for (int i = length - 1; i >= 0; i--)
+		{
+			steps[i] = nodes.keys[n];
+			costs[i] = nodes.gVal[n];
+			n = nodes.parent[n];
+		}
+		return new CompactPath<T>(ctx.start.x, ctx.start.y, steps, costs, pointFactory(ctx));
+	}
+
+	/**
+	 * Gets the helper which creates the points of a compact path, the adapter of a list based
+	 * helper can't create points after the search
+	 * @return the helper or <b>null</b> if the points have to be plain <code>Point</code> objects
+	 */
+	private INeighbourHelper<T> pointFactory(SearchContext<T> ctx)
+	{
+		return ctx.helper instanceof INeighbourHelper<?> ? ctx.neighbourHelper : null;
+	}
+
 	/**
 	 * Analysis function, must be called after <code>findPath</code><br>
 	 * Gets the list of the points that have been added to the <b>closed</b> list
+	 * during the last search of the calling thread
 	 * @return list of closed points
+	 * @see SearchContext#getVisitedPoints()
 	 */
 	public List<T> getVisitedPoints() 
 	{
-		if (closedNodes!=null)
-		{
-			List<T> list = new LinkedList<T>();
-			Enumeration<T> points = closedNodes.keys();
-			while(points.hasMoreElements())
-			{
-				T p = points.nextElement();
-				list.add(p);
-			}
-			return list;
-		}
-		return null;
+		return contexts.get().getVisitedPoints();
 	}
 	
 	/**
@@ -189,18 +260,11 @@ public class Pathfinder<T extends Point>
 	 * these coordinates in the list of closed nodes, 0 is returned
 	 * @param p coordinates of the closed node
 	 * @return g value
+	 * @see SearchContext#getGVal(Point)
 	 */
 	public double getGVal (T p)
 	{
-		if (closedNodes!=null)
-		{
-			Node<T>n = closedNodes.get(p);
-			if (n!=null)
-			{
-				return n.gVal;
-			}
-		}		
-		return 0;
+		return contexts.get().getGVal(p);
 	}
 	
 	/**
@@ -209,18 +273,11 @@ public class Pathfinder<T extends Point>
 	 * these coordinates in the list of closed nodes, 0 is returned
 	 * @param p coordinates of the closed node
 	 * @return h value
+	 * @see SearchContext#getHVal(Point)
 	 */
 	public double getHVal (T p)
 	{
-		if (closedNodes!=null)
-		{
-			Node<T>n = closedNodes.get(p);
-			if (n!=null)
-			{
-				return n.hVal;
-			}
-		}		
-		return 0;
+		return contexts.get().getHVal(p);
 	}
 
 	/**
@@ -240,7 +297,9 @@ public class Pathfinder<T extends Point>
 	}
 
 	/**
-	 * This function finds optimal path from <b>start</b> to <b>goal</b> with the <b>helper</b>
+	 * This function finds optimal path from <b>start</b> to <b>goal</b> with the <b>helper</b>.<br>
+	 * It can be called by several threads at the same time, every thread uses its own
+	 * search context.
 	 * @param helper
 	 * @param start
 	 * @param goal
@@ -249,144 +308,473 @@ public class Pathfinder<T extends Point>
 	 */
 	public List<T> findPath(IPathHelper<T> helper, T start, T goal) 
 	{
-		closedNodes = new Hashtable<T,Node<T>>();
-		this.helper = helper;
+		SearchContext<T> ctx = contexts.get();
 		long startTime= System.nanoTime();
-		this.steps = 0;
+		//Set up variables
+		ctx.reset(helper, heuristic, scale, start, goal);
+		notifyStarted(ctx);
 		
 		//If points are valid
 		if (!start.equals(goal)) 
 		{
-			//Set up variables
-			this.start = start;
-			this.goal = goal;
-			openNodes = new PriorityQueue<Node<T>>();			 
-			tieBreaker = calculateTieBreaker(start, goal);
 			//Calculating path
-			List<T> path = calculatePath();
+			beginPath(ctx);
+			List<T> path = null;
+			int goalNode = expandNodes(ctx, Integer.MAX_VALUE, 0, false, null);
+			if (goalNode >= 0)
+			{
+				path = backTrackPath(ctx, goalNode);
+			}
 			
-			elapsedTime = System.nanoTime() - startTime;
+			ctx.elapsedTime = System.nanoTime() - startTime;
+			notifyFinished(ctx, path != null ? SearchStatus.FOUND : SearchStatus.UNREACHABLE);
 			
 			return path;
 		}
 		else
 		{
-			elapsedTime = System.nanoTime() - startTime;
+			ctx.elapsedTime = System.nanoTime() - startTime;
+			notifyFinished(ctx, SearchStatus.FOUND);
 			// returning empty list
 			return new LinkedList<T>();
 		}
 	}
 
+	/**
+	 * This function finds optimal path from <b>start</b> to <b>goal</b> with the <b>helper</b>, 
+	 * the same as <code>findPath</code>, and returns it in primitive arrays.<br>
+	 * It can be called by several threads at the same time, every thread uses its own
+	 * search context.
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @return the path or <b>null</b> if path doesn't exist.
+	 */
+	public CompactPath<T> findCompactPath(IPathHelper<T> helper, T start, T goal)
+	{
+		SearchContext<T> ctx = contexts.get();
+		long startTime = System.nanoTime();
+		ctx.reset(helper, heuristic, scale, start, goal);
+		notifyStarted(ctx);
+		CompactPath<T> path = null;
+		if (!start.equals(goal))
+		{
+			beginPath(ctx);
+			int goalNode = expandNodes(ctx, Integer.MAX_VALUE, 0, false, null);
+			if (goalNode >= 0)
+			{
+				path = backTrackCompactPath(ctx, goalNode);
+			}
+		}
+		else
+		{
+			path = new CompactPath<T>(start.x, start.y, new long[0], new double[0], pointFactory(ctx));
+		}
+		ctx.elapsedTime = System.nanoTime() - startTime;
+		notifyFinished(ctx, path != null ? SearchStatus.FOUND : SearchStatus.UNREACHABLE);
+		return path;
+	}
+
+	/**
+	 * This function finds optimal path from <b>start</b> to <b>goal</b> with the <b>helper</b>
+	 * within the <b>limits</b>. When a limit is hit or the search is cancelled, the search
+	 * is aborted and the result contains the path to the node which was estimated to be
+	 * the closest to the goal.<br>
+	 * It can be called by several threads at the same time, every thread uses its own
+	 * search context.
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @param limits limits of the search
+	 * @return result of the search
+	 */
+	public SearchResult<T> findPath(IPathHelper<T> helper, T start, T goal, SearchLimits limits)
+	{
+		SearchContext<T> ctx = contexts.get();
+		long startTime = System.nanoTime();
+		ctx.reset(helper, heuristic, scale, start, goal);
+		notifyStarted(ctx);
+		if (start.equals(goal))
+		{
+			ctx.elapsedTime = System.nanoTime() - startTime;
+			notifyFinished(ctx, SearchStatus.FOUND);
+			return new SearchResult<T>(SearchStatus.FOUND, new LinkedList<T>(), new LinkedList<T>(), 
+					0, 1, ctx.elapsedTime);
+		}
+
+		beginPath(ctx);
+		boolean timed = limits.getTimeLimit() != SearchLimits.UNLIMITED;
+		int goalNode = expandNodes(ctx, limits.getMaxExpansions(), startTime + limits.getTimeLimit(), timed, limits);
+		SearchResult<T> result;
+		if (goalNode >= 0)
+		{
+			List<T> path = backTrackPath(ctx, goalNode);
+			result = new SearchResult<T>(SearchStatus.FOUND, path, path, ctx.steps, ctx.nodes.size, 
+					System.nanoTime() - startTime);
+		}
+		else
+		{
+			SearchStatus status = goalNode == UNREACHABLE ? SearchStatus.UNREACHABLE : SearchStatus.ABORTED;
+			//Nothing is expanded if the search is aborted right away
+			List<T> partialPath = ctx.bestNode == -1 ? new LinkedList<T>() : backTrackPath(ctx, ctx.bestNode);
+			result = new SearchResult<T>(status, null, partialPath, ctx.steps, ctx.nodes.size, 
+					System.nanoTime() - startTime);
+		}
+		ctx.elapsedTime = result.getElapsedTime();
+		notifyFinished(ctx, result.getStatus());
+		return result;
+	}
+
+	/**
+	 * Starts a search from <b>start</b> to <b>goal</b> which is run in portions through the
+	 * returned handle, so that a long search can be spread over several frames. The handle
+	 * has its own search context and uses the current heuristic and scale of this finder.
+	 * @param helper
+	 * @param start
+	 * @param goal
+	 * @return handle of the search, no nodes are expanded yet
+	 */
+	public SearchHandle<T> startSearch(IPathHelper<T> helper, T start, T goal)
+	{
+		SearchContext<T> ctx = newContext();
+		ctx.reset(helper, heuristic, scale, start, goal);
+		if (!start.equals(goal))
+		{
+			notifyStarted(ctx);
+			beginPath(ctx);
+		}
+		return new SearchHandle<T>(this, ctx);
+	}
+
+	/**
+	 * This function finds the cheapest path from any of the <b>starts</b> to any of the
+	 * <b>goals</b> in a single search, instead of a search for every pair. All the starts
+	 * are put to the list of open nodes at once and the heuristic is the estimate to the
+	 * nearest goal, so the search stops at the first goal it expands. Use it to find the
+	 * path to the nearest of several targets or from the nearest of several actors.<br>
+	 * The estimate to the nearest goal is computed for every new node, so a node takes the
+	 * time of as many heuristic calls as there are goals.<br>
+	 * The start the path begins at and the goal it ends at are available through
+	 * <code>getSearchContext().getStart()</code> and <code>getGoal()</code>.
+	 * It can be called by several threads at the same time, every thread uses its own
+	 * search context.
+	 * @param helper
+	 * @param starts start points, at least one
+	 * @param goals goal points, at least one
+	 * @return list of points that actor must sequentially walk through from the start to the
+	 * goal or <b>null</b> if no goal can be reached from any start. The list is empty if one
+	 * of the starts is a goal.
+	 */
+	public List<T> findNearestPath(IPathHelper<T> helper, Collection<? extends T> starts, Collection<? extends T> goals)
+	{
+		if (starts.isEmpty() || goals.isEmpty())
+		{
+			throw new IllegalArgumentException("There must be at least one start and one goal");
+		}
+		SearchContext<T> ctx = contexts.get();
+		long startTime = System.nanoTime();
+		ctx.reset(helper, heuristic, scale, starts.iterator().next(), goals.iterator().next());
+		ctx.setGoals(goals);
+		notifyStarted(ctx);
+		List<T> path = null;
+		for (T start : starts)
+		{
+			if (ctx.isGoal(NodeStore.pack(start.x, start.y)))
+			{
+				ctx.start = start;
+				ctx.goal = start;
+				path = new LinkedList<T>();
+				break;
+			}
+		}
+		if (path == null && anyConnected(helper, starts, goals))
+		{
+			NodeStore<T> nodes = ctx.nodes;
+			ctx.tieBreaker = Double.MAX_VALUE;
+			for (T start : starts)
+			{
+				for (T goal : goals)
+				{
+					ctx.tieBreaker = Math.min(ctx.tieBreaker, calculateTieBreaker(start, goal));
+				}
+			}
+			for (T start : starts)
+			{
+				if (nodes.find(start) == -1)
+				{
+					int startNode = nodes.add(start);
+					nodes.hVal[startNode] = calculateHVal(ctx, start, ctx.goal);
+					ctx.openNodes.add(startNode);
+				}
+			}
+			int goalNode = expandNodes(ctx, Integer.MAX_VALUE, 0, false, null);
+			if (goalNode >= 0)
+			{
+				path = backTrackPath(ctx, goalNode);
+				int root = goalNode;
+				while (nodes.parent[root] != -1)
+				{
+					root = nodes.parent[root];
+				}
+				ctx.start = nodes.point(root);
+				ctx.goal = nodes.point(goalNode);
+			}
+		}
+		ctx.elapsedTime = System.nanoTime() - startTime;
+		notifyFinished(ctx, path != null ? SearchStatus.FOUND : SearchStatus.UNREACHABLE);
+		return path;
+	}
+
+	/**
+	 * Asks the helper which knows the connected areas if any of the goals can be reached
+	 * @return false if no goal can be reached from any start for sure
+	 */
+	@SuppressWarnings("unchecked")
+	private boolean anyConnected(IPathHelper<T> helper, Collection<? extends T> starts, Collection<? extends T> goals)
+	{
+		if (!(helper instanceof IConnectivityPathHelper<?>))
+		{
+			return true;
+		}
+		IConnectivityPathHelper<T> connectivity = (IConnectivityPathHelper<T>) helper;
+		for (T start : starts)
+		{
+			for (T goal : goals)
+			{
+				if (connectivity.isConnected(start, goal))
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * This function finds all the points that can be reached from <b>start</b> with the cost
+	 * not higher than <b>maxCost</b>. It runs Dijkstra's search from the start which stops when
+	 * the cheapest open node exceeds the budget.<br>
+	 * The cost of every returned point is available through <code>getGVal</code> until the
+	 * next search of the calling thread.
+	 * @param helper
+	 * @param start
+	 * @param maxCost maximal cost of movements from the start
+	 * @return list of the reachable points, including the start, in the order of increasing cost
+	 */
+	public List<T> fillRadius(IPathHelper<T> helper, T start, double maxCost)
+	{
+		SearchContext<T> ctx = contexts.get();
+		long startTime = System.nanoTime();
+		ctx.reset(helper, heuristic, scale, start, null);
+		List<T> points = new LinkedList<T>();
+		NodeStore<T> nodes = ctx.nodes;
+		OpenList openNodes = ctx.openNodes;
+		openNodes.add(nodes.add(start));
+		long faults = ctx.chunkedHelper == null ? 0 : ctx.chunkedHelper.getChunkFaults();
+
+		while (!openNodes.isEmpty() && nodes.gVal[openNodes.peek()] <= maxCost)
+		{
+			if (openNodes.size() > ctx.peakOpenSize)
+			{
+				ctx.peakOpenSize = openNodes.size();
+			}
+			ctx.steps++;
+			int node = openNodes.poll();
+			nodes.closed[node] = true;
+			T coord = nodes.point(node);
+			points.add(coord);
+			ctx.expandedNode = node;
+			ctx.neighbourHelper.getNeighbours(coord, ctx.sink);
+		}
+		if (ctx.chunkedHelper != null)
+		{
+			ctx.chunkFaults = ctx.chunkedHelper.getChunkFaults() - faults;
+		}
+		ctx.elapsedTime = System.nanoTime() - startTime;
+		return points;
+	}
+
 	/**
 	 * This function calculates heuristic cost of travel between <b>start</b> and <b>goal</b> <br>
 	 * The result is adjusted by <b>scale</b>
+	 * @param ctx context of the search
 	 * @param start start point
 	 * @param goal goal point
 	 * @return calculated cost to travel from start to goal
 	 */
-	private double calculateHVal(T start, T goal) 
+	private double calculateHVal(SearchContext<T> ctx, T start, T goal) 
 	{
-		return scale * tieBreaker * heuristic.calculateHeuristic(start, goal);
+		double estimate;
+		if (ctx.goals != null)
+		{
+			//The nearest of the goals
+			estimate = Double.MAX_VALUE;
+			for (int i = 0; i < ctx.goals.size(); i++)
+			{
+				estimate = Math.min(estimate, ctx.heuristic.calculateHeuristic(start, ctx.goals.get(i)));
+			}
+			ctx.heuristicCalls += ctx.goals.size();
+		}
+		else if (goal != null)
+		{
+			ctx.heuristicCalls++;
+			estimate = ctx.heuristic.calculateHeuristic(start, goal);
+		}
+		else
+		{
+			//There is no goal in fillRadius
+			return 0.0;
+		}
+		double hVal = ctx.scale * ctx.tieBreaker * estimate;
+		//Whole values are kept in the buckets of the open list
+		return ctx.integerCosts ? Math.floor(hVal) : hVal;
 	}
 
 	/**
-	 * This function calculates the path 
-	 * @return path
+	 * This function puts the start node to the list of open nodes. If the helper knows that
+	 * the goal can't be reached, the list is left empty, so the search ends right away.
+	 * @param ctx context of the search
 	 */
-	private List<T> calculatePath() 
+	@SuppressWarnings("unchecked")
+	private void beginPath(SearchContext<T> ctx)
+	{
+		if (ctx.helper instanceof IConnectivityPathHelper<?> 
+				&& !((IConnectivityPathHelper<T>) ctx.helper).isConnected(ctx.start, ctx.goal))
+		{
+			return;
+		}
+		ctx.tieBreaker = calculateTieBreaker(ctx.start, ctx.goal);
+		if (ctx.chunkedHelper != null)
+		{
+			ctx.chunkedHelper.prefetch(ctx.start, ctx.goal);
+		}
+		int startNode = ctx.nodes.add(ctx.start);
+		ctx.nodes.hVal[startNode] = calculateHVal(ctx, ctx.start, ctx.goal);
+		ctx.openNodes.add(startNode);
+	}
+
+	/**
+	 * This function expands at most <b>maxSteps</b> nodes of the search. It can be called
+	 * again to continue the search from where it has stopped.
+	 * @param ctx context of the search
+	 * @param maxSteps maximal number of nodes to expand
+	 * @param deadline value of <code>System.nanoTime()</code> at which the expansion stops
+	 * @param timed true if the <b>deadline</b> has to be checked
+	 * @param limits limits of the number of visited nodes and the cancellation flag or
+	 * <b>null</b> 
+	 * @return id of the goal node if the path has been found, <code>UNREACHABLE</code> if
+	 * there are no more nodes to expand or <code>SUSPENDED</code> if the search was stopped
+	 * by the limits
+	 */
+	int expandNodes(SearchContext<T> ctx, int maxSteps, long deadline, boolean timed, SearchLimits limits) 
+	{
+		IChunkedPathHelper<T> chunkedHelper = ctx.chunkedHelper;
+		if (chunkedHelper == null)
+		{
+			return expand(ctx, maxSteps, deadline, timed, limits);
+		}
+		long faults = chunkedHelper.getChunkFaults();
+		int result = expand(ctx, maxSteps, deadline, timed, limits);
+		ctx.chunkFaults += chunkedHelper.getChunkFaults() - faults;
+		return result;
+	}
+
+	/**
+	 * Does the work of <code>expandNodes</code>, which counts the chunk faults around it
+	 */
+	private int expand(SearchContext<T> ctx, int maxSteps, long deadline, boolean timed, SearchLimits limits) 
 	{		
-		List<T> path = null;
-		Node<T> startNode = new Node<T>(start);
-		startNode.hVal = calculateHVal(start, goal);
-		openNodes.add(startNode);
+		NodeStore<T> nodes = ctx.nodes;
+		OpenList openNodes = ctx.openNodes;
+		T goal = ctx.goal;
 
 		//While there are nodes in the open list
-		while (!openNodes.isEmpty()) 
+		for (int step = 0; !openNodes.isEmpty(); step++) 
 		{
-
-			this.steps++;
+			if (openNodes.size() > ctx.peakOpenSize)
+			{
+				ctx.peakOpenSize = openNodes.size();
+			}
+			if (step >= maxSteps || (timed && System.nanoTime() - deadline >= 0))
+			{
+				return SUSPENDED;
+			}
+			if (limits != null && (limits.isCancelled() || nodes.size >= limits.getMaxVisited()))
+			{
+				return SUSPENDED;
+			}
+			ctx.steps++;
 			//Get the node with the lowest gVal+hVal
-			Node<T> node = openNodes.poll();
+			int node = openNodes.poll();
 			//Add it to the closed list
-			closedNodes.put(node.coord,node);
+			nodes.closed[node] = true;
+			//Remember the node which is estimated to be the closest to the goal
+			if (ctx.bestNode == -1 || nodes.hVal[node] < nodes.hVal[ctx.bestNode])
+			{
+				ctx.bestNode = node;
+			}
+			T coord = nodes.point(node);
 
 			//If it is not the goal node
-			if (!node.coord.equals(goal)) 
+			if (ctx.goalKeys == null ? !coord.equals(goal) : !ctx.isGoal(nodes.keys[node])) 
 			{
-				//Get all the neighbours
-				List<T> neighbours = helper.getNeighbours(node.coord);
-				
-				//For each neighbour
-				for (T p : neighbours) 
-				{
-					//Create neighbour node
-					Node<T> neighbourNode = createNeighbourNode(node, p);
-					
-					//If coordinates of the neighbour node are the same as the coordinates of the parent node, discard it
-					if (!neighbourNode.coord.equals(node.coord)) 
-					{
-						//Check if the neighbour is in the list of open nodes
-						boolean isInOpen = checkOpenNodes(neighbourNode);
-						//If it is not in the open nodes and not in the closed nodes
-						if ((!closedNodes.containsKey(neighbourNode.coord))&& (!isInOpen)) 
-						{
-							//Add it to the list of open nodes
-							openNodes.add(neighbourNode);
-						}
-					}
-				}
+				//Pass all the neighbours to updateNeighbourNode
+				ctx.expandedNode = node;
+				ctx.neighbourHelper.getNeighbours(coord, ctx.sink);
 			} else 
 			{
 				// We found the path
-				path = backTrackPath(node);
-				break;				
+				return node;
 			}
 		}
-		return path;
-	}
-
-	/**
-	 * Creates neighbour node for the <b>parent</b> with coordinates <b>neighbourPos</b>
-	 * @param parent parent node 
-	 * @param neighbourPos position of the neighbour
-	 * @return node
-	 */
-	private Node<T> createNeighbourNode(Node<T> parent, T neighbourPos) 
-	{
-		Node<T> neighbourNode = new Node<T>(neighbourPos);
-		neighbourNode.prev = parent;
-		neighbourNode.gVal = parent.gVal + helper.getCost(parent.coord, neighbourNode.coord);
-		neighbourNode.hVal = calculateHVal(neighbourNode.coord, goal);
-		return neighbourNode;
+		return UNREACHABLE;
 	}
 
 	/**
-	 * Checks if there is a node with the same coordinates as the <b>node<b> in the list of open nodes.
-	 * If there is, then it checks if its gValue is higher, and replaces it.
-	 * @param node node
-	 * @return true if node is already in the open list
+	 * Creates or updates neighbour node for the <b>parent</b> with coordinates (<b>x</b>, <b>y</b>).
+	 * A new node is added to the list of open nodes. If there is a node with the same coordinates
+	 * in the list of open nodes, then it checks if its gValue is higher, and updates it with
+	 * the cheaper route. Closed nodes are left untouched.
+	 * @param ctx context of the search
+	 * @param parent id of the parent node 
+	 * @param x x coordinate of the neighbour
+	 * @param y y coordinate of the neighbour
+	 * @param cost cost of movement from the parent to the neighbour
 	 */
-	private boolean checkOpenNodes(Node<T> node) 
+	private void updateNeighbourNode(SearchContext<T> ctx, int parent, int x, int y, float cost) 
 	{
-		boolean ret = false;
-		for (Node<T> oldNode : openNodes) 
+		NodeStore<T> nodes = ctx.nodes;
+		ctx.costEvaluations++;
+		long key = NodeStore.pack(x, y);
+		//If coordinates of the neighbour are the same as the coordinates of the parent node, discard it
+		if (nodes.keys[parent] == key)
 		{
-			if (oldNode.coord.equals(node.coord)) 
-			{
-				ret = true;
-				if (oldNode.gVal >= node.gVal) 
-				{
-					//Since compareTo and equal compare different fields 
-					//we cannot use remove() method from the PriorityQueue
-					LinkedList<Node<T>> list = new LinkedList<Node<T>>();
-					list.add(oldNode);
-					openNodes.removeAll(list);
-					openNodes.add(node);
-				}
-				break;
-			}
+			return;
+		}
+		int neighbourNode = nodes.find(key);
+		if (neighbourNode != -1 && nodes.closed[neighbourNode])
+		{
+			return;
+		}
+		double gVal = nodes.gVal[parent] + cost;
+		if (neighbourNode == -1)
+		{
+			//Add it to the list of open nodes
+			T neighbourPos = ctx.neighbourHelper.createPoint(x, y);
+			neighbourNode = nodes.add(neighbourPos);
+			nodes.parent[neighbourNode] = parent;
+			nodes.gVal[neighbourNode] = gVal;
+			nodes.hVal[neighbourNode] = calculateHVal(ctx, neighbourPos, ctx.goal);
+			ctx.openNodes.add(neighbourNode);
+		}
+		else if (nodes.gVal[neighbourNode] >= gVal)
+		{
+			//hVal depends only on coordinates, so only the route has to be updated
+			nodes.parent[neighbourNode] = parent;
+			nodes.gVal[neighbourNode] = gVal;
+			ctx.decreaseKeys++;
+			ctx.openNodes.decreaseKey(neighbourNode);
 		}
-		return ret;
 	}
 
 	/**
@@ -395,7 +783,7 @@ public class Pathfinder<T extends Point>
 	 */
 	public int getSteps() 
 	{
-		return steps;
+		return contexts.get().getSteps();
 	}
 
 	/**
@@ -404,7 +792,7 @@ public class Pathfinder<T extends Point>
 	 */
 	public long getElapsedTime()
 	{
-		return elapsedTime;
+		return contexts.get().getElapsedTime();
 	}
 	
 	/**
@@ -413,6 +801,6 @@ public class Pathfinder<T extends Point>
 	 */
 	public double getTieBreaker()
 	{
-		return tieBreaker;
+		return contexts.get().getTieBreaker();
 	}
 }
@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * State of a single search of <code>Pathfinder</code>: the open and closed lists, the search
+ * parameters and the statistics of the last run. A context is confined to one thread and is
+ * reused for every search this thread runs through the same <code>Pathfinder</code>, so its
+ * memory is allocated once. Resetting it between searches doesn't clear the node tables,
+ * the stale nodes are skipped by generation counters.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public final class SearchContext<T extends Point>
+{
+	/** all the nodes created during the last search, open and closed */
+	final NodeStore<T> nodes = new NodeStore<T>();
+
+	/** open list of the current search, one of the two below */
+	OpenList openNodes;
+
+	private final IndexedBinaryHeap binaryHeap = new IndexedBinaryHeap(nodes);
+
+	private final BucketQueue bucketQueue = new BucketQueue(nodes);
+
+	/** true if the helper declares whole costs, the heuristic is rounded down then */
+	boolean integerCosts;
+
+	/** reference to the helper class */
+	IPathHelper<T> helper;
+
+	/** the helper itself if it implements the sink contract, otherwise the adapter */
+	INeighbourHelper<T> neighbourHelper;
+
+	private final PathHelperAdapter<T> adapter = new PathHelperAdapter<T>();
+
+	/** receiver of the neighbours of the expanded node, supplied by the finder */
+	INeighbourSink sink;
+
+	/** id of the node which is being expanded */
+	int expandedNode = -1;
+
+	/** heuristic function, copied from the finder when the search starts */
+	IHeuristic<T> heuristic;
+
+	double scale = 1.0;
+
+	double tieBreaker = 1.0;
+
+	T start;
+
+	T goal;
+
+	/** goals of a search for the nearest of several goals, otherwise null */
+	List<T> goals;
+
+	/** sorted packed coordinates of the <code>goals</code> */
+	long[] goalKeys;
+
+	/** closed node with the lowest estimate of the cost to the goal or -1 */
+	int bestNode = -1;
+
+	/** total time it took algorithm to calculate the path */
+	long elapsedTime = 0;
+
+	int steps = 0;
+
+	/** number of calls of the heuristic function */
+	int heuristicCalls = 0;
+
+	/** number of neighbours received from the helper together with the cost of movement */
+	int costEvaluations = 0;
+
+	/** number of nodes which got a cheaper route while they were in the open list */
+	int decreaseKeys = 0;
+
+	/** highest number of nodes in the open list */
+	int peakOpenSize = 0;
+
+	/** the helper if it loads the world in chunks, otherwise null */
+	IChunkedPathHelper<T> chunkedHelper;
+
+	/** number of chunks the search had to wait for */
+	long chunkFaults = 0;
+
+	/** listener which was notified about the start of the search or null */
+	ISearchListener listener;
+
+	/** object attached to the search by the listener */
+	private Object attachment;
+
+	/** true after the first search, analysis functions return nothing before it */
+	private boolean used = false;
+
+	SearchContext()
+	{
+		openNodes = binaryHeap;
+	}
+
+	/**
+	 * Prepares the context for a new search. Only the counters are reset, the memory of
+	 * the previous search is reused.
+	 * @param helper helper of the new search
+	 * @param heuristic heuristic function of the new search
+	 * @param scale scale of the heuristic
+	 * @param start start point
+	 * @param goal goal point
+	 */
+	@SuppressWarnings("unchecked")
+	void reset(IPathHelper<T> helper, IHeuristic<T> heuristic, double scale, T start, T goal)
+	{
+		binaryHeap.clear();
+		bucketQueue.clear();
+		nodes.clear();
+		integerCosts = helper instanceof IIntegerPathHelper<?>;
+		openNodes = integerCosts ? bucketQueue : binaryHeap;
+		this.helper = helper;
+		if (helper instanceof INeighbourHelper<?>)
+		{
+			this.neighbourHelper = (INeighbourHelper<T>) helper;
+		}
+		else
+		{
+			adapter.setHelper(helper);
+			this.neighbourHelper = adapter;
+		}
+		this.heuristic = heuristic;
+		this.scale = scale;
+		this.start = start;
+		this.goal = goal;
+		this.goals = null;
+		this.goalKeys = null;
+		this.steps = 0;
+		this.heuristicCalls = 0;
+		this.costEvaluations = 0;
+		this.decreaseKeys = 0;
+		this.peakOpenSize = 0;
+		this.chunkedHelper = helper instanceof IChunkedPathHelper<?> ? (IChunkedPathHelper<T>) helper : null;
+		this.chunkFaults = 0;
+		this.listener = null;
+		this.attachment = null;
+		this.bestNode = -1;
+		this.tieBreaker = 1.0;
+		this.used = true;
+	}
+
+	/**
+	 * Makes the search stop at the first of the <b>goals</b> it reaches
+	 * @param goals the goals
+	 */
+	void setGoals(Collection<? extends T> goals)
+	{
+		this.goals = new ArrayList<T>(goals);
+		this.goalKeys = new long[this.goals.size()];
+		for (int i = 0; i < goalKeys.length; i++)
+		{
+			T p = this.goals.get(i);
+			goalKeys[i] = NodeStore.pack(p.x, p.y);
+		}
+		Arrays.sort(goalKeys);
+	}
+
+	/**
+	 * @param key packed coordinates of a node
+	 * @return true if the node is the goal or one of the goals of the search
+	 */
+	boolean isGoal(long key)
+	{
+		if (goalKeys == null)
+		{
+			return goal != null && key == NodeStore.pack(goal.x, goal.y);
+		}
+		return Arrays.binarySearch(goalKeys, key) >= 0;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Gets the list of the points that have been added to the <b>closed</b> list
+	 * @return list of closed points
+	 */
+	public List<T> getVisitedPoints() 
+	{
+		if (used)
+		{
+			List<T> list = new LinkedList<T>();
+			for (int i = 0; i < nodes.size; i++)
+			{
+				if (nodes.closed[i])
+				{
+					list.add(nodes.point(i));
+				}
+			}
+			return list;
+		}
+		return null;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Gets <b>g</b> value for the closed node with coordinates p, if there is no node with
+	 * these coordinates in the list of closed nodes, 0 is returned
+	 * @param p coordinates of the closed node
+	 * @return g value
+	 */
+	public double getGVal(T p)
+	{
+		int n = nodes.find(p);
+		if (n!=-1 && nodes.closed[n])
+		{
+			return nodes.gVal[n];
+		}
+		return 0;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Gets <b>h</b> value for the closed node with coordinates p, if there is no node with
+	 * these coordinates in the list of closed nodes, 0 is returned
+	 * @param p coordinates of the closed node
+	 * @return h value
+	 */
+	public double getHVal(T p)
+	{
+		int n = nodes.find(p);
+		if (n!=-1 && nodes.closed[n])
+		{
+			return nodes.hVal[n];
+		}
+		return 0;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br> 
+	 * @return number of steps it took to find the optimal path
+	 */
+	public int getSteps() 
+	{
+		return steps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return time of the last run in nanoseconds 
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return number of chunks the search had to wait for, always 0 if the helper doesn't
+	 * implement <code>IChunkedPathHelper</code>
+	 */
+	public long getChunkFaults()
+	{
+		return chunkFaults;
+	}
+
+	/**
+	 * @return start point of the last search. After <code>findNearestPath</code> it is the
+	 * start the path begins at.
+	 */
+	public T getStart()
+	{
+		return start;
+	}
+
+	/**
+	 * @return goal point of the last search or <b>null</b> after <code>fillRadius</code>.
+	 * After <code>findNearestPath</code> it is the goal which has been reached.
+	 */
+	public T getGoal()
+	{
+		return goal;
+	}
+
+	/**
+	 * @return heuristic function of the last search
+	 */
+	public IHeuristic<T> getHeuristic()
+	{
+		return heuristic;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Back tracks the path to the goal, so it takes time proportional to its length
+	 * @return number of steps of the path to the goal or -1 if the goal hasn't been reached
+	 */
+	public int getPathLength()
+	{
+		if (goal != null && goal.equals(start))
+		{
+			return 0;
+		}
+		int n = goal == null ? -1 : nodes.find(goal);
+		if (n == -1 || !nodes.closed[n])
+		{
+			return -1;
+		}
+		int length = 0;
+		for (; nodes.parent[n] != -1; n = nodes.parent[n])
+		{
+			length++;
+		}
+		return length;
+	}
+
+	/**
+	 * Attaches an object to the current search, so that a listener can keep its data
+	 * between the notifications about the same search. The attachment is cleared when the
+	 * next search starts in this context.
+	 * @param attachment the object or <b>null</b>
+	 */
+	public void setAttachment(Object attachment)
+	{
+		this.attachment = attachment;
+	}
+
+	/**
+	 * @return object attached to the current search or <b>null</b>
+	 */
+	public Object getAttachment()
+	{
+		return attachment;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Every generated node is added to the open list once, so this is also the number of
+	 * additions to the open list
+	 * @return number of nodes created during the last search
+	 */
+	public int getGeneratedNodes()
+	{
+		return nodes.size;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * Every expanded node is removed from the open list and added to the closed list, so this
+	 * is also the number of removals from the open list and the size of the closed list
+	 * @return number of expanded nodes
+	 */
+	public int getExpandedNodes()
+	{
+		return steps;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return number of times a node in the open list got a cheaper route
+	 */
+	public int getDecreaseKeys()
+	{
+		return decreaseKeys;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return highest number of nodes in the open list during the last search
+	 */
+	public int getPeakOpenSize()
+	{
+		return peakOpenSize;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return number of calls of the heuristic function
+	 */
+	public int getHeuristicCalls()
+	{
+		return heuristicCalls;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return number of neighbours with the cost of movement received from the helper,
+	 * the same as the number of <code>getCost</code> calls for the plain helpers
+	 */
+	public int getCostEvaluations()
+	{
+		return costEvaluations;
+	}
+
+	/**
+	 * Analysis function, must be called after <code>findPath</code><br>
+	 * @return the tiebreaker multiplier used to adjust the result of the heuristic function 
+	 */
+	public double getTieBreaker()
+	{
+		return tieBreaker;
+	}
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Handle of a search started with <code>Pathfinder.startSearch</code>. The search is run in
+ * portions of a given number of expansions or a given time and can be suspended between
+ * them for any time, every next portion continues from the node where the previous one
+ * has stopped. The result is the same as the result of <code>findPath</code>.<br>
+ * Different handles can be run by different threads, but a single handle must not be
+ * run by several threads at the same time.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see SearchScheduler
+ */
+public final class SearchHandle<T extends Point>
+{
+	private final Pathfinder<T> finder;
+
+	private final SearchContext<T> ctx;
+
+	private boolean finished;
+
+	private List<T> path;
+
+	SearchHandle(Pathfinder<T> finder, SearchContext<T> ctx)
+	{
+		this.finder = finder;
+		this.ctx = ctx;
+		if (ctx.start.equals(ctx.goal))
+		{
+			finished = true;
+			path = new LinkedList<T>();
+		}
+	}
+
+	/**
+	 * Continues the search for at most <b>maxSteps</b> expansions
+	 * @param maxSteps maximal number of nodes to expand
+	 * @return true if the search is finished
+	 */
+	public boolean step(int maxSteps)
+	{
+		return run(maxSteps, 0, false);
+	}
+
+	/**
+	 * Continues the search for about <b>time</b> nanoseconds. The time is checked before
+	 * every expansion, so the portion can take longer by the time of one expansion.
+	 * @param time time in nanoseconds
+	 * @return true if the search is finished
+	 */
+	public boolean stepFor(long time)
+	{
+		return run(Integer.MAX_VALUE, System.nanoTime() + time, true);
+	}
+
+	/**
+	 * Continues the search until it finishes
+	 * @return path, the same as <code>getPath</code>
+	 */
+	public List<T> finish()
+	{
+		run(Integer.MAX_VALUE, 0, false);
+		return path;
+	}
+
+	/**
+	 * Continues the search for at most <b>maxSteps</b> expansions or until the <b>deadline</b>
+	 * @param maxSteps maximal number of nodes to expand
+	 * @param deadline value of <code>System.nanoTime()</code> at which the search is suspended
+	 * @param timed true if the <b>deadline</b> has to be checked
+	 * @return true if the search is finished
+	 */
+	boolean run(int maxSteps, long deadline, boolean timed)
+	{
+		if (finished)
+		{
+			return true;
+		}
+		ISearchSliceListener sliceListener = ctx.listener instanceof ISearchSliceListener 
+				? (ISearchSliceListener) ctx.listener : null;
+		if (sliceListener != null)
+		{
+			sliceListener.sliceStarted(ctx);
+		}
+		long startTime = System.nanoTime();
+		int result = finder.expandNodes(ctx, maxSteps, deadline, timed, null);
+		if (result != Pathfinder.SUSPENDED)
+		{
+			finished = true;
+			if (result != Pathfinder.UNREACHABLE)
+			{
+				path = finder.backTrackPath(ctx, result);
+			}
+		}
+		ctx.elapsedTime += System.nanoTime() - startTime;
+		if (sliceListener != null)
+		{
+			sliceListener.sliceFinished(ctx, finished);
+		}
+		if (finished)
+		{
+			finder.notifyFinished(ctx, path != null ? SearchStatus.FOUND : SearchStatus.UNREACHABLE);
+		}
+		return finished;
+	}
+
+	/**
+	 * @return true if the search is finished, either the path was found or it doesn't exist
+	 */
+	public boolean isFinished()
+	{
+		return finished;
+	}
+
+	/**
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if path doesn't exist or the search isn't finished yet.
+	 */
+	public List<T> getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * @return start point of the search
+	 */
+	public T getStart()
+	{
+		return ctx.start;
+	}
+
+	/**
+	 * @return goal point of the search
+	 */
+	public T getGoal()
+	{
+		return ctx.goal;
+	}
+
+	/**
+	 * Gets the context of the search, which gives access to the analysis functions
+	 * @return context of the search
+	 */
+	public SearchContext<T> getSearchContext()
+	{
+		return ctx;
+	}
+
+	/**
+	 * @return number of nodes expanded so far
+	 */
+	public int getSteps()
+	{
+		return ctx.getSteps();
+	}
+
+	/**
+	 * @return time spent in the search so far in nanoseconds, the time while the search
+	 * was suspended is not counted
+	 */
+	public long getElapsedTime()
+	{
+		return ctx.getElapsedTime();
+	}
+}
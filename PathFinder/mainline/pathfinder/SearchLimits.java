@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Limits of a single search: the maximal number of expanded nodes, the maximal number of
+ * visited nodes (expanded and open, which bounds the memory of the search) and the time
+ * limit. All of them are unlimited by default. A search can also be cancelled by another
+ * thread with <code>cancel</code>, the search checks the flag before every expansion.<br>
+ * Create a new instance for every search which may be cancelled.
+ * @author Egor Tsinko
+ * @see Pathfinder#findPath(IPathHelper, java.awt.Point, java.awt.Point, SearchLimits)
+ */
+public class SearchLimits
+{
+	/** value of the time limit when the time is unlimited */
+	public static final long UNLIMITED = Long.MAX_VALUE;
+
+	private int maxExpansions = Integer.MAX_VALUE;
+
+	private int maxVisited = Integer.MAX_VALUE;
+
+	private long timeLimit = UNLIMITED;
+
+	private volatile boolean cancelled = false;
+
+	/**
+	 * Creates unlimited limits
+	 */
+	public SearchLimits()
+	{
+	}
+
+	/**
+	 * @param maxExpansions maximal number of nodes the search expands
+	 * @param maxVisited maximal number of nodes the search creates
+	 * @param timeLimit time limit in nanoseconds
+	 */
+	public SearchLimits(int maxExpansions, int maxVisited, long timeLimit)
+	{
+		setMaxExpansions(maxExpansions);
+		setMaxVisited(maxVisited);
+		setTimeLimit(timeLimit);
+	}
+
+	/**
+	 * @param maxExpansions maximal number of nodes the search expands
+	 */
+	public void setMaxExpansions(int maxExpansions)
+	{
+		if (maxExpansions < 0)
+		{
+			throw new IllegalArgumentException("Limit must not be negative: " + maxExpansions);
+		}
+		this.maxExpansions = maxExpansions;
+	}
+
+	/**
+	 * @return maximal number of nodes the search expands
+	 */
+	public int getMaxExpansions()
+	{
+		return maxExpansions;
+	}
+
+	/**
+	 * Sets the maximal number of nodes the search creates. The limit is checked before
+	 * every expansion, so the search can exceed it by the number of neighbours of one node.
+	 * @param maxVisited maximal number of nodes
+	 */
+	public void setMaxVisited(int maxVisited)
+	{
+		if (maxVisited < 0)
+		{
+			throw new IllegalArgumentException("Limit must not be negative: " + maxVisited);
+		}
+		this.maxVisited = maxVisited;
+	}
+
+	/**
+	 * @return maximal number of nodes the search creates
+	 */
+	public int getMaxVisited()
+	{
+		return maxVisited;
+	}
+
+	/**
+	 * @param timeLimit time limit in nanoseconds or <code>UNLIMITED</code>
+	 */
+	public void setTimeLimit(long timeLimit)
+	{
+		if (timeLimit < 0)
+		{
+			throw new IllegalArgumentException("Limit must not be negative: " + timeLimit);
+		}
+		this.timeLimit = timeLimit;
+	}
+
+	/**
+	 * @return time limit in nanoseconds or <code>UNLIMITED</code>
+	 */
+	public long getTimeLimit()
+	{
+		return timeLimit;
+	}
+
+	/**
+	 * Asks the search to stop. Can be called by any thread.
+	 */
+	public void cancel()
+	{
+		cancelled = true;
+	}
+
+	/**
+	 * @return true if the search was asked to stop
+	 */
+	public boolean isCancelled()
+	{
+		return cancelled;
+	}
+}
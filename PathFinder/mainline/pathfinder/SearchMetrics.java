@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Listener which aggregates the counters of all the searches of a finder into histograms.
+ * The histograms are updated by the searching threads and can be read by any thread at
+ * any time, while the searches are running. Usage:<br>
+ * <code>
+ * SearchMetrics metrics = new SearchMetrics();<br>
+ * finder.setListener(metrics);<br>
+ * ...<br>
+ * long p99 = metrics.getExpandedNodes().getPercentile(0.99);
+ * </code>
+ * @author Egor Tsinko
+ */
+public final class SearchMetrics implements ISearchListener
+{
+	private final AtomicLongArray statusCounts = new AtomicLongArray(SearchStatus.values().length);
+
+	private final Histogram expandedNodes = new Histogram();
+
+	private final Histogram generatedNodes = new Histogram();
+
+	private final Histogram decreaseKeys = new Histogram();
+
+	private final Histogram peakOpenSize = new Histogram();
+
+	private final Histogram heuristicCalls = new Histogram();
+
+	private final Histogram costEvaluations = new Histogram();
+
+	private final Histogram chunkFaults = new Histogram();
+
+	private final Histogram elapsedTime = new Histogram();
+
+	public void searchStarted(SearchContext<?> ctx)
+	{
+	}
+
+	public void searchFinished(SearchContext<?> ctx, SearchStatus status)
+	{
+		statusCounts.incrementAndGet(status.ordinal());
+		expandedNodes.record(ctx.getExpandedNodes());
+		generatedNodes.record(ctx.getGeneratedNodes());
+		decreaseKeys.record(ctx.getDecreaseKeys());
+		peakOpenSize.record(ctx.getPeakOpenSize());
+		heuristicCalls.record(ctx.getHeuristicCalls());
+		costEvaluations.record(ctx.getCostEvaluations());
+		chunkFaults.record(ctx.getChunkFaults());
+		elapsedTime.record(ctx.getElapsedTime());
+	}
+
+	/**
+	 * @return number of finished searches
+	 */
+	public long getSearches()
+	{
+		long result = 0;
+		for (int i = 0; i < statusCounts.length(); i++)
+		{
+			result += statusCounts.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * @param status outcome of the searches
+	 * @return number of finished searches with the <b>status</b>
+	 */
+	public long getSearches(SearchStatus status)
+	{
+		return statusCounts.get(status.ordinal());
+	}
+
+	/**
+	 * Every expanded node is also removed from the open list and added to the closed list,
+	 * so this is the histogram of the peak sizes of the closed list as well
+	 * @return histogram of the number of expanded nodes per search
+	 */
+	public Histogram getExpandedNodes()
+	{
+		return expandedNodes;
+	}
+
+	/**
+	 * @return histogram of the number of generated nodes, which are added to the open list,
+	 * per search
+	 */
+	public Histogram getGeneratedNodes()
+	{
+		return generatedNodes;
+	}
+
+	/**
+	 * @return histogram of the number of cheaper routes found to the open nodes per search
+	 */
+	public Histogram getDecreaseKeys()
+	{
+		return decreaseKeys;
+	}
+
+	/**
+	 * @return histogram of the peak sizes of the open list
+	 */
+	public Histogram getPeakOpenSize()
+	{
+		return peakOpenSize;
+	}
+
+	/**
+	 * @return histogram of the number of calls of the heuristic function per search
+	 */
+	public Histogram getHeuristicCalls()
+	{
+		return heuristicCalls;
+	}
+
+	/**
+	 * @return histogram of the number of evaluated movement costs per search
+	 */
+	public Histogram getCostEvaluations()
+	{
+		return costEvaluations;
+	}
+
+	/**
+	 * @return histogram of the number of chunks a search had to wait for, see
+	 * <code>IChunkedPathHelper</code>
+	 */
+	public Histogram getChunkFaults()
+	{
+		return chunkFaults;
+	}
+
+	/**
+	 * @return histogram of the search times in nanoseconds
+	 */
+	public Histogram getElapsedTime()
+	{
+		return elapsedTime;
+	}
+
+	/**
+	 * Clears all the counters. Searches which finish during the reset can be counted
+	 * partially.
+	 */
+	public void reset()
+	{
+		for (int i = 0; i < statusCounts.length(); i++)
+		{
+			statusCounts.set(i, 0);
+		}
+		expandedNodes.reset();
+		generatedNodes.reset();
+		decreaseKeys.reset();
+		peakOpenSize.reset();
+		heuristicCalls.reset();
+		costEvaluations.reset();
+		chunkFaults.reset();
+		elapsedTime.reset();
+	}
+
+	/**
+	 * Histogram of non negative values with buckets of powers of two. The bucket
+	 * <b>k</b> counts the values which need <b>k</b> bits, so the bucket 0 holds zeros,
+	 * the bucket 1 holds ones, the bucket 2 holds 2 and 3 and so on.
+	 * @author Egor Tsinko
+	 */
+	public static final class Histogram
+	{
+		private static final int BUCKETS = 64;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+		private final AtomicLong count = new AtomicLong();
+
+		private final AtomicLong sum = new AtomicLong();
+
+		private final AtomicLong max = new AtomicLong();
+
+		Histogram()
+		{
+		}
+
+		/**
+		 * Adds the <b>value</b> to the histogram
+		 * @param value the value, negative values are counted as 0
+		 */
+		void record(long value)
+		{
+			if (value < 0)
+			{
+				value = 0;
+			}
+			buckets.incrementAndGet(64 - Long.numberOfLeadingZeros(value));
+			count.incrementAndGet();
+			sum.addAndGet(value);
+			long current = max.get();
+			while (value > current && !max.compareAndSet(current, value))
+			{
+				current = max.get();
+			}
+		}
+
+		/**
+		 * @return number of the recorded values
+		 */
+		public long getCount()
+		{
+			return count.get();
+		}
+
+		/**
+		 * @return sum of the recorded values
+		 */
+		public long getSum()
+		{
+			return sum.get();
+		}
+
+		/**
+		 * @return the highest recorded value or 0 if nothing was recorded
+		 */
+		public long getMax()
+		{
+			return max.get();
+		}
+
+		/**
+		 * @return the average of the recorded values or 0 if nothing was recorded
+		 */
+		public double getMean()
+		{
+			long n = count.get();
+			return n == 0 ? 0.0 : (double) sum.get() / n;
+		}
+
+		/**
+		 * Estimates the value below which the <b>fraction</b> of the recorded values lies.
+		 * The estimate is the upper bound of the bucket where the value is, so it is at most
+		 * twice as high as the exact value, and never higher than the maximum.
+		 * @param fraction fraction of the values from 0.0 to 1.0, 0.99 for the 99th percentile
+		 * @return estimated value or 0 if nothing was recorded
+		 */
+		public long getPercentile(double fraction)
+		{
+			long[] snapshot = getBuckets();
+			long total = 0;
+			for (long c : snapshot)
+			{
+				total += c;
+			}
+			if (total == 0)
+			{
+				return 0;
+			}
+			long rank = (long) Math.ceil(fraction * total);
+			long seen = 0;
+			for (int i = 0; i < snapshot.length; i++)
+			{
+				seen += snapshot[i];
+				if (seen >= rank && seen > 0)
+				{
+					long upper = (1L << i) - 1;
+					return Math.min(upper, max.get());
+				}
+			}
+			return max.get();
+		}
+
+		/**
+		 * @return copy of the bucket counters, the bucket <b>k</b> counts values from
+		 * <code>2<sup>k-1</sup></code> to <code>2<sup>k</sup>-1</code>
+		 */
+		public long[] getBuckets()
+		{
+			long[] result = new long[BUCKETS];
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				result[i] = buckets.get(i);
+			}
+			return result;
+		}
+
+		void reset()
+		{
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				buckets.set(i, 0);
+			}
+			count.set(0);
+			sum.set(0);
+			max.set(0);
+		}
+	}
+}
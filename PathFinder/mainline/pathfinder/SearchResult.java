@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.List;
+
+/**
+ * Result of a search with limits. If the path wasn't found, the result contains the
+ * partial path to the node which was estimated to be the closest to the goal, so that
+ * the actor can start moving in the right direction.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ * @see Pathfinder#findPath(IPathHelper, Point, Point, SearchLimits)
+ */
+public class SearchResult<T extends Point>
+{
+	private final SearchStatus status;
+
+	private final List<T> path;
+
+	private final List<T> partialPath;
+
+	private final int steps;
+
+	private final int visited;
+
+	private final long elapsedTime;
+
+	SearchResult(SearchStatus status, List<T> path, List<T> partialPath, int steps, int visited, long elapsedTime)
+	{
+		this.status = status;
+		this.path = path;
+		this.partialPath = partialPath;
+		this.steps = steps;
+		this.visited = visited;
+		this.elapsedTime = elapsedTime;
+	}
+
+	/**
+	 * @return outcome of the search
+	 */
+	public SearchStatus getStatus()
+	{
+		return status;
+	}
+
+	/**
+	 * @return list of points that actor must sequentially walk through to reach goal or 
+	 * <b>null</b> if the path wasn't found
+	 */
+	public List<T> getPath()
+	{
+		return path;
+	}
+
+	/**
+	 * @return the path if it was found, otherwise the path to the expanded node with the
+	 * lowest estimated cost to the goal, empty if it is the start
+	 */
+	public List<T> getPartialPath()
+	{
+		return partialPath;
+	}
+
+	/**
+	 * @return number of expanded nodes
+	 */
+	public int getSteps()
+	{
+		return steps;
+	}
+
+	/**
+	 * @return number of nodes created by the search, expanded and open
+	 */
+	public int getVisited()
+	{
+		return visited;
+	}
+
+	/**
+	 * @return time of the search in nanoseconds
+	 */
+	public long getElapsedTime()
+	{
+		return elapsedTime;
+	}
+}
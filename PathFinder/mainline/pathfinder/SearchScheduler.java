@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Runs many searches within a fixed time budget per tick (for example, per frame). Every 
+ * call of <code>tick</code> runs the searches in round-robin order, each for a slice of
+ * expansions, until the budget is spent or all the searches are finished. The next tick
+ * continues with the search that was next in turn, so all the searches progress evenly.
+ * Finished searches are removed from the scheduler and returned by <code>tick</code>.<br>
+ * The scheduler must be used by one thread.
+ * @author Egor Tsinko
+ * @param <T> type of the point. Must extend java.awt.Point
+ */
+public class SearchScheduler<T extends Point>
+{
+	private final LinkedList<SearchHandle<T>> searches = new LinkedList<SearchHandle<T>>();
+
+	private final int slice;
+
+	/**
+	 * Creates a scheduler which runs every search for 64 expansions in turn
+	 */
+	public SearchScheduler()
+	{
+		this(64);
+	}
+
+	/**
+	 * @param slice number of expansions a search runs before the next one gets its turn
+	 */
+	public SearchScheduler(int slice)
+	{
+		if (slice <= 0)
+		{
+			throw new IllegalArgumentException("Slice must be positive: " + slice);
+		}
+		this.slice = slice;
+	}
+
+	/**
+	 * Adds a search to the end of the queue
+	 * @param search handle of the search
+	 */
+	public void add(SearchHandle<T> search)
+	{
+		searches.add(search);
+	}
+
+	/**
+	 * Removes a search from the scheduler, for example if its result is no longer needed
+	 * @param search handle of the search
+	 * @return true if the search was in the scheduler
+	 */
+	public boolean remove(SearchHandle<T> search)
+	{
+		return searches.remove(search);
+	}
+
+	/**
+	 * Runs the searches for about <b>budget</b> nanoseconds. The time is checked before every
+	 * expansion, so the tick can take longer by the time of one expansion.
+	 * @param budget time in nanoseconds
+	 * @return searches which were finished during this tick
+	 */
+	public List<SearchHandle<T>> tick(long budget)
+	{
+		long deadline = System.nanoTime() + budget;
+		List<SearchHandle<T>> finished = new ArrayList<SearchHandle<T>>();
+		while (!searches.isEmpty() && System.nanoTime() - deadline < 0)
+		{
+			SearchHandle<T> search = searches.removeFirst();
+			if (search.run(slice, deadline, true))
+			{
+				finished.add(search);
+			}
+			else
+			{
+				searches.addLast(search);
+			}
+		}
+		return finished;
+	}
+
+	/**
+	 * @return number of searches which are not finished yet
+	 */
+	public int size()
+	{
+		return searches.size();
+	}
+
+	/**
+	 * @return true if there are no searches left
+	 */
+	public boolean isEmpty()
+	{
+		return searches.isEmpty();
+	}
+}
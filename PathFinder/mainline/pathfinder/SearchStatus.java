@@ -0,0 +1,37 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ *
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder;
+
+/**
+ * Outcome of a search with limits
+ * @author Egor Tsinko
+ * @see SearchResult
+ */
+public enum SearchStatus
+{
+	/** the path to the goal was found */
+	FOUND,
+
+	/** all the reachable nodes were expanded, the path doesn't exist */
+	UNREACHABLE,
+
+	/** a limit was hit or the search was cancelled before the result was known */
+	ABORTED
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder.jfr;
+
+import java.awt.Point;
+
+import pathfinder.ISearchSliceListener;
+import pathfinder.SearchContext;
+import pathfinder.SearchStatus;
+
+/**
+ * Listener which records the searches of a finder as Java Flight Recorder events, so that
+ * slow searches can be seen in the same recording as the garbage collections and the
+ * locks. Usage:<br>
+ * <code>finder.setListener(new JfrSearchListener());</code><br>
+ * The searches are recorded as <code>pathfinder.Search</code> events and the portions of
+ * the searches run through <code>SearchHandle</code> as <code>pathfinder.SearchSlice</code>
+ * events. Only the events longer than the threshold of the recording settings are recorded,
+ * the details of an event are collected only if it is going to be recorded.<br>
+ * The flight recorder is a part of Java 11 and later. The rest of the library doesn't
+ * depend on this package and works without it.
+ * @author Egor Tsinko
+ */
+public class JfrSearchListener implements ISearchSliceListener
+{
+	/**
+	 * Events of a search in progress, attached to its context
+	 */
+	private static class Events
+	{
+		SearchEvent search;
+
+		SearchSliceEvent slice;
+
+		int sliceStartSteps;
+	}
+
+	public void searchStarted(SearchContext<?> ctx)
+	{
+		SearchEvent search = new SearchEvent();
+		if (search.isEnabled())
+		{
+			search.begin();
+		}
+		else
+		{
+			search = null;
+		}
+		Events events = new Events();
+		events.search = search;
+		ctx.setAttachment(events);
+	}
+
+	public void sliceStarted(SearchContext<?> ctx)
+	{
+		Events events = events(ctx);
+		if (events == null)
+		{
+			return;
+		}
+		SearchSliceEvent slice = new SearchSliceEvent();
+		if (slice.isEnabled())
+		{
+			events.slice = slice;
+			events.sliceStartSteps = ctx.getSteps();
+			slice.begin();
+		}
+	}
+
+	public void sliceFinished(SearchContext<?> ctx, boolean finished)
+	{
+		Events events = events(ctx);
+		if (events == null || events.slice == null)
+		{
+			return;
+		}
+		SearchSliceEvent slice = events.slice;
+		events.slice = null;
+		slice.end();
+		if (slice.shouldCommit())
+		{
+			Point start = ctx.getStart();
+			Point goal = ctx.getGoal();
+			slice.startX = start.x;
+			slice.startY = start.y;
+			slice.goalX = goal.x;
+			slice.goalY = goal.y;
+			slice.expansions = ctx.getSteps() - events.sliceStartSteps;
+			slice.finished = finished;
+			slice.commit();
+		}
+	}
+
+	public void searchFinished(SearchContext<?> ctx, SearchStatus status)
+	{
+		Events events = events(ctx);
+		if (events == null || events.search == null)
+		{
+			return;
+		}
+		SearchEvent search = events.search;
+		events.search = null;
+		search.end();
+		if (search.shouldCommit())
+		{
+			Point start = ctx.getStart();
+			Point goal = ctx.getGoal();
+			search.startX = start.x;
+			search.startY = start.y;
+			search.goalX = goal.x;
+			search.goalY = goal.y;
+			search.heuristic = ctx.getHeuristic() == null ? null : ctx.getHeuristic().getClass();
+			search.status = status.name();
+			search.expansions = ctx.getExpandedNodes();
+			search.generatedNodes = ctx.getGeneratedNodes();
+			search.chunkFaults = ctx.getChunkFaults();
+			search.pathLength = status == SearchStatus.FOUND ? ctx.getPathLength() : -1;
+			search.commit();
+		}
+	}
+
+	private static Events events(SearchContext<?> ctx)
+	{
+		Object attachment = ctx.getAttachment();
+		return attachment instanceof Events ? (Events) attachment : null;
+	}
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a single search. The duration of the event is the time from the
+ * start to the end of the search, including the pauses of a search run in portions. By
+ * default only the searches which take longer than 10 ms are recorded, the threshold can
+ * be changed in the recording settings of <code>pathfinder.Search</code>.
+ * @author Egor Tsinko
+ */
+@Name("pathfinder.Search")
+@Label("Path Search")
+@Category("A* Pathfinder")
+@Description("Search of a path from the start to the goal")
+@Threshold("10 ms")
+class SearchEvent extends Event
+{
+	@Label("Start X")
+	int startX;
+
+	@Label("Start Y")
+	int startY;
+
+	@Label("Goal X")
+	int goalX;
+
+	@Label("Goal Y")
+	int goalY;
+
+	@Label("Heuristic")
+	Class<?> heuristic;
+
+	@Label("Status")
+	String status;
+
+	@Label("Expanded Nodes")
+	int expansions;
+
+	@Label("Generated Nodes")
+	int generatedNodes;
+
+	@Label("Chunk Faults")
+	@Description("Number of chunks the search had to wait for")
+	long chunkFaults;
+
+	@Label("Path Length")
+	@Description("Number of steps of the path or -1 if it wasn't found")
+	int pathLength;
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package pathfinder.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight recorder event of a single portion of a search run through a
+ * <code>SearchHandle</code>. It is disabled by default, it can be enabled in the recording
+ * settings of <code>pathfinder.SearchSlice</code>, then the portions which take longer
+ * than 1 ms are recorded.
+ * @author Egor Tsinko
+ */
+@Name("pathfinder.SearchSlice")
+@Label("Path Search Slice")
+@Category("A* Pathfinder")
+@Description("Portion of a search run through a search handle")
+@Enabled(false)
+@Threshold("1 ms")
+class SearchSliceEvent extends Event
+{
+	@Label("Start X")
+	int startX;
+
+	@Label("Start Y")
+	int startY;
+
+	@Label("Goal X")
+	int goalX;
+
+	@Label("Goal Y")
+	int goalY;
+
+	@Label("Expanded Nodes")
+	@Description("Number of nodes expanded in this portion")
+	int expansions;
+
+	@Label("Finished")
+	@Description("True if the search has finished in this portion")
+	boolean finished;
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.AnytimePathfinder;
+import pathfinder.AnytimeResult;
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+import junit.framework.TestCase;
+
+public class AnytimePathfinderTest extends TestCase 
+{
+	private static final double EPSILON = 0.0001;
+
+	private static final long NO_LIMIT = Long.MAX_VALUE / 2;
+
+	public void testFixtures()
+	{
+		AnytimePathfinder<Point> finder = new AnytimePathfinder<Point>();
+		AnytimeResult<Point> result = finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h1), 
+				new Point(0,0), new Point(6,6), NO_LIMIT);
+		assertTrue(result.isOptimal());
+		assertEquals(19, result.getPath().size());
+
+		result = finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h5), 
+				new Point(0,0), new Point(2,2), NO_LIMIT);
+		assertFalse(result.isFound());
+
+		result = finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h4), 
+				new Point(1,1), new Point(1,1), NO_LIMIT);
+		assertTrue(result.getPath().isEmpty());
+	}
+
+	public void testBounds()
+	{
+		Random random = new Random(21);
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		AnytimePathfinder<Point> finder = new AnytimePathfinder<Point>();
+		finder.setInitialWeight(4.0);
+		for (int m = 0; m < 10; m++)
+		{
+			ArrayGridMap map = TestUtils.randomMap(random, 40, 3, 4);
+			GridPathHelper helper = new GridPathHelper(map);
+			Point start = new Point(random.nextInt(40), random.nextInt(40));
+			Point goal = new Point(random.nextInt(40), random.nextInt(40));
+			map.setCost(start.x, start.y, 1);
+			map.setCost(goal.x, goal.y, 1);
+			List<Point> expected = dijkstra.findPath(helper, start, goal);
+
+			AnytimeResult<Point> result = finder.findPath(helper, start, goal, NO_LIMIT, 2.0);
+			if (expected == null)
+			{
+				assertFalse(result.isFound());
+				continue;
+			}
+			double optimal = TestUtils.pathCost(helper, start, expected);
+			assertTrue(result.getBound() <= 2.0);
+			assertEquals(result.getCost(), TestUtils.pathCost(helper, start, result.getPath()), EPSILON);
+			assertTrue(result.getCost() <= result.getBound() * optimal + EPSILON);
+
+			result = finder.findPath(helper, start, goal, NO_LIMIT);
+			assertTrue(result.isOptimal());
+			assertEquals(optimal, result.getCost(), EPSILON);
+			assertEquals(optimal, TestUtils.pathCost(helper, start, result.getPath()), EPSILON);
+		}
+	}
+
+	public void testDeadline()
+	{
+		ArrayGridMap map = TestUtils.randomMap(new Random(4), 200, 3, 4);
+		map.setCost(0, 0, 1);
+		map.setCost(199, 199, 1);
+		GridPathHelper helper = new GridPathHelper(map);
+		AnytimePathfinder<Point> finder = new AnytimePathfinder<Point>();
+		AnytimeResult<Point> result = finder.findPath(helper, new Point(0,0), new Point(199,199), 0);
+		assertFalse(result.isFound());
+		assertEquals(0, result.getIterations());
+		assertTrue(result.getSteps() <= 64);
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import pathfinder.BatchPathfinder;
+import pathfinder.BatchResult;
+import pathfinder.PathQuery;
+import pathfinder.Pathfinder;
+import junit.framework.TestCase;
+
+public class BatchPathfinderTest extends TestCase 
+{
+	public void testResultsInInputOrder() throws InterruptedException
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		BatchPathfinder<Point> batch = new BatchPathfinder<Point>(finder, 3);
+		List<PathQuery<Point>> queries = new ArrayList<PathQuery<Point>>();
+		for (int i = 0; i < 50; i++)
+		{
+			queries.add(new PathQuery<Point>(new Point(0,0), new Point(6,6)));
+			queries.add(new PathQuery<Point>(new Point(6,6), new Point(6,6)));
+			queries.add(new PathQuery<Point>(new Point(0,0), new Point(0,2)));
+		}
+		BatchResult<Point> result = batch.findPaths(new TestUtils.LevelHelper(PathFinderTest.h1), queries);
+		batch.shutdown();
+
+		assertTrue(result.size() == queries.size());
+		for (int i = 0; i < queries.size(); i += 3)
+		{
+			assertTrue(result.getPath(i).size() == 19);
+			assertTrue(result.getPath(i + 1).isEmpty());
+			assertTrue(result.getPath(i + 2).size() == 2);
+		}
+		assertTrue(result.getLatencyPercentile(0.5) <= result.getLatencyPercentile(0.99));
+		assertTrue(result.getLatencyPercentile(0.99) <= result.getMaxLatency());
+		assertTrue(result.getThroughput() > 0);
+	}
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.BidirectionalPathfinder;
+import pathfinder.GridPathHelper;
+import pathfinder.IReversiblePathHelper;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalEqual;
+import junit.framework.TestCase;
+
+public class BidirectionalPathfinderTest extends TestCase 
+{
+	private static final double EPSILON = 0.0001;
+
+	private static class ReversibleHelper extends TestUtils.LevelHelper implements IReversiblePathHelper<Point>
+	{
+		ReversibleHelper(int[][] level)
+		{
+			super(level);
+		}
+
+		public List<Point> getPredecessors(Point point)
+		{
+			return getNeighbours(point);
+		}
+	}
+
+	private void assertOptimal(IReversiblePathHelper<Point> helper, BidirectionalPathfinder<Point> finder,
+			Point start, Point goal)
+	{
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		List<Point> expected = dijkstra.findPath(helper, start, goal);
+		List<Point> path = finder.findPath(helper, start, goal);
+		if (expected == null)
+		{
+			assertNull(path);
+			return;
+		}
+		assertNotNull(path);
+		assertTrue(path.isEmpty() || path.get(path.size() - 1).equals(goal));
+		assertEquals(TestUtils.pathCost(helper, start, expected), TestUtils.pathCost(helper, start, path), EPSILON);
+		assertEquals(TestUtils.pathCost(helper, start, expected), finder.getPathCost(), EPSILON);
+	}
+
+	public void testStartIsGoal()
+	{
+		BidirectionalPathfinder<Point> finder = new BidirectionalPathfinder<Point>();
+		ReversibleHelper helper = new ReversibleHelper(PathFinderTest.h1);
+		//A previous search leaves its cost behind
+		finder.findPath(helper, new Point(0,0), new Point(6,6));
+		List<Point> path = finder.findPath(helper, new Point(2,2), new Point(2,2));
+		assertTrue(path.isEmpty());
+		assertEquals(0.0, finder.getPathCost(), EPSILON);
+		assertEquals(0, finder.getSteps());
+	}
+
+	public void testFixtures()
+	{
+		BidirectionalPathfinder<Point> finder = new BidirectionalPathfinder<Point>();
+		finder.setHeuristic(new DiagonalEqual<Point>());
+		assertOptimal(new ReversibleHelper(PathFinderTest.h1), finder, new Point(0,0), new Point(6,6));
+		assertOptimal(new ReversibleHelper(PathFinderTest.h2), finder, new Point(0,0), new Point(6,6));
+		assertOptimal(new ReversibleHelper(PathFinderTest.h3), finder, new Point(0,0), new Point(6,6));
+		assertOptimal(new ReversibleHelper(PathFinderTest.h4), finder, new Point(0,0), new Point(3,3));
+		assertOptimal(new ReversibleHelper(PathFinderTest.h5), finder, new Point(0,0), new Point(2,2));
+		assertOptimal(new ReversibleHelper(PathFinderTest.h4), finder, new Point(1,1), new Point(1,1));
+	}
+
+	public void testRandomMaps()
+	{
+		Random random = new Random(7);
+		BidirectionalPathfinder<Point> finder = new BidirectionalPathfinder<Point>();
+		for (int m = 0; m < 10; m++)
+		{
+			ArrayGridMap map = TestUtils.randomMap(random, 30, 3, 3);
+			GridPathHelper helper = new GridPathHelper(map);
+			for (int q = 0; q < 10; q++)
+			{
+				Point start = new Point(random.nextInt(30), random.nextInt(30));
+				Point goal = new Point(random.nextInt(30), random.nextInt(30));
+				map.setCost(start.x, start.y, 1);
+				map.setCost(goal.x, goal.y, 1);
+				assertOptimal(helper, finder, start, goal);
+			}
+		}
+	}
+}
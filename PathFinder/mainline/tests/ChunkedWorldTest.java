@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.ChunkedPathHelper;
+import pathfinder.ChunkedWorld;
+import pathfinder.GridChunkStore;
+import pathfinder.GridPathHelper;
+import pathfinder.IChunkStore;
+import pathfinder.Pathfinder;
+import benchmarks.MapGenerator;
+import junit.framework.TestCase;
+
+public class ChunkedWorldTest extends TestCase 
+{
+	ArrayGridMap map;
+
+	Pathfinder<Point> finder;
+
+	public void setUp()
+	{
+		map = MapGenerator.rooms(200, 3);
+		finder = new Pathfinder<Point>();
+	}
+
+	public void testSamePaths()
+	{
+		//The map isn't a multiple of the chunk size
+		ChunkedWorld world = new ChunkedWorld(new GridChunkStore(map, 24), 6);
+		ChunkedPathHelper chunked = new ChunkedPathHelper(world);
+		GridPathHelper plain = new GridPathHelper(map);
+		for (Point[] query : MapGenerator.randomQueries(map, 20, 3))
+		{
+			List<Point> expected = finder.findPath(plain, query[0], query[1]);
+			assertEquals(0, finder.getSearchContext().getChunkFaults());
+			assertEquals(expected, finder.findPath(chunked, query[0], query[1]));
+			assertTrue(world.getResidentChunks() <= 6);
+		}
+		assertEquals(map.getCost(199, 199), world.getCost(199, 199));
+	}
+
+	public void testChunkFaults()
+	{
+		ChunkedWorld world = new ChunkedWorld(new GridChunkStore(map, 32), 64);
+		ChunkedPathHelper helper = new ChunkedPathHelper(world);
+		Point[] query = MapGenerator.randomQueries(map, 1, 11)[0];
+		finder.findPath(helper, query[0], query[1]);
+		long faults = finder.getSearchContext().getChunkFaults();
+		assertTrue(faults > 0);
+		assertEquals(faults, world.getLoadedChunks());
+		assertEquals(faults, world.getChunkFaults());
+
+		//Everything is in memory now
+		finder.findPath(helper, query[0], query[1]);
+		assertEquals(0, finder.getSearchContext().getChunkFaults());
+		assertEquals(faults, world.getLoadedChunks());
+
+		//A single chunk is evicted all the time
+		world = new ChunkedWorld(new GridChunkStore(map, 32), 1);
+		helper = new ChunkedPathHelper(world);
+		finder.findPath(helper, query[0], query[1]);
+		assertTrue(finder.getSearchContext().getChunkFaults() >= faults);
+		assertEquals(1, world.getResidentChunks());
+	}
+
+	public void testPrefetch() throws InterruptedException
+	{
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try
+		{
+			ChunkedWorld world = new ChunkedWorld(new GridChunkStore(map, 20), 100, executor);
+			world.prefetch(0, 0, 199, 199);
+			executor.shutdown();
+			assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+			//The diagonal of 10x10 chunks
+			assertEquals(10, world.getPrefetchedChunks());
+			assertEquals(10, world.getResidentChunks());
+			long faults = world.getChunkFaults();
+			for (int i = 0; i < 200; i += 20)
+			{
+				world.getCost(i, i);
+			}
+			assertEquals(faults, world.getChunkFaults());
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	public void testQueuedPrefetch()
+	{
+		//The prefetcher never gets to the queued loads
+		final List<Runnable> queue = new ArrayList<Runnable>();
+		Executor stalled = new Executor()
+		{
+			public void execute(Runnable command)
+			{
+				queue.add(command);
+			}
+		};
+		ChunkedWorld world = new ChunkedWorld(new GridChunkStore(map, 20), 100, stalled);
+		world.prefetch(0, 0, 199, 199);
+		assertEquals(10, queue.size());
+		assertEquals(0, world.getResidentChunks());
+
+		//The search loads the chunk itself instead of waiting and counts the fault
+		assertEquals(map.getCost(100, 100), world.getCost(100, 100));
+		assertEquals(1, world.getChunkFaults());
+		assertEquals(1, world.getLoadedChunks());
+
+		//The late prefetch of the same chunk does nothing
+		for (Runnable task : queue)
+		{
+			task.run();
+		}
+		assertEquals(10, world.getLoadedChunks());
+		assertEquals(1, world.getChunkFaults());
+	}
+
+	public void testFailedLoad()
+	{
+		final int[] failures = {1};
+		IChunkStore store = new GridChunkStore(map, 50)
+		{
+			public int[] loadChunk(int cx, int cy)
+			{
+				if (failures[0] > 0)
+				{
+					failures[0]--;
+					throw new IllegalStateException("disk error");
+				}
+				return super.loadChunk(cx, cy);
+			}
+		};
+		ChunkedWorld world = new ChunkedWorld(store, 4);
+		try
+		{
+			world.getCost(0, 0);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+		}
+		//The load is tried again
+		assertEquals(map.getCost(0, 0), world.getCost(0, 0));
+	}
+
+	public void testStoreOutsideWorld() throws IOException
+	{
+		int[] chunk = new GridChunkStore(map, 64).loadChunk(3, 3);
+		assertEquals(map.getCost(192, 192), chunk[0]);
+		assertEquals(-1, chunk[8]);
+	}
+}
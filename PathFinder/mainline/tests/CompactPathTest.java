@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+
+import pathfinder.AbstractNeighbourHelper;
+import pathfinder.ArrayGridMap;
+import pathfinder.CompactPath;
+import pathfinder.GridPathHelper;
+import pathfinder.INeighbourSink;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalNotEqual;
+import junit.framework.TestCase;
+
+public class CompactPathTest extends TestCase 
+{
+	Pathfinder<Point> finder;
+
+	/** point type of <code>CellHelper</code> */
+	private static class Cell extends Point
+	{
+		private static final long serialVersionUID = 1L;
+
+		Cell(int x, int y)
+		{
+			super(x, y);
+		}
+	}
+
+	/** moves on a grid map with its own point type and counts the created points */
+	private static class CellHelper extends AbstractNeighbourHelper<Cell>
+	{
+		private final GridPathHelper grid;
+
+		int createdPoints = 0;
+
+		CellHelper(ArrayGridMap map)
+		{
+			this.grid = new GridPathHelper(map);
+		}
+
+		public void getNeighbours(Cell point, INeighbourSink sink)
+		{
+			grid.getNeighbours(point, sink);
+		}
+
+		public Cell createPoint(int x, int y)
+		{
+			createdPoints++;
+			return new Cell(x, y);
+		}
+	}
+
+	public void setUp()
+	{
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+	}
+
+	public void testSameAsList()
+	{
+		TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h2);
+		List<Point> expected = finder.findPath(helper, new Point(0,0), new Point(6,6));
+		CompactPath<Point> path = finder.findCompactPath(helper, new Point(0,0), new Point(6,6));
+		assertEquals(expected.size(), path.size());
+		assertEquals(expected, path.asList());
+		double cost = 0;
+		Point prev = new Point(0,0);
+		for (int i = 0; i < path.size(); i++)
+		{
+			assertEquals(expected.get(i).x, path.getX(i));
+			assertEquals(expected.get(i).y, path.getY(i));
+			cost += helper.getCost(prev, expected.get(i));
+			assertEquals(cost, path.getCost(i), 0.0001);
+			prev = expected.get(i);
+		}
+		assertEquals(cost, path.getTotalCost(), 0.0001);
+	}
+
+	public void testFailedAndEmpty()
+	{
+		assertNull(finder.findCompactPath(new TestUtils.LevelHelper(PathFinderTest.h5), new Point(0,0), new Point(2,2)));
+		CompactPath<Point> path = finder.findCompactPath(new TestUtils.LevelHelper(PathFinderTest.h4), 
+				new Point(1,1), new Point(1,1));
+		assertEquals(0, path.size());
+		assertEquals(0.0, path.getTotalCost(), 0.0);
+		assertEquals(0, path.encodeDirections().length);
+	}
+
+	public void testDirections()
+	{
+		CompactPath<Point> path = finder.findCompactPath(new TestUtils.LevelHelper(PathFinderTest.h1), 
+				new Point(0,0), new Point(6,6));
+		byte[] runs = path.encodeDirections();
+		//the maze path has 19 steps in 8 straight segments
+		assertTrue(runs.length < path.size() * 2);
+		long[] steps = CompactPath.decodeDirections(path.getStartX(), path.getStartY(), runs);
+		assertEquals(path.size(), steps.length);
+		for (int i = 0; i < steps.length; i++)
+		{
+			assertEquals(path.getPacked(i), steps[i]);
+		}
+
+		try
+		{
+			CompactPath.decodeDirections(0, 0, new byte[] {9, 1});
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+
+	public void testLongRuns()
+	{
+		ArrayGridMap map = new ArrayGridMap(301, 1);
+		for (int x = 0; x < 301; x++)
+		{
+			map.setCost(x, 0, 1);
+		}
+		Pathfinder<Point> gridFinder = new Pathfinder<Point>();
+		CompactPath<Point> path = gridFinder.findCompactPath(new GridPathHelper(map), new Point(0,0), new Point(300,0));
+		//300 moves east: runs of 255 and 45
+		byte[] runs = path.encodeDirections();
+		assertEquals(4, runs.length);
+		assertEquals(45, runs[3]);
+		long[] steps = CompactPath.decodeDirections(0, 0, runs);
+		assertEquals(300, steps.length);
+		assertEquals(path.getPacked(299), steps[299]);
+	}
+
+	public void testPointsCreatedOnRead()
+	{
+		ArrayGridMap map = new ArrayGridMap(20, 20);
+		CellHelper helper = new CellHelper(map);
+		CompactPath<Cell> path = new Pathfinder<Cell>().findCompactPath(helper, new Cell(0,0), new Cell(19,10));
+		assertEquals(19, path.size());
+		int created = helper.createdPoints;
+		//The path keeps only the coordinates, a point is created by every read
+		List<Cell> list = path.asList();
+		assertEquals(created, helper.createdPoints);
+		Cell last = list.get(18);
+		assertEquals(new Point(19,10), last);
+		assertTrue(last != path.getPoint(18));
+		assertEquals(created + 2, helper.createdPoints);
+	}
+}
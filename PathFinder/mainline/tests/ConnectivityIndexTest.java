@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.ConnectedGridPathHelper;
+import pathfinder.ConnectivityIndex;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+import pathfinder.SearchLimits;
+import pathfinder.SearchResult;
+import pathfinder.SearchStatus;
+import pathfinder.heuristics.DiagonalNotEqual;
+import benchmarks.MapGenerator;
+import junit.framework.TestCase;
+
+public class ConnectivityIndexTest extends TestCase 
+{
+	Pathfinder<Point> finder;
+
+	public void setUp()
+	{
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+	}
+
+	/**
+	 * Converts a map of <code>PathFinderTest</code>, where 99 is a wall
+	 */
+	static ArrayGridMap toMap(int[][] level)
+	{
+		ArrayGridMap map = new ArrayGridMap(level.length, level[0].length);
+		for (int x = 0; x < level.length; x++)
+		{
+			for (int y = 0; y < level[0].length; y++)
+			{
+				map.setCost(x, y, level[x][y] == 99 ? -1 : level[x][y]);
+			}
+		}
+		return map;
+	}
+
+	public void testFailedSearches()
+	{
+		ConnectedGridPathHelper helper = new ConnectedGridPathHelper(toMap(PathFinderTest.h3));
+		assertNull(finder.findPath(helper, new Point(0,0), new Point(6,6)));
+		//The whole area of the start was searched before
+		assertEquals(0, finder.getSteps());
+		assertNotNull(finder.findPath(helper, new Point(0,0), new Point(4,1)));
+
+		helper = new ConnectedGridPathHelper(toMap(PathFinderTest.h5));
+		assertNull(finder.findPath(helper, new Point(0,0), new Point(2,2)));
+		assertEquals(0, finder.getSteps());
+		assertNull(finder.findCompactPath(helper, new Point(0,0), new Point(2,2)));
+		SearchResult<Point> result = finder.findPath(helper, new Point(0,0), new Point(2,2), new SearchLimits());
+		assertEquals(SearchStatus.UNREACHABLE, result.getStatus());
+		assertTrue(result.getPartialPath().isEmpty());
+		assertTrue(finder.startSearch(helper, new Point(0,0), new Point(2,2)).step(1));
+	}
+
+	public void testWalls()
+	{
+		ArrayGridMap map = new ArrayGridMap(5, 5);
+		ConnectivityIndex index = new ConnectivityIndex(map);
+		assertTrue(index.isConnected(0, 0, 4, 4));
+		assertFalse(index.isConnected(0, 0, 5, 4));
+
+		//Cut the map with a vertical wall
+		for (int y = 0; y < 5; y++)
+		{
+			map.setCost(2, y, -1);
+			index.cellChanged(2, y);
+		}
+		assertFalse(index.isConnected(2, 0, 2, 0));
+		//Only the last cell could split the map
+		assertEquals(1, index.getPossibleSplits());
+		assertTrue(index.isConnected(0, 0, 4, 4));
+		index.rebuild();
+		assertEquals(0, index.getPossibleSplits());
+		assertFalse(index.isConnected(0, 0, 4, 4));
+		assertTrue(index.getComponent(0, 0) != index.getComponent(4, 4));
+		assertEquals(-1, index.getComponent(2, 2));
+		assertEquals(-1, index.getComponent(-1, 0));
+		assertEquals(-1, index.getComponent(0, 5));
+
+		//A door merges the areas again, diagonal moves are allowed
+		map.setCost(2, 3, 1);
+		index.cellChanged(2, 3);
+		assertTrue(index.isConnected(0, 0, 4, 4));
+		assertEquals(index.getComponent(1, 4), index.getComponent(3, 2));
+
+		//Closing the door and opening it again doesn't lose anything
+		map.setCost(2, 3, -1);
+		index.cellChanged(2, 3);
+		map.setCost(2, 3, 1);
+		index.cellChanged(2, 3);
+		assertTrue(index.isConnected(0, 0, 4, 4));
+	}
+
+	public void testConcurrentQueries() throws InterruptedException
+	{
+		final ArrayGridMap map = MapGenerator.randomObstacles(40, 0.3, 3);
+		//The top row is never changed, so its ends always stay connected
+		for (int x = 0; x < 40; x++)
+		{
+			map.setCost(x, 0, 1);
+		}
+		final ConnectivityIndex index = new ConnectivityIndex(map);
+		final AtomicInteger failures = new AtomicInteger();
+		final AtomicBoolean done = new AtomicBoolean();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					while (!done.get())
+					{
+						if (!index.isConnected(0, 0, 39, 0) || index.getComponent(20, 0) < 0)
+						{
+							failures.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		Random random = new Random(3);
+		for (int i = 0; i < 20000; i++)
+		{
+			int x = random.nextInt(40);
+			int y = 1 + random.nextInt(39);
+			map.setCost(x, y, map.getCost(x, y) < 0 ? 1 : -1);
+			index.cellChanged(x, y);
+			if (i % 2000 == 1999)
+			{
+				index.rebuild();
+			}
+		}
+		done.set(true);
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertEquals(0, failures.get());
+	}
+
+	public void testAgainstSearch()
+	{
+		ArrayGridMap map = MapGenerator.randomObstacles(40, 0.4, 9);
+		ConnectedGridPathHelper connected = new ConnectedGridPathHelper(map);
+		GridPathHelper plain = new GridPathHelper(map);
+		Random random = new Random(9);
+		for (int round = 0; round < 20; round++)
+		{
+			for (int i = 0; i < 30; i++)
+			{
+				int x = random.nextInt(40);
+				int y = random.nextInt(40);
+				map.setCost(x, y, map.getCost(x, y) < 0 ? 1 : -1);
+				connected.getIndex().cellChanged(x, y);
+			}
+			if (round % 5 == 4)
+			{
+				connected.getIndex().rebuild();
+			}
+			boolean exact = connected.getIndex().getPossibleSplits() == 0;
+			for (Point[] query : MapGenerator.randomQueries(map, 20, round))
+			{
+				boolean reachable = finder.findPath(plain, query[0], query[1]) != null;
+				boolean indexed = connected.getIndex().isConnected(query[0].x, query[0].y, query[1].x, query[1].y);
+				//Never rejects a reachable goal
+				assertTrue(!reachable || indexed);
+				if (exact)
+				{
+					assertEquals(reachable, indexed);
+				}
+				assertEquals(reachable, finder.findPath(connected, query[0], query[1]) != null);
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.FlowField;
+import pathfinder.GridPathHelper;
+import pathfinder.IPathHelper;
+import pathfinder.Pathfinder;
+import junit.framework.TestCase;
+
+public class FlowFieldTest extends TestCase 
+{
+	private static final double EPSILON = 0.0001;
+
+	public void testFixtures()
+	{
+		IPathHelper<Point> helper = new TestUtils.LevelHelper(PathFinderTest.h3);
+		Point goal = new Point(6, 6);
+		FlowField<Point> field = new FlowField<Point>(helper, goal);
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		for (int x = 0; x < 7; x++)
+		{
+			for (int y = 0; y < 7; y++)
+			{
+				Point start = new Point(x, y);
+				List<Point> expected = dijkstra.findPath(helper, start, goal);
+				List<Point> path = field.getPath(start);
+				if (PathFinderTest.h3[x][y] == 99 || expected == null)
+				{
+					assertFalse(PathFinderTest.h3[x][y] != 99 && field.isReachable(start));
+					continue;
+				}
+				assertEquals(TestUtils.pathCost(helper, start, expected), TestUtils.pathCost(helper, start, path), EPSILON);
+				assertEquals(TestUtils.pathCost(helper, start, expected), field.getDistance(start), EPSILON);
+			}
+		}
+		assertTrue(field.isComplete());
+		assertNull(field.getNextStep(goal));
+		assertEquals(0.0, field.getDistance(goal), EPSILON);
+	}
+
+	public void testLazyExpansion()
+	{
+		ArrayGridMap map = new ArrayGridMap(50, 50);
+		Random random = new Random(11);
+		for (int i = 0; i < 2500; i++)
+		{
+			map.getCosts()[i] = random.nextInt(10) < 2 ? -1 : 1;
+		}
+		Point goal = new Point(25, 25);
+		map.setCost(goal.x, goal.y, 1);
+		map.setCost(26, 26, 1);
+		GridPathHelper helper = new GridPathHelper(map);
+		FlowField<Point> field = new FlowField<Point>(helper, goal);
+		assertEquals(goal, field.getNextStep(new Point(26, 26)));
+		assertTrue(field.getSteps() < 20);
+		assertFalse(field.isComplete());
+
+		//every step of the field is optimal and leads to the goal
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		for (int q = 0; q < 30; q++)
+		{
+			Point start = new Point(random.nextInt(50), random.nextInt(50));
+			if (map.getCost(start.x, start.y) < 0)
+			{
+				continue;
+			}
+			List<Point> expected = dijkstra.findPath(helper, start, goal);
+			Point next = field.getNextStep(start);
+			if (expected == null)
+			{
+				assertNull(next);
+				continue;
+			}
+			if (!start.equals(goal))
+			{
+				assertEquals(TestUtils.pathCost(helper, start, expected), 
+						helper.getCost(start, next) + field.getDistance(next), EPSILON);
+			}
+		}
+		field.expandAll();
+		assertTrue(field.isComplete());
+	}
+}
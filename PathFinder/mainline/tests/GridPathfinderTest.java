@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathfinder;
+import pathfinder.Pathfinder;
+import benchmarks.MapGenerator;
+import benchmarks.PathfinderBenchmark;
+import junit.framework.TestCase;
+
+public class GridPathfinderTest extends TestCase 
+{
+	private static final int NP = 99;
+
+	/**
+	 * Converts the level from <code>PathFinderTest</code> to the flat cost array
+	 */
+	static int[] toCosts(int[][] level)
+	{
+		int width = level.length;
+		int height = level[0].length;
+		int[] costs = new int[width * height];
+		for (int x = 0; x < width; x++)
+		{
+			for (int y = 0; y < height; y++)
+			{
+				costs[y * width + x] = (level[x][y] == NP) ? GridPathfinder.BLOCKED : level[x][y];
+			}
+		}
+		return costs;
+	}
+
+	private void assertSameAsPathfinder(int[][] level, Point start, Point goal)
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		List<Point> expected = finder.findPath(new TestUtils.LevelHelper(level), start, goal);
+
+		GridPathfinder gridFinder = new GridPathfinder(level.length, level[0].length, toCosts(level));
+		int length = gridFinder.findPath(start.x, start.y, goal.x, goal.y);
+		if (expected == null)
+		{
+			assertTrue(length == -1);
+		}
+		else
+		{
+			assertTrue(length == expected.size());
+			for (int i = 0; i < length; i++)
+			{
+				assertTrue(expected.get(i).equals(new Point(gridFinder.getPathX(i), gridFinder.getPathY(i))));
+			}
+		}
+		assertTrue(gridFinder.getSteps() == finder.getSteps());
+	}
+
+	public void testSameAsPathfinder()
+	{
+		assertSameAsPathfinder(PathFinderTest.h1, new Point(0,0), new Point(6,6));
+		assertSameAsPathfinder(PathFinderTest.h2, new Point(0,0), new Point(6,6));
+		assertSameAsPathfinder(PathFinderTest.h3, new Point(0,0), new Point(6,6));
+		assertSameAsPathfinder(PathFinderTest.h4, new Point(0,0), new Point(3,3));
+		assertSameAsPathfinder(PathFinderTest.h5, new Point(0,0), new Point(2,2));
+	}
+
+	public void testReuse()
+	{
+		GridPathfinder finder = new GridPathfinder(7, 7, toCosts(PathFinderTest.h1));
+		assertTrue(finder.findPath(0, 0, 6, 6) == 19);
+		assertTrue(finder.findPath(0, 0, 0, 0) == 0);
+		assertTrue(finder.findPath(6, 6, 0, 0) == 19);
+		assertTrue(finder.getPathX(18) == 0 && finder.getPathY(18) == 0);
+		assertTrue(finder.findPath(0, 0, 6, 6) == 19);
+	}
+
+	public void testGetGVal()
+	{
+		GridPathfinder finder = new GridPathfinder(3, 3, toCosts(PathFinderTest.h6));
+		finder.findPath(0, 0, 2, 2);
+		assertTrue(finder.getGVal(1, 1) == PathFinderTest.h6[1][1]);
+		assertTrue(finder.getGVal(2, 2) == PathFinderTest.h6[1][1] + PathFinderTest.h6[2][2]);
+	}
+
+	public void testNoGarbage()
+	{
+		ArrayGridMap map = MapGenerator.rooms(100, 3);
+		GridPathfinder finder = new GridPathfinder(100, 100, map.getCosts());
+		Point[][] queries = MapGenerator.randomQueries(map, 20, 3);
+		for (Point[] query : queries)
+		{
+			finder.findPath(query[0].x, query[0].y, query[1].x, query[1].y);
+		}
+		long before = PathfinderBenchmark.allocatedBytes();
+		if (before == -1)
+		{
+			//The JVM can't count the allocations
+			return;
+		}
+		//The counter allocates a bit by itself
+		long overhead = PathfinderBenchmark.allocatedBytes() - before;
+		int steps = 0;
+		before = PathfinderBenchmark.allocatedBytes();
+		for (int round = 0; round < 10; round++)
+		{
+			for (Point[] query : queries)
+			{
+				assertTrue(finder.findPath(query[0].x, query[0].y, query[1].x, query[1].y) >= 0);
+				steps += finder.getSteps();
+			}
+		}
+		long allocated = PathfinderBenchmark.allocatedBytes() - before - overhead;
+		//Even one small object per search would be seen, let alone one per expanded node
+		assertTrue(steps > 10000);
+		assertTrue("allocated " + allocated + " bytes in " + steps + " steps", allocated < 200 * 16);
+	}
+}
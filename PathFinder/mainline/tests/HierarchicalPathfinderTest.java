@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.HierarchicalPathfinder;
+import pathfinder.Pathfinder;
+import benchmarks.MapGenerator;
+import junit.framework.TestCase;
+
+public class HierarchicalPathfinderTest extends TestCase 
+{
+	/**
+	 * Map with vertical walls every 10 columns, each wall has a gap at alternating ends
+	 */
+	private static ArrayGridMap createMap()
+	{
+		ArrayGridMap map = new ArrayGridMap(60, 40);
+		for (int x = 9; x < 60; x += 10)
+		{
+			boolean gapAtTop = (x / 10) % 2 == 0;
+			for (int y = 0; y < 40; y++)
+			{
+				if (gapAtTop ? y > 3 : y < 36)
+				{
+					map.setCost(x, y, -1);
+				}
+			}
+		}
+		return map;
+	}
+
+	private static double pathCost(GridPathHelper helper, Point start, List<Point> path)
+	{
+		double cost = 0;
+		Point prev = start;
+		for (Point p : path)
+		{
+			assertTrue(Math.abs(p.x - prev.x) <= 1 && Math.abs(p.y - prev.y) <= 1);
+			assertTrue(helper.getMap().getCost(p.x, p.y) >= 0);
+			cost += helper.getCost(prev, p);
+			prev = p;
+		}
+		return cost;
+	}
+
+	public void testNearOptimalPath()
+	{
+		ArrayGridMap map = createMap();
+		GridPathHelper helper = new GridPathHelper(map);
+		HierarchicalPathfinder hpa = new HierarchicalPathfinder(map, 8);
+		Point start = new Point(0, 20);
+		Point goal = new Point(58, 20);
+
+		List<Point> path = hpa.findPath(start, goal);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		List<Point> optimal = finder.findPath(helper, start, goal);
+		assertNotNull(path);
+		assertTrue(path.get(path.size() - 1).equals(goal));
+		double cost = pathCost(helper, start, path);
+		double optimalCost = pathCost(helper, start, optimal);
+		assertTrue(cost >= optimalCost - 0.001);
+		assertTrue(cost <= optimalCost * 1.2);
+		//The abstract graph is much smaller than the map
+		assertTrue(hpa.getAbstractSteps() * 4 < finder.getSteps());
+	}
+
+	public void testSameCluster()
+	{
+		ArrayGridMap map = createMap();
+		HierarchicalPathfinder hpa = new HierarchicalPathfinder(map, 8);
+		List<Point> path = hpa.findPath(new Point(1, 1), new Point(3, 3));
+		assertTrue(path.size() == 2);
+		assertTrue(hpa.findPath(new Point(1, 1), new Point(1, 1)).isEmpty());
+		assertNull(hpa.findPath(new Point(1, 1), new Point(9, 20)));
+	}
+
+	public void testIncrementalUpdate()
+	{
+		ArrayGridMap map = createMap();
+		HierarchicalPathfinder hpa = new HierarchicalPathfinder(map, 8);
+		Point start = new Point(0, 20);
+		Point goal = new Point(15, 20);
+		assertNotNull(hpa.findPath(start, goal));
+
+		//Close the gap of the first wall
+		for (int y = 0; y < 4; y++)
+		{
+			map.setCost(9, y, -1);
+			hpa.cellChanged(9, y);
+		}
+		int rebuilt = hpa.update();
+		//Only the clusters around the gap are rebuilt
+		assertTrue(rebuilt > 0 && rebuilt <= 6);
+		assertNull(hpa.findPath(start, goal));
+
+		//Open a door in the middle of the wall
+		map.setCost(9, 20, 1);
+		hpa.cellChanged(9, 20);
+		hpa.update();
+		List<Point> path = hpa.findPath(start, goal);
+		assertNotNull(path);
+		assertTrue(path.contains(new Point(9, 20)));
+	}
+
+	public void testDiagonalCrossings()
+	{
+		//Only diagonal moves connect the clusters, one of them through the corner of four
+		int[] costs = {1,1,-1,-1, 1,1,-1,-1, -1,-1,1,1, -1,-1,1,1};
+		ArrayGridMap map = new ArrayGridMap(4, 4);
+		System.arraycopy(costs, 0, map.getCosts(), 0, costs.length);
+		HierarchicalPathfinder hpa = new HierarchicalPathfinder(map, 2);
+		List<Point> expected = new Pathfinder<Point>().findPath(new GridPathHelper(map), new Point(0,0), new Point(3,3));
+		assertNotNull(expected);
+		List<Point> path = hpa.findPath(new Point(0,0), new Point(3,3));
+		assertNotNull(path);
+		assertEquals(expected.size(), path.size());
+
+		//Diagonal moves across the borders between the corners
+		map = new ArrayGridMap(6, 6);
+		for (int x = 0; x < 6; x++)
+		{
+			for (int y = 0; y < 6; y++)
+			{
+				map.setCost(x, y, x == y ? 1 : -1);
+			}
+		}
+		hpa = new HierarchicalPathfinder(map, 3);
+		assertNotNull(hpa.findPath(new Point(0,0), new Point(5,5)));
+		assertNotNull(hpa.findPath(new Point(5,5), new Point(0,0)));
+	}
+
+	public void testRandomMaps()
+	{
+		Random random = new Random(17);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		for (int m = 0; m < 40; m++)
+		{
+			ArrayGridMap map = TestUtils.randomUniformMap(random, 24, 20, 0.25 + (m % 8) * 0.03);
+			GridPathHelper helper = new GridPathHelper(map);
+			HierarchicalPathfinder hpa = new HierarchicalPathfinder(map, 2 + m % 5);
+			for (int q = 0; q < 20; q++)
+			{
+				Point start = new Point(random.nextInt(24), random.nextInt(20));
+				Point goal = new Point(random.nextInt(24), random.nextInt(20));
+				if (map.getCost(start.x, start.y) < 0 || map.getCost(goal.x, goal.y) < 0)
+				{
+					continue;
+				}
+				List<Point> optimal = finder.findPath(helper, start, goal);
+				List<Point> path = hpa.findPath(start, goal);
+				assertEquals(optimal == null, path == null);
+				if (path != null && !path.isEmpty())
+				{
+					pathCost(helper, start, path);
+					assertEquals(goal, path.get(path.size() - 1));
+				}
+			}
+			//The changed clusters are rebuilt correctly
+			for (int i = 0; i < 10; i++)
+			{
+				int x = random.nextInt(24);
+				int y = random.nextInt(20);
+				map.setCost(x, y, map.getCost(x, y) < 0 ? 1 : -1);
+				hpa.cellChanged(x, y);
+			}
+			hpa.update();
+			for (Point[] query : MapGenerator.randomQueries(map, 10, m))
+			{
+				List<Point> optimal = finder.findPath(helper, query[0], query[1]);
+				assertEquals(optimal == null, hpa.findPath(query[0], query[1]) == null);
+			}
+		}
+	}
+}
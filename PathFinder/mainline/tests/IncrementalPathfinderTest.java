@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.IncrementalPathfinder;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalEqual;
+import junit.framework.TestCase;
+
+public class IncrementalPathfinderTest extends TestCase 
+{
+	private static final double EPSILON = 0.0001;
+
+	private void assertOptimal(GridPathHelper helper, IncrementalPathfinder<Point> finder, Point start, Point goal)
+	{
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		List<Point> expected = dijkstra.findPath(helper, start, goal);
+		List<Point> path = finder.findPath(helper, start, goal);
+		if (expected == null)
+		{
+			assertNull(path);
+			return;
+		}
+		assertNotNull(path);
+		assertTrue(path.isEmpty() || path.get(path.size() - 1).equals(goal));
+		assertEquals(TestUtils.pathCost(helper, start, expected), TestUtils.pathCost(helper, start, path), EPSILON);
+		assertEquals(TestUtils.pathCost(helper, start, expected), finder.getPathCost(), EPSILON);
+	}
+
+	public void testRepairAfterChanges()
+	{
+		Random random = new Random(3);
+		for (int m = 0; m < 5; m++)
+		{
+			ArrayGridMap map = TestUtils.randomMap(random, 25, 2, 3);
+			GridPathHelper helper = new GridPathHelper(map);
+			IncrementalPathfinder<Point> finder = new IncrementalPathfinder<Point>();
+			Point start = new Point(0, 0);
+			Point goal = new Point(24, 24);
+			map.setCost(start.x, start.y, 1);
+			map.setCost(goal.x, goal.y, 1);
+			assertOptimal(helper, finder, start, goal);
+			for (int round = 0; round < 20; round++)
+			{
+				for (int c = 0; c < 5; c++)
+				{
+					Point p = new Point(random.nextInt(25), random.nextInt(25));
+					if (!p.equals(start) && !p.equals(goal))
+					{
+						int r = random.nextInt(10);
+						map.setCost(p.x, p.y, r < 4 ? -1 : 1 + r % 3);
+						finder.pointChanged(p);
+					}
+				}
+				assertOptimal(helper, finder, start, goal);
+			}
+		}
+	}
+
+	public void testMovingStart()
+	{
+		ArrayGridMap map = new ArrayGridMap(30, 30);
+		for (int i = 0; i < 900; i++)
+		{
+			map.getCosts()[i] = 1;
+		}
+		for (int y = 0; y < 25; y++)
+		{
+			map.setCost(15, y, -1);
+		}
+		GridPathHelper helper = new GridPathHelper(map);
+		IncrementalPathfinder<Point> finder = new IncrementalPathfinder<Point>();
+		Point start = new Point(0, 0);
+		Point goal = new Point(29, 0);
+		List<Point> path = finder.findPath(helper, start, goal);
+		assertNotNull(path);
+		//walk along the path and close the gap in the wall halfway
+		int walked = 0;
+		while (!start.equals(goal))
+		{
+			start = path.get(0);
+			if (++walked == 5)
+			{
+				for (int y = 25; y < 30; y++)
+				{
+					map.setCost(15, y, -1);
+					finder.pointChanged(new Point(15, y));
+				}
+				map.setCost(15, 3, 1);
+				finder.pointChanged(new Point(15, 3));
+			}
+			assertOptimal(helper, finder, start, goal);
+			path = finder.findPath(helper, start, goal);
+		}
+	}
+
+	public void testRepairIsCheaper()
+	{
+		ArrayGridMap map = new ArrayGridMap(100, 100);
+		for (int i = 0; i < 10000; i++)
+		{
+			map.getCosts()[i] = 1;
+		}
+		//a wall between the start and the goal
+		for (int y = 10; y < 90; y++)
+		{
+			map.setCost(50, y, -1);
+		}
+		GridPathHelper helper = new GridPathHelper(map);
+		IncrementalPathfinder<Point> finder = new IncrementalPathfinder<Point>();
+		Point start = new Point(5, 50);
+		Point goal = new Point(95, 50);
+		List<Point> path = finder.findPath(helper, start, goal);
+		//block the path where it goes around the wall
+		Point blocked = null;
+		for (Point p : path)
+		{
+			if (p.x == 50)
+			{
+				blocked = p;
+			}
+		}
+		map.setCost(blocked.x, blocked.y, -1);
+		finder.pointChanged(blocked);
+		path = finder.findPath(helper, start, goal);
+		assertFalse(path.contains(blocked));
+		int repairSteps = finder.getSteps();
+		
+		IncrementalPathfinder<Point> fresh = new IncrementalPathfinder<Point>();
+		fresh.findPath(helper, start, goal);
+		assertTrue(repairSteps * 3 < fresh.getSteps());
+		assertOptimal(helper, finder, start, goal);
+	}
+
+	public void testPlainHelper()
+	{
+		//The helper of the original tests has no getPredecessors, its movement is symmetric
+		int[][][] maps = {PathFinderTest.h1, PathFinderTest.h2, PathFinderTest.h3, PathFinderTest.h4, PathFinderTest.h5};
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		for (int[][] map : maps)
+		{
+			TestUtils.LevelHelper helper = new TestUtils.LevelHelper(map);
+			IncrementalPathfinder<Point> finder = new IncrementalPathfinder<Point>();
+			//Diagonal moves cost the same as straight ones
+			finder.setHeuristic(new DiagonalEqual<Point>());
+			Point start = new Point(0, 0);
+			Point goal = new Point(map.length - 1, map[0].length - 1);
+			List<Point> expected = dijkstra.findPath(helper, start, goal);
+			List<Point> path = finder.findPath(helper, start, goal);
+			if (expected == null)
+			{
+				assertNull(path);
+				continue;
+			}
+			assertNotNull(path);
+			assertEquals(goal, path.get(path.size() - 1));
+			assertEquals(TestUtils.pathCost(helper, start, expected), TestUtils.pathCost(helper, start, path), EPSILON);
+
+			//The tree is repaired after a change as well
+			finder.pointChanged(path.get(0));
+			path = finder.findPath(helper, start, goal);
+			assertEquals(TestUtils.pathCost(helper, start, expected), TestUtils.pathCost(helper, start, path), EPSILON);
+		}
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.IIntegerPathHelper;
+import pathfinder.IPathHelper;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalEqual;
+import junit.framework.TestCase;
+
+public class IntegerCostTest extends TestCase 
+{
+	private static final double EPSILON = 0.0001;
+
+	private static class IntegerHelper extends TestUtils.LevelHelper implements IIntegerPathHelper<Point>
+	{
+		IntegerHelper(int[][] level)
+		{
+			super(level);
+		}
+	}
+
+	private void assertSameCost(Pathfinder<Point> finder, int[][] level, Point start, Point goal)
+	{
+		IPathHelper<Point> helper = new TestUtils.LevelHelper(level);
+		List<Point> expected = finder.findPath(helper, start, goal);
+		List<Point> path = finder.findPath(new IntegerHelper(level), start, goal);
+		if (expected == null)
+		{
+			assertNull(path);
+			return;
+		}
+		assertEquals(TestUtils.pathCost(helper, start, expected), TestUtils.pathCost(helper, start, path), EPSILON);
+	}
+
+	public void testFixtures()
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalEqual<Point>());
+		assertSameCost(finder, PathFinderTest.h1, new Point(0,0), new Point(6,6));
+		assertSameCost(finder, PathFinderTest.h2, new Point(0,0), new Point(6,6));
+		assertSameCost(finder, PathFinderTest.h3, new Point(0,0), new Point(6,6));
+		assertSameCost(finder, PathFinderTest.h4, new Point(0,0), new Point(3,3));
+		assertSameCost(finder, PathFinderTest.h5, new Point(0,0), new Point(2,2));
+		assertSameCost(finder, PathFinderTest.h6, new Point(0,0), new Point(2,2));
+	}
+
+	public void testRandomMaps()
+	{
+		Random random = new Random(17);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalEqual<Point>());
+		for (int m = 0; m < 10; m++)
+		{
+			int[][] level = new int[40][40];
+			for (int x = 0; x < 40; x++)
+			{
+				for (int y = 0; y < 40; y++)
+				{
+					int r = random.nextInt(10);
+					level[x][y] = r < 2 ? 99 : 1 + r % 5;
+				}
+			}
+			for (int q = 0; q < 10; q++)
+			{
+				Point start = new Point(random.nextInt(40), random.nextInt(40));
+				Point goal = new Point(random.nextInt(40), random.nextInt(40));
+				level[start.x][start.y] = 1;
+				level[goal.x][goal.y] = 1;
+				assertSameCost(finder, level, start, goal);
+			}
+		}
+	}
+
+	public void testLargeCosts()
+	{
+		//The values of the nodes go up to 10^8, far more buckets than the open nodes span
+		Random random = new Random(23);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalEqual<Point>());
+		for (int m = 0; m < 5; m++)
+		{
+			int[][] level = new int[40][40];
+			for (int x = 0; x < 40; x++)
+			{
+				for (int y = 0; y < 40; y++)
+				{
+					int r = random.nextInt(10);
+					level[x][y] = r < 2 ? 99 : (m % 2 == 0 ? 1 + r : 1) * 250000;
+				}
+			}
+			//A few cheap cells, so that the values of the open nodes are far apart
+			for (int i = 0; i < 100; i++)
+			{
+				level[random.nextInt(40)][random.nextInt(40)] = 1;
+			}
+			for (int q = 0; q < 5; q++)
+			{
+				Point start = new Point(random.nextInt(40), random.nextInt(40));
+				Point goal = new Point(random.nextInt(40), random.nextInt(40));
+				level[start.x][start.y] = 1;
+				level[goal.x][goal.y] = 1;
+				assertSameCost(finder, level, start, goal);
+			}
+		}
+	}
+
+	public void testFillRadius()
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		List<Point> expected = finder.fillRadius(new TestUtils.LevelHelper(PathFinderTest.h2), new Point(3,3), 6);
+		List<Point> points = finder.fillRadius(new IntegerHelper(PathFinderTest.h2), new Point(3,3), 6);
+		assertEquals(new HashSet<Point>(expected), new HashSet<Point>(points));
+		for (Point p : points)
+		{
+			assertEquals(Math.rint(finder.getGVal(p)), finder.getGVal(p), 0.0);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import pathfinder.Pathfinder;
+import pathfinder.SearchHandle;
+import pathfinder.heuristics.DiagonalNotEqual;
+import pathfinder.jfr.JfrSearchListener;
+import junit.framework.TestCase;
+
+public class JfrSearchListenerTest extends TestCase 
+{
+	Pathfinder<Point> finder;
+
+	public void setUp()
+	{
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+		finder.setListener(new JfrSearchListener());
+	}
+
+	private List<RecordedEvent> record(Duration threshold, Runnable searches) throws IOException
+	{
+		Recording recording = new Recording();
+		recording.enable("pathfinder.Search").withThreshold(threshold);
+		recording.enable("pathfinder.SearchSlice").withThreshold(threshold);
+		recording.start();
+		searches.run();
+		recording.stop();
+		File file = File.createTempFile("pathfinder", ".jfr");
+		try
+		{
+			recording.dump(file.toPath());
+			recording.close();
+			List<RecordedEvent> events = new ArrayList<RecordedEvent>();
+			for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath()))
+			{
+				if (event.getEventType().getName().startsWith("pathfinder."))
+				{
+					events.add(event);
+				}
+			}
+			return events;
+		}
+		finally
+		{
+			file.delete();
+		}
+	}
+
+	public void testSearchEvents() throws IOException
+	{
+		final TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		final TestUtils.LevelHelper blocked = new TestUtils.LevelHelper(PathFinderTest.h5);
+		List<RecordedEvent> events = record(Duration.ZERO, new Runnable()
+		{
+			public void run()
+			{
+				finder.findPath(helper, new Point(0,0), new Point(6,6));
+				finder.findPath(blocked, new Point(0,0), new Point(2,2));
+			}
+		});
+		assertEquals(2, events.size());
+		RecordedEvent found = events.get(0);
+		assertEquals("pathfinder.Search", found.getEventType().getName());
+		assertEquals(0, found.getInt("startX"));
+		assertEquals(6, found.getInt("goalY"));
+		assertEquals("FOUND", found.getString("status"));
+		assertEquals(DiagonalNotEqual.class.getName(), found.getClass("heuristic").getName());
+		assertEquals(finder.findPath(helper, new Point(0,0), new Point(6,6)).size(), found.getInt("pathLength"));
+		assertEquals(finder.getSteps(), found.getInt("expansions"));
+		RecordedEvent unreachable = events.get(1);
+		assertEquals("UNREACHABLE", unreachable.getString("status"));
+		assertEquals(-1, unreachable.getInt("pathLength"));
+	}
+
+	public void testSliceEvents() throws IOException
+	{
+		final TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		List<RecordedEvent> events = record(Duration.ZERO, new Runnable()
+		{
+			public void run()
+			{
+				SearchHandle<Point> handle = finder.startSearch(helper, new Point(0,0), new Point(6,6));
+				while (!handle.step(5))
+				{
+				}
+			}
+		});
+		int expansions = 0;
+		int slices = 0;
+		for (RecordedEvent event : events)
+		{
+			if (event.getEventType().getName().equals("pathfinder.SearchSlice"))
+			{
+				slices++;
+				expansions += event.getInt("expansions");
+				assertTrue(event.getInt("expansions") <= 5);
+			}
+		}
+		RecordedEvent search = events.get(events.size() - 1);
+		assertEquals("pathfinder.Search", search.getEventType().getName());
+		assertEquals(search.getInt("expansions"), expansions);
+		assertTrue(slices > 1);
+	}
+
+	public void testThreshold() throws IOException
+	{
+		final TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		List<RecordedEvent> events = record(Duration.ofHours(1), new Runnable()
+		{
+			public void run()
+			{
+				finder.findPath(helper, new Point(0,0), new Point(6,6));
+			}
+		});
+		assertTrue(events.isEmpty());
+	}
+}
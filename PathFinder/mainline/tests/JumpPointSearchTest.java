@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.JumpPointSearch;
+import pathfinder.Pathfinder;
+import junit.framework.TestCase;
+
+public class JumpPointSearchTest extends TestCase 
+{
+	private static final double EPSILON = 0.0001;
+
+	/**
+	 * Converts the level from <code>PathFinderTest</code> to a uniform cost map
+	 */
+	private static ArrayGridMap toUniformMap(int[][] level)
+	{
+		ArrayGridMap map = new ArrayGridMap(level.length, level[0].length);
+		for (int x = 0; x < level.length; x++)
+		{
+			for (int y = 0; y < level[0].length; y++)
+			{
+				map.setCost(x, y, level[x][y] == 99 ? -1 : 1);
+			}
+		}
+		return map;
+	}
+
+	private static double pathCost(List<Point> path, Point start)
+	{
+		double cost = 0;
+		Point prev = start;
+		for (Point p : path)
+		{
+			cost += (p.x != prev.x && p.y != prev.y) ? Math.sqrt(2.0) : 1.0;
+			prev = p;
+		}
+		return cost;
+	}
+
+	private void assertOptimal(ArrayGridMap map, JumpPointSearch jps, Point start, Point goal)
+	{
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		List<Point> expected = dijkstra.findPath(new GridPathHelper(map), start, goal);
+
+		int length = jps.findPath(start.x, start.y, goal.x, goal.y);
+		if (expected == null)
+		{
+			assertTrue(length == -1);
+			return;
+		}
+		assertTrue(length >= 0);
+		assertEquals(pathCost(expected, start), jps.getPathCost(), EPSILON);
+		//Check that the path is walkable and costs what was reported
+		double cost = 0;
+		int x = start.x;
+		int y = start.y;
+		for (int i = 0; i < length; i++)
+		{
+			int dx = jps.getPathX(i) - x;
+			int dy = jps.getPathY(i) - y;
+			assertTrue(Math.abs(dx) <= 1 && Math.abs(dy) <= 1 && (dx != 0 || dy != 0));
+			x += dx;
+			y += dy;
+			assertTrue(map.getCost(x, y) >= 0);
+			cost += (dx != 0 && dy != 0) ? Math.sqrt(2.0) : 1.0;
+		}
+		assertTrue(x == goal.x && y == goal.y);
+		assertEquals(cost, jps.getPathCost(), EPSILON);
+	}
+
+	public void testMazeFixtures()
+	{
+		ArrayGridMap maze = toUniformMap(PathFinderTest.h1);
+		JumpPointSearch jps = new JumpPointSearch(maze);
+		assertOptimal(maze, jps, new Point(0,0), new Point(6,6));
+		jps.precomputeJumpDistances();
+		assertOptimal(maze, jps, new Point(0,0), new Point(6,6));
+
+		ArrayGridMap failed = toUniformMap(PathFinderTest.h3);
+		jps = new JumpPointSearch(failed);
+		assertOptimal(failed, jps, new Point(0,0), new Point(6,6));
+		jps.precomputeJumpDistances();
+		assertOptimal(failed, jps, new Point(0,0), new Point(6,6));
+	}
+
+	public void testRandomMaps()
+	{
+		Random random = new Random(42);
+		for (int m = 0; m < 10; m++)
+		{
+			ArrayGridMap map = TestUtils.randomUniformMap(random, 30, 25, 0.1 + m * 0.03);
+			JumpPointSearch jps = new JumpPointSearch(map);
+			JumpPointSearch jpsPlus = new JumpPointSearch(map);
+			jpsPlus.precomputeJumpDistances();
+			for (int q = 0; q < 20; q++)
+			{
+				Point start = new Point(random.nextInt(30), random.nextInt(25));
+				Point goal = new Point(random.nextInt(30), random.nextInt(25));
+				map.setCost(start.x, start.y, 1);
+				map.setCost(goal.x, goal.y, 1);
+				jpsPlus.precomputeJumpDistances();
+				assertOptimal(map, jps, start, goal);
+				assertOptimal(map, jpsPlus, start, goal);
+			}
+		}
+	}
+
+	public void testFewerExpansionsOnOpenMap()
+	{
+		ArrayGridMap map = new ArrayGridMap(100, 100);
+		for (int y = 10; y < 90; y++)
+		{
+			map.setCost(50, y, -1);
+		}
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.findPath(new GridPathHelper(map), new Point(5, 50), new Point(95, 55));
+
+		JumpPointSearch jps = new JumpPointSearch(map);
+		jps.findPath(5, 50, 95, 55);
+		assertTrue(jps.getSteps() * 10 < finder.getSteps());
+		jps.precomputeJumpDistances();
+		jps.findPath(5, 50, 95, 55);
+		assertTrue(jps.getSteps() * 10 < finder.getSteps());
+	}
+}
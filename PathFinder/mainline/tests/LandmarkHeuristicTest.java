@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.IPathHelper;
+import pathfinder.LandmarkHeuristic;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalNotEqual;
+import junit.framework.TestCase;
+
+public class LandmarkHeuristicTest extends TestCase 
+{
+	private static final double EPSILON = 0.001;
+
+	public void testMaze() throws InterruptedException
+	{
+		IPathHelper<Point> helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		LandmarkHeuristic<Point> landmarks = LandmarkHeuristic.build(helper, 7, 7, new Point(0,0), 3, 2);
+		assertEquals(3, landmarks.getLandmarkCount());
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(landmarks);
+		List<Point> path = finder.findPath(helper, new Point(0,0), new Point(6,6));
+		assertEquals(19, path.size());
+		int landmarkSteps = finder.getSteps();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+		finder.findPath(helper, new Point(0,0), new Point(6,6));
+		assertTrue(landmarkSteps <= finder.getSteps());
+	}
+
+	public void testRandomMap() throws InterruptedException
+	{
+		Random random = new Random(5);
+		ArrayGridMap map = TestUtils.randomMap(random, 60, 2, 5);
+		map.setCost(0, 0, 1);
+		GridPathHelper helper = new GridPathHelper(map);
+		LandmarkHeuristic<Point> landmarks = LandmarkHeuristic.build(helper, 60, 60, new Point(0,0), 6, 3);
+
+		Pathfinder<Point> dijkstra = new Pathfinder<Point>();
+		dijkstra.setHeuristic(new TestUtils.ZeroHeuristic());
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(landmarks);
+		Pathfinder<Point> geometric = new Pathfinder<Point>();
+		int landmarkSteps = 0;
+		int geometricSteps = 0;
+		for (int q = 0; q < 40; q++)
+		{
+			Point start = new Point(random.nextInt(60), random.nextInt(60));
+			Point goal = new Point(random.nextInt(60), random.nextInt(60));
+			if (map.getCost(start.x, start.y) < 0 || map.getCost(goal.x, goal.y) < 0)
+			{
+				continue;
+			}
+			List<Point> expected = dijkstra.findPath(helper, start, goal);
+			List<Point> path = finder.findPath(helper, start, goal);
+			landmarkSteps += finder.getSteps();
+			geometric.findPath(helper, start, goal);
+			geometricSteps += geometric.getSteps();
+			if (expected == null)
+			{
+				assertNull(path);
+				continue;
+			}
+			double cost = TestUtils.pathCost(helper, start, expected);
+			assertTrue(landmarks.calculateHeuristic(start, goal) <= cost + EPSILON);
+			assertEquals(cost, TestUtils.pathCost(helper, start, path), EPSILON);
+		}
+		assertTrue(landmarkSteps * 2 < geometricSteps);
+	}
+
+	public void testSaveLoad() throws Exception
+	{
+		ArrayGridMap map = TestUtils.randomMap(new Random(9), 20, 2, 5);
+		map.setCost(0, 0, 1);
+		GridPathHelper helper = new GridPathHelper(map);
+		LandmarkHeuristic<Point> landmarks = LandmarkHeuristic.build(helper, 20, 20, new Point(0,0), 4, 2);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		landmarks.save(out);
+		LandmarkHeuristic<Point> loaded = LandmarkHeuristic.load(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(landmarks.getLandmarkCount(), loaded.getLandmarkCount());
+		for (int i = 0; i < landmarks.getLandmarkCount(); i++)
+		{
+			assertEquals(landmarks.getLandmark(i), loaded.getLandmark(i));
+		}
+		for (int x = 0; x < 20; x++)
+		{
+			for (int y = 0; y < 20; y++)
+			{
+				Point p = new Point(x, y);
+				Point q = new Point(19 - y, x);
+				assertEquals(landmarks.calculateHeuristic(p, q), loaded.calculateHeuristic(p, q), 0.0);
+			}
+		}
+
+		try
+		{
+			LandmarkHeuristic.load(new ByteArrayInputStream(new byte[16]));
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+}
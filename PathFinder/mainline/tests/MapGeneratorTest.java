@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+import benchmarks.MapGenerator;
+import benchmarks.MovingAIFormat;
+import benchmarks.MapGenerator.MapType;
+import junit.framework.TestCase;
+
+public class MapGeneratorTest extends TestCase 
+{
+	public void testSameSeedSameMap()
+	{
+		for (MapType type : MapType.values())
+		{
+			ArrayGridMap a = MapGenerator.generate(type, 64, 42);
+			ArrayGridMap b = MapGenerator.generate(type, 64, 42);
+			assertTrue(type.name(), Arrays.equals(a.getCosts(), b.getCosts()));
+		}
+	}
+
+	public void testConnected()
+	{
+		//Mazes, rooms and terrain have no separate areas
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		for (MapType type : new MapType[] {MapType.MAZE, MapType.ROOMS, MapType.WEIGHTED})
+		{
+			ArrayGridMap map = MapGenerator.generate(type, 64, 7);
+			GridPathHelper helper = new GridPathHelper(map);
+			for (Point[] query : MapGenerator.randomQueries(map, 20, 7))
+			{
+				assertNotNull(type.name(), finder.findPath(helper, query[0], query[1]));
+			}
+		}
+	}
+
+	public void testMazeHasNoLoops()
+	{
+		//The passable cells and their orthogonal links form a tree
+		ArrayGridMap map = MapGenerator.maze(63, 5);
+		int cells = 0;
+		int links = 0;
+		for (int x = 0; x < 63; x++)
+		{
+			for (int y = 0; y < 63; y++)
+			{
+				if (map.getCost(x, y) >= 0)
+				{
+					cells++;
+					if (x + 1 < 63 && map.getCost(x + 1, y) >= 0)
+					{
+						links++;
+					}
+					if (y + 1 < 63 && map.getCost(x, y + 1) >= 0)
+					{
+						links++;
+					}
+				}
+			}
+		}
+		assertEquals(cells - 1, links);
+	}
+
+	public void testMapRoundTrip() throws IOException
+	{
+		for (MapType type : MapType.values())
+		{
+			ArrayGridMap map = MapGenerator.generate(type, 32, 3);
+			StringWriter out = new StringWriter();
+			MovingAIFormat.writeMap(map, out);
+			ArrayGridMap read = MovingAIFormat.readMap(new StringReader(out.toString()));
+			assertEquals(32, read.getWidth());
+			assertEquals(32, read.getHeight());
+			assertTrue(type.name(), Arrays.equals(map.getCosts(), read.getCosts()));
+		}
+	}
+
+	public void testReadMap() throws IOException
+	{
+		String text = "type octile\nheight 2\nwidth 3\nmap\n.@T\nGSW\n";
+		ArrayGridMap map = MovingAIFormat.readMap(new StringReader(text));
+		assertEquals(3, map.getWidth());
+		assertEquals(2, map.getHeight());
+		assertEquals(1, map.getCost(0, 0));
+		assertEquals(-1, map.getCost(1, 0));
+		assertEquals(-1, map.getCost(2, 0));
+		assertEquals(1, map.getCost(0, 1));
+		assertEquals(1, map.getCost(1, 1));
+		assertEquals(-1, map.getCost(2, 1));
+
+		try
+		{
+			MovingAIFormat.readMap(new StringReader("type octile\nheight 2\nwidth 3\nmap\n...\n"));
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+
+	public void testScenarioRoundTrip() throws IOException
+	{
+		List<MovingAIFormat.Scenario> scenarios = new ArrayList<MovingAIFormat.Scenario>();
+		scenarios.add(new MovingAIFormat.Scenario(0, "a.map", 32, 16, 1, 2, 3, 4, 2.82842712));
+		scenarios.add(new MovingAIFormat.Scenario(5, "a.map", 32, 16, 0, 0, 20, 10, 24.14213562));
+		StringWriter out = new StringWriter();
+		MovingAIFormat.writeScenarios(scenarios, out);
+		assertTrue(out.toString().startsWith("version 1\n"));
+		List<MovingAIFormat.Scenario> read = MovingAIFormat.readScenarios(new StringReader(out.toString()));
+		assertEquals(2, read.size());
+		MovingAIFormat.Scenario s = read.get(1);
+		assertEquals(5, s.getBucket());
+		assertEquals("a.map", s.getMap());
+		assertEquals(32, s.getWidth());
+		assertEquals(16, s.getHeight());
+		assertEquals(0, s.getStartX());
+		assertEquals(0, s.getStartY());
+		assertEquals(20, s.getGoalX());
+		assertEquals(10, s.getGoalY());
+		assertEquals(24.14213562, s.getOptimalLength(), 1e-8);
+	}
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.MappedGridMap;
+import pathfinder.Pathfinder;
+import benchmarks.MapGenerator;
+import junit.framework.TestCase;
+
+public class MappedGridMapTest extends TestCase 
+{
+	File file;
+
+	public void setUp() throws IOException
+	{
+		file = File.createTempFile("pathfinder", ".grid");
+	}
+
+	public void tearDown()
+	{
+		file.delete();
+	}
+
+	public void testNewMap() throws IOException
+	{
+		MappedGridMap map = MappedGridMap.create(file, 100, 70);
+		assertEquals(100, map.getWidth());
+		assertEquals(70, map.getHeight());
+		assertEquals(1, map.getCost(0, 0));
+		assertEquals(1, map.getCost(99, 69));
+		//2x2 tiles of 4 KB after the header
+		assertEquals(4096 + 4 * 4096, file.length());
+		map.close();
+	}
+
+	public void testCosts() throws IOException
+	{
+		MappedGridMap map = MappedGridMap.create(file, 130, 65);
+		map.setCost(0, 0, -1);
+		map.setCost(64, 0, 255);
+		map.setCost(129, 64, 7);
+		map.setCost(63, 63, 1);
+		assertEquals(-1, map.getCost(0, 0));
+		assertEquals(255, map.getCost(64, 0));
+		assertEquals(7, map.getCost(129, 64));
+		assertEquals(1, map.getCost(63, 63));
+		try
+		{
+			map.setCost(1, 1, 256);
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+		try
+		{
+			map.getCost(130, 0);
+			fail();
+		}
+		catch (IndexOutOfBoundsException e)
+		{
+		}
+		map.close();
+
+		map = MappedGridMap.open(file, false);
+		assertEquals(130, map.getWidth());
+		assertEquals(65, map.getHeight());
+		assertEquals(-1, map.getCost(0, 0));
+		assertEquals(255, map.getCost(64, 0));
+		assertEquals(7, map.getCost(129, 64));
+		try
+		{
+			map.setCost(1, 1, 2);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+		}
+		map.close();
+	}
+
+	public void testInvalidFile() throws IOException
+	{
+		RandomAccessFile out = new RandomAccessFile(file, "rw");
+		out.writeInt(42);
+		out.close();
+		try
+		{
+			MappedGridMap.open(file, false);
+			fail();
+		}
+		catch (IOException e)
+		{
+		}
+	}
+
+	public void testSamePaths() throws IOException
+	{
+		ArrayGridMap source = MapGenerator.weightedTerrain(150, 5);
+		for (int i = 0; i < 150; i++)
+		{
+			source.setCost(75, i, i == 140 ? 3 : -1);
+		}
+		MappedGridMap map = MappedGridMap.create(file, source);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		for (Point[] query : MapGenerator.randomQueries(source, 10, 5))
+		{
+			List<Point> expected = finder.findPath(new GridPathHelper(source), query[0], query[1]);
+			List<Point> path = finder.findPath(new GridPathHelper(map), query[0], query[1]);
+			assertEquals(expected, path);
+		}
+		map.close();
+	}
+}
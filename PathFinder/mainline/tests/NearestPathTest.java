@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.ConnectedGridPathHelper;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalNotEqual;
+import benchmarks.MapGenerator;
+import junit.framework.TestCase;
+
+public class NearestPathTest extends TestCase 
+{
+	Pathfinder<Point> finder;
+
+	ArrayGridMap map;
+
+	GridPathHelper helper;
+
+	public void setUp()
+	{
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+		map = MapGenerator.rooms(80, 4);
+		helper = new GridPathHelper(map);
+	}
+
+	private List<Point> randomPoints(int count, long seed)
+	{
+		List<Point> points = new ArrayList<Point>();
+		for (Point[] query : MapGenerator.randomQueries(map, count, seed))
+		{
+			points.add(query[0]);
+		}
+		return points;
+	}
+
+	public void testNearestGoal()
+	{
+		//Dijkstra's search is exact, so the costs can be compared
+		finder.setHeuristic(new TestUtils.ZeroHeuristic());
+		Point start = randomPoints(1, 1).get(0);
+		List<Point> goals = randomPoints(50, 2);
+		double best = Double.MAX_VALUE;
+		for (Point goal : goals)
+		{
+			List<Point> path = finder.findPath(helper, start, goal);
+			if (path != null)
+			{
+				best = Math.min(best, TestUtils.pathCost(helper, start, path));
+			}
+		}
+		List<Point> path = finder.findNearestPath(helper, Arrays.asList(start), goals);
+		assertNotNull(path);
+		assertEquals(best, TestUtils.pathCost(helper, start, path), 1e-3);
+		Point reached = path.get(path.size() - 1);
+		assertTrue(goals.contains(reached));
+		assertEquals(reached, finder.getSearchContext().getGoal());
+		assertEquals(start, finder.getSearchContext().getStart());
+		assertEquals(path.size(), finder.getSearchContext().getPathLength());
+	}
+
+	public void testNearestStart()
+	{
+		Point goal = randomPoints(1, 3).get(0);
+		List<Point> starts = randomPoints(50, 4);
+		int steps = 0;
+		double best = Double.MAX_VALUE;
+		for (Point start : starts)
+		{
+			List<Point> path = finder.findPath(helper, start, goal);
+			steps += finder.getSteps();
+			if (path != null)
+			{
+				best = Math.min(best, TestUtils.pathCost(helper, start, path));
+			}
+		}
+		List<Point> path = finder.findNearestPath(helper, starts, Arrays.asList(goal));
+		assertNotNull(path);
+		Point start = finder.getSearchContext().getStart();
+		assertTrue(starts.contains(start));
+		assertEquals(goal, path.get(path.size() - 1));
+		//The tie breaker allows a tiny detour
+		assertEquals(best, TestUtils.pathCost(helper, start, path), best * 0.01);
+		assertTrue(finder.getSteps() * 10 < steps);
+	}
+
+	public void testManyToMany()
+	{
+		Random random = new Random(5);
+		for (int i = 0; i < 10; i++)
+		{
+			List<Point> starts = randomPoints(1 + random.nextInt(5), random.nextLong());
+			List<Point> goals = randomPoints(1 + random.nextInt(5), random.nextLong());
+			List<Point> path = finder.findNearestPath(helper, starts, goals);
+			assertNotNull(path);
+			assertTrue(starts.contains(finder.getSearchContext().getStart()));
+			assertTrue(goals.contains(finder.getSearchContext().getGoal()));
+			//Every step is a move to a neighbour
+			Point previous = finder.getSearchContext().getStart();
+			for (Point p : path)
+			{
+				assertTrue(helper.getNeighbours(previous).contains(p));
+				previous = p;
+			}
+		}
+	}
+
+	public void testStartIsGoal()
+	{
+		List<Point> goals = randomPoints(3, 6);
+		List<Point> path = finder.findNearestPath(helper, Arrays.asList(randomPoints(1, 7).get(0), goals.get(1)), goals);
+		assertTrue(path.isEmpty());
+		assertEquals(goals.get(1), finder.getSearchContext().getStart());
+		assertEquals(0, finder.getSteps());
+	}
+
+	public void testUnreachable()
+	{
+		ArrayGridMap walled = new ArrayGridMap(10, 10);
+		for (int y = 0; y < 10; y++)
+		{
+			walled.setCost(5, y, -1);
+		}
+		List<Point> left = Arrays.asList(new Point(0, 0), new Point(2, 7));
+		List<Point> right = Arrays.asList(new Point(9, 9), new Point(7, 1));
+		assertNull(finder.findNearestPath(new GridPathHelper(walled), left, right));
+		assertEquals(50, finder.getSteps());
+		assertNull(finder.findNearestPath(new ConnectedGridPathHelper(walled), left, right));
+		assertEquals(0, finder.getSteps());
+		try
+		{
+			finder.findNearestPath(helper, left, new ArrayList<Point>());
+			fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.AbstractNeighbourHelper;
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.INeighbourSink;
+import pathfinder.IPathHelper;
+import pathfinder.Pathfinder;
+import pathfinder.heuristics.DiagonalNotEqual;
+import junit.framework.TestCase;
+
+public class NeighbourHelperTest extends TestCase 
+{
+	/** the same map as <code>TestUtils.LevelHelper</code>, through the sink */
+	private static class SinkHelper extends AbstractNeighbourHelper<Point>
+	{
+		int[][] level;
+
+		int createdPoints = 0;
+
+		SinkHelper(int[][] level)
+		{
+			this.level = level;
+		}
+
+		public void getNeighbours(Point point, INeighbourSink sink)
+		{
+			for (int x = Math.max(0, point.x-1); x<=Math.min(level[0].length-1, point.x+1); x++)
+			{
+				for (int y = Math.max(0, point.y-1); y<=Math.min(level.length-1, point.y+1); y++)
+				{
+					if (level[x][y]!=99 && ((point.x!=x)||(point.y!=y)))
+					{
+						sink.addNeighbour(x, y, level[x][y]);
+					}
+				}
+			}
+		}
+
+		public Point createPoint(int x, int y)
+		{
+			createdPoints++;
+			return new Point(x, y);
+		}
+	}
+
+	/** hides the sink methods of the wrapped helper */
+	private static class ListHelper implements IPathHelper<Point>
+	{
+		private final IPathHelper<Point> helper;
+
+		ListHelper(IPathHelper<Point> helper)
+		{
+			this.helper = helper;
+		}
+
+		public float getCost(Point sourcePoint, Point destPoint)
+		{
+			return helper.getCost(sourcePoint, destPoint);
+		}
+
+		public List<Point> getNeighbours(Point point)
+		{
+			return helper.getNeighbours(point);
+		}
+	}
+
+	public void testSameAsListHelper()
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+		int[][][] levels = {PathFinderTest.h1, PathFinderTest.h2, PathFinderTest.h3, PathFinderTest.h5};
+		for (int[][] level : levels)
+		{
+			Point goal = new Point(level.length - 1, level.length - 1);
+			List<Point> expected = finder.findPath(new TestUtils.LevelHelper(level), new Point(0,0), goal);
+			int expectedSteps = finder.getSteps();
+			SinkHelper helper = new SinkHelper(level);
+			assertEquals(expected, finder.findPath(helper, new Point(0,0), goal));
+			assertEquals(expectedSteps, finder.getSteps());
+			//points are created only for the new nodes
+			assertTrue(helper.createdPoints <= level.length * level.length);
+		}
+	}
+
+	public void testListMethods()
+	{
+		SinkHelper helper = new SinkHelper(PathFinderTest.h6);
+		TestUtils.LevelHelper reference = new TestUtils.LevelHelper(PathFinderTest.h6);
+		assertEquals(reference.getNeighbours(new Point(1,1)), helper.getNeighbours(new Point(1,1)));
+		assertEquals(2.0f, helper.getCost(new Point(1,1), new Point(2,2)), 0.0f);
+		assertEquals(Float.POSITIVE_INFINITY, helper.getCost(new Point(0,0), new Point(2,2)), 0.0f);
+	}
+
+	public void testGridHelper()
+	{
+		Random random = new Random(2);
+		ArrayGridMap map = new ArrayGridMap(50, 50);
+		for (int i = 0; i < 2500; i++)
+		{
+			map.getCosts()[i] = random.nextInt(10) < 2 ? -1 : 1 + random.nextInt(4);
+		}
+		GridPathHelper helper = new GridPathHelper(map);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		for (int q = 0; q < 20; q++)
+		{
+			Point start = new Point(random.nextInt(50), random.nextInt(50));
+			Point goal = new Point(random.nextInt(50), random.nextInt(50));
+			List<Point> expected = finder.findPath(new ListHelper(helper), start, goal);
+			assertEquals(expected, finder.findPath(helper, start, goal));
+		}
+	}
+}
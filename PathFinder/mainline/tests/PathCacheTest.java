@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+
+import pathfinder.PathCache;
+import pathfinder.Pathfinder;
+import junit.framework.TestCase;
+
+public class PathCacheTest extends TestCase 
+{
+	private TestUtils.LevelHelper maze;
+
+	private PathCache<Point> cache;
+
+	public void setUp()
+	{
+		maze = new TestUtils.LevelHelper(PathFinderTest.h1);
+		cache = new PathCache<Point>(new Pathfinder<Point>(), 3);
+	}
+
+	public void testHitAndMiss()
+	{
+		List<Point> first = cache.findPath(maze, new Point(0,0), new Point(6,6), 1);
+		List<Point> second = cache.findPath(maze, new Point(0,0), new Point(6,6), 1);
+		assertTrue(first.equals(second));
+		assertTrue(cache.getMisses() == 1);
+		assertTrue(cache.getHits() == 1);
+
+		//Changing the returned path doesn't affect the cache
+		second.clear();
+		assertTrue(cache.findPath(maze, new Point(0,0), new Point(6,6), 1).size() == 19);
+	}
+
+	public void testNewMapVersion()
+	{
+		cache.findPath(maze, new Point(0,0), new Point(6,6), 1);
+		cache.findPath(maze, new Point(0,0), new Point(6,6), 2);
+		assertTrue(cache.getMisses() == 2);
+		assertTrue(cache.getHits() == 0);
+	}
+
+	public void testSuffixAndPrefix()
+	{
+		List<Point> full = cache.findPath(maze, new Point(0,0), new Point(6,6), 1);
+
+		//Start in the middle of the cached path
+		List<Point> suffix = cache.findPath(maze, full.get(9), new Point(6,6), 1);
+		assertTrue(suffix.equals(full.subList(10, 19)));
+		//Goal in the middle of the cached path
+		List<Point> prefix = cache.findPath(maze, new Point(0,0), full.get(4), 1);
+		assertTrue(prefix.equals(full.subList(0, 5)));
+
+		assertTrue(cache.getPartialHits() == 2);
+		assertTrue(cache.getMisses() == 1);
+	}
+
+	public void testUnreachableAndEviction()
+	{
+		TestUtils.LevelHelper failed = new TestUtils.LevelHelper(PathFinderTest.h3);
+		//The version identifies the map, so another map gets another version
+		assertNull(cache.findPath(failed, new Point(0,0), new Point(6,6), 2));
+		assertNull(cache.findPath(failed, new Point(0,0), new Point(6,6), 2));
+		assertTrue(cache.getHits() == 1);
+
+		cache.findPath(maze, new Point(0,0), new Point(6,6), 1);
+		cache.findPath(maze, new Point(0,0), new Point(0,2), 1);
+		cache.findPath(maze, new Point(6,6), new Point(0,0), 1);
+		assertTrue(cache.size() == 3);
+		assertTrue(cache.getEvictions() == 1);
+		//The least recently used, unreachable, query was evicted
+		cache.findPath(failed, new Point(0,0), new Point(6,6), 2);
+		assertTrue(cache.getMisses() == 5);
+	}
+}
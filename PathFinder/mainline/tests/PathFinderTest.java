@@ -22,6 +22,7 @@ package tests;
 import java.awt.Point;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import pathfinder.IPathHelper;
 import pathfinder.Pathfinder;
@@ -232,4 +233,59 @@ public class PathFinderTest extends TestCase
 		hVal = finder.getHVal(new Point(2,2)); 
 		assertTrue(hVal==0.0);
 	}
+
+	public void testSharedBetweenThreads() throws InterruptedException
+	{
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+		final AtomicInteger failures = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					for (int j = 0; j < 200; j++)
+					{
+						List<Point> maze = finder.findPath(new PathHelper(h1), new Point(0,0), new Point(6,6));
+						List<Point> failed = finder.findPath(new PathHelper(h3), new Point(0,0), new Point(6,6));
+						if (maze == null || maze.size() != 19 || failed != null || finder.getSteps() != 21)
+						{
+							failures.incrementAndGet();
+						}
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+		assertTrue(failures.get() == 0);
+	}
+
+	public void testFillRadius()
+	{
+		List<Point> points = finder.fillRadius(new PathHelper(h4), new Point(0,0), 1);
+		assertEquals(4, points.size());
+		assertTrue(points.get(0).equals(new Point(0,0)));
+		assertTrue(points.contains(new Point(1,1)));
+		assertEquals(1.0, finder.getGVal(new Point(1,1)), 0.0001);
+
+		points = finder.fillRadius(new PathHelper(h4), new Point(0,0), 2);
+		assertEquals(9, points.size());
+		assertFalse(points.contains(new Point(3,0)));
+
+		points = finder.fillRadius(new PathHelper(h6), new Point(0,0), 3);
+		assertEquals(3, points.size());
+		assertTrue(points.get(1).equals(new Point(1,1)));
+		assertTrue(points.get(2).equals(new Point(2,2)));
+		assertEquals(3.0, finder.getGVal(new Point(2,2)), 0.0001);
+
+		//walls are not crossed
+		points = finder.fillRadius(new PathHelper(h5), new Point(0,0), 10);
+		assertEquals(3, points.size());
+		assertFalse(points.contains(new Point(2,2)));
+	}
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import pathfinder.ArrayGridMap;
+import pathfinder.GridPathHelper;
+import pathfinder.Pathfinder;
+import pathfinder.SearchHandle;
+import pathfinder.SearchScheduler;
+import junit.framework.TestCase;
+
+public class SearchHandleTest extends TestCase 
+{
+	public void testStep()
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		List<Point> expected = finder.findPath(helper, new Point(0,0), new Point(6,6));
+
+		SearchHandle<Point> handle = finder.startSearch(helper, new Point(0,0), new Point(6,6));
+		int portions = 0;
+		while (!handle.step(1))
+		{
+			portions++;
+			assertEquals(portions, handle.getSteps());
+			assertNull(handle.getPath());
+		}
+		assertTrue(handle.isFinished());
+		assertEquals(expected, handle.getPath());
+		assertEquals(finder.getSteps(), handle.getSteps());
+		//finished handle stays finished
+		assertTrue(handle.step(10));
+		assertEquals(finder.getSteps(), handle.getSteps());
+	}
+
+	public void testFailedAndEmptySearch()
+	{
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		SearchHandle<Point> handle = finder.startSearch(new TestUtils.LevelHelper(PathFinderTest.h5), 
+				new Point(0,0), new Point(2,2));
+		assertFalse(handle.step(2));
+		assertNull(handle.finish());
+		assertTrue(handle.isFinished());
+
+		handle = finder.startSearch(new TestUtils.LevelHelper(PathFinderTest.h4), new Point(1,1), new Point(1,1));
+		assertTrue(handle.isFinished());
+		assertTrue(handle.getPath().isEmpty());
+	}
+
+	public void testScheduler()
+	{
+		Random random = new Random(8);
+		ArrayGridMap map = new ArrayGridMap(80, 80);
+		for (int i = 0; i < 6400; i++)
+		{
+			map.getCosts()[i] = random.nextInt(10) < 2 ? -1 : 1 + random.nextInt(3);
+		}
+		GridPathHelper helper = new GridPathHelper(map);
+		Pathfinder<Point> finder = new Pathfinder<Point>();
+		SearchScheduler<Point> scheduler = new SearchScheduler<Point>(16);
+		List<SearchHandle<Point>> handles = new ArrayList<SearchHandle<Point>>();
+		for (int q = 0; q < 20; q++)
+		{
+			Point start = new Point(random.nextInt(80), random.nextInt(80));
+			Point goal = new Point(random.nextInt(80), random.nextInt(80));
+			map.setCost(start.x, start.y, 1);
+			map.setCost(goal.x, goal.y, 1);
+			SearchHandle<Point> handle = finder.startSearch(helper, start, goal);
+			handles.add(handle);
+			scheduler.add(handle);
+		}
+		int finished = 0;
+		int ticks = 0;
+		while (!scheduler.isEmpty())
+		{
+			finished += scheduler.tick(100000).size();
+			ticks++;
+		}
+		assertEquals(20, finished);
+		assertTrue(ticks > 1);
+		for (SearchHandle<Point> handle : handles)
+		{
+			assertTrue(handle.isFinished());
+			assertEquals(finder.findPath(helper, handle.getStart(), handle.getGoal()), handle.getPath());
+			assertEquals(finder.getSteps(), handle.getSteps());
+		}
+	}
+}
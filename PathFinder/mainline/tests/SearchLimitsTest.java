@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+
+import pathfinder.Pathfinder;
+import pathfinder.SearchLimits;
+import pathfinder.SearchResult;
+import pathfinder.SearchStatus;
+import pathfinder.heuristics.DiagonalNotEqual;
+import junit.framework.TestCase;
+
+public class SearchLimitsTest extends TestCase 
+{
+	Pathfinder<Point> finder;
+
+	public void setUp()
+	{
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+	}
+
+	public void testUnlimited()
+	{
+		TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		List<Point> expected = finder.findPath(helper, new Point(0,0), new Point(6,6));
+		SearchResult<Point> result = finder.findPath(helper, new Point(0,0), new Point(6,6), new SearchLimits());
+		assertEquals(SearchStatus.FOUND, result.getStatus());
+		assertEquals(expected, result.getPath());
+		assertEquals(expected, result.getPartialPath());
+		assertEquals(finder.getSteps(), result.getSteps());
+	}
+
+	public void testUnreachable()
+	{
+		SearchResult<Point> result = finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h5), 
+				new Point(0,0), new Point(2,2), new SearchLimits());
+		assertEquals(SearchStatus.UNREACHABLE, result.getStatus());
+		assertNull(result.getPath());
+		//(1,0) and (0,1) are equally close to the goal, the first expanded one is kept
+		assertEquals(1, result.getPartialPath().size());
+		assertEquals(3, result.getSteps());
+	}
+
+	public void testExpansionLimit()
+	{
+		TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		SearchResult<Point> result = finder.findPath(helper, new Point(0,0), new Point(6,6), 
+				new SearchLimits(10, Integer.MAX_VALUE, SearchLimits.UNLIMITED));
+		assertEquals(SearchStatus.ABORTED, result.getStatus());
+		assertNull(result.getPath());
+		assertEquals(10, result.getSteps());
+		List<Point> partial = result.getPartialPath();
+		assertFalse(partial.isEmpty());
+		//the partial path leads closer to the goal
+		Point end = partial.get(partial.size() - 1);
+		assertTrue(Math.max(6 - end.x, 6 - end.y) < 6);
+
+		result = finder.findPath(helper, new Point(0,0), new Point(6,6), 
+				new SearchLimits(0, Integer.MAX_VALUE, SearchLimits.UNLIMITED));
+		assertEquals(SearchStatus.ABORTED, result.getStatus());
+		assertTrue(result.getPartialPath().isEmpty());
+	}
+
+	public void testVisitedLimit()
+	{
+		SearchLimits limits = new SearchLimits();
+		limits.setMaxVisited(17);
+		SearchResult<Point> result = finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h4), 
+				new Point(0,0), new Point(3,3), limits);
+		assertEquals(SearchStatus.FOUND, result.getStatus());
+
+		result = finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h2), 
+				new Point(0,0), new Point(6,6), limits);
+		assertEquals(SearchStatus.ABORTED, result.getStatus());
+		assertTrue(result.getVisited() >= 17);
+		assertTrue(result.getVisited() < 17 + 8);
+	}
+
+	public void testTimeLimitAndCancel()
+	{
+		TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		SearchLimits limits = new SearchLimits();
+		limits.setTimeLimit(0);
+		assertEquals(SearchStatus.ABORTED, finder.findPath(helper, new Point(0,0), new Point(6,6), limits).getStatus());
+
+		limits = new SearchLimits();
+		limits.cancel();
+		SearchResult<Point> result = finder.findPath(helper, new Point(0,0), new Point(6,6), limits);
+		assertEquals(SearchStatus.ABORTED, result.getStatus());
+		assertEquals(0, result.getSteps());
+	}
+}
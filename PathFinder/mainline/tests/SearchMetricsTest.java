@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.List;
+
+import pathfinder.GridPathHelper;
+import pathfinder.ISearchListener;
+import pathfinder.Pathfinder;
+import pathfinder.SearchContext;
+import pathfinder.SearchLimits;
+import pathfinder.SearchMetrics;
+import pathfinder.SearchStatus;
+import pathfinder.heuristics.DiagonalNotEqual;
+import benchmarks.MapGenerator;
+import junit.framework.TestCase;
+
+public class SearchMetricsTest extends TestCase 
+{
+	Pathfinder<Point> finder;
+
+	public void setUp()
+	{
+		finder = new Pathfinder<Point>();
+		finder.setHeuristic(new DiagonalNotEqual<Point>());
+	}
+
+	public void testCounters()
+	{
+		TestUtils.LevelHelper helper = new TestUtils.LevelHelper(PathFinderTest.h1);
+		finder.findPath(helper, new Point(0,0), new Point(6,6));
+		SearchContext<Point> ctx = finder.getSearchContext();
+		assertEquals(finder.getSteps(), ctx.getExpandedNodes());
+		assertEquals(ctx.getVisitedPoints().size(), ctx.getExpandedNodes());
+		//every generated node except the start got its heuristic computed once
+		assertEquals(ctx.getGeneratedNodes(), ctx.getHeuristicCalls());
+		assertTrue(ctx.getCostEvaluations() >= ctx.getGeneratedNodes() - 1 + ctx.getDecreaseKeys());
+		assertTrue(ctx.getPeakOpenSize() > 0);
+		assertTrue(ctx.getPeakOpenSize() <= ctx.getGeneratedNodes() - ctx.getExpandedNodes() + 1);
+	}
+
+	public void testListener()
+	{
+		final int[] calls = new int[SearchStatus.values().length];
+		final int[] steps = new int[1];
+		finder.setListener(new ISearchListener()
+		{
+			public void searchStarted(SearchContext<?> ctx)
+			{
+			}
+
+			public void searchFinished(SearchContext<?> ctx, SearchStatus status)
+			{
+				calls[status.ordinal()]++;
+				steps[0] = ctx.getSteps();
+			}
+		});
+		finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h1), new Point(0,0), new Point(6,6));
+		assertEquals(1, calls[SearchStatus.FOUND.ordinal()]);
+		assertEquals(finder.getSteps(), steps[0]);
+		finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h5), new Point(0,0), new Point(2,2));
+		assertEquals(1, calls[SearchStatus.UNREACHABLE.ordinal()]);
+		finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h1), new Point(0,0), new Point(6,6),
+				new SearchLimits(3, Integer.MAX_VALUE, SearchLimits.UNLIMITED));
+		assertEquals(1, calls[SearchStatus.ABORTED.ordinal()]);
+		finder.startSearch(new TestUtils.LevelHelper(PathFinderTest.h1), new Point(0,0), new Point(6,6)).finish();
+		assertEquals(2, calls[SearchStatus.FOUND.ordinal()]);
+
+		finder.setListener(null);
+		finder.findPath(new TestUtils.LevelHelper(PathFinderTest.h1), new Point(0,0), new Point(6,6));
+		assertEquals(2, calls[SearchStatus.FOUND.ordinal()]);
+	}
+
+	public void testHistograms() throws InterruptedException
+	{
+		final GridPathHelper helper = new GridPathHelper(MapGenerator.rooms(64, 1));
+		final Point[][] queries = MapGenerator.randomQueries((pathfinder.ArrayGridMap) helper.getMap(), 50, 1);
+		SearchMetrics metrics = new SearchMetrics();
+		finder.setListener(metrics);
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++)
+		{
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					for (Point[] query : queries)
+					{
+						finder.findPath(helper, query[0], query[1]);
+					}
+				}
+			};
+			threads[i].start();
+		}
+		long total = 0;
+		for (Point[] query : queries)
+		{
+			List<Point> path = finder.findPath(helper, query[0], query[1]);
+			assertNotNull(path);
+			total += finder.getSteps();
+		}
+		for (Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		assertEquals(250, metrics.getSearches());
+		assertEquals(250, metrics.getSearches(SearchStatus.FOUND));
+		SearchMetrics.Histogram expanded = metrics.getExpandedNodes();
+		assertEquals(250, expanded.getCount());
+		assertEquals(total * 5, expanded.getSum());
+		long[] buckets = expanded.getBuckets();
+		long count = 0;
+		for (long b : buckets)
+		{
+			count += b;
+		}
+		assertEquals(250, count);
+		assertTrue(expanded.getPercentile(0.5) <= expanded.getPercentile(0.99));
+		assertTrue(expanded.getPercentile(1.0) <= expanded.getMax());
+		assertTrue(expanded.getPercentile(1.0) * 2 >= expanded.getMax());
+		assertTrue(metrics.getPeakOpenSize().getMax() > 0);
+
+		metrics.reset();
+		assertEquals(0, metrics.getSearches());
+		assertEquals(0, metrics.getExpandedNodes().getCount());
+	}
+}
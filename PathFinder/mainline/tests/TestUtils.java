@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2007 Egor Tsinko
+ * 
+ * This file is part of A* Pathfinder.
+ *
+ * A* Pathfinder is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * A* Pathfinder is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with A* Pathfinder.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package tests;
+
+import java.awt.Point;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.Assert;
+import pathfinder.ArrayGridMap;
+import pathfinder.IPathHelper;
+import pathfinder.heuristics.IHeuristic;
+
+/**
+ * Fixtures shared by the tests which compare a pathfinder to the plain A*
+ * @author Egor Tsinko
+ */
+public final class TestUtils
+{
+	private TestUtils()
+	{
+	}
+
+	/**
+	 * Helper for the levels of <code>PathFinderTest</code>, where the cost of movement is the
+	 * cost of the destination and 99 is a wall
+	 */
+	static class LevelHelper implements IPathHelper<Point>
+	{
+		private static final int NP = 99;
+
+		final int[][] level;
+
+		LevelHelper(int[][] level)
+		{
+			this.level = level;
+		}
+
+		public float getCost(Point sourcePoint, Point destPoint)
+		{
+			return level[destPoint.x][destPoint.y];
+		}
+
+		public List<Point> getNeighbours(Point point)
+		{
+			List<Point> points = new LinkedList<Point>();
+			for (int x = Math.max(0, point.x - 1); x <= Math.min(level[0].length - 1, point.x + 1); x++)
+			{
+				for (int y = Math.max(0, point.y - 1); y <= Math.min(level.length - 1, point.y + 1); y++)
+				{
+					if (level[x][y] != NP && (point.x != x || point.y != y))
+					{
+						points.add(new Point(x, y));
+					}
+				}
+			}
+			return points;
+		}
+	}
+
+	/** heuristic which turns A* into Dijkstra, so that the reference paths are optimal */
+	public static class ZeroHeuristic implements IHeuristic<Point>
+	{
+		public float calculateHeuristic(Point start, Point goal)
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * Sums the costs of the path, fails if two consecutive cells of the path aren't neighbours
+	 * @param helper helper of the map the path was found on
+	 * @param start start of the path, which isn't included into the path
+	 * @param path path to measure
+	 * @return cost of the path
+	 */
+	public static double pathCost(IPathHelper<Point> helper, Point start, List<Point> path)
+	{
+		double cost = 0;
+		Point prev = start;
+		for (Point p : path)
+		{
+			Assert.assertTrue(helper.getNeighbours(prev).contains(p));
+			cost += helper.getCost(prev, p);
+			prev = p;
+		}
+		return cost;
+	}
+
+	/**
+	 * Creates a square map with random walls and costs. Every cell draws a number
+	 * <b>r</b> from 0 to 9, the cell is a wall if <b>r</b> &lt; <b>walls</b>, otherwise
+	 * its cost is 1 + <b>r</b> % <b>costs</b>.
+	 * @param random source of the numbers
+	 * @param size width and height of the map
+	 * @param walls how many tenths of the cells are walls
+	 * @param costs number of different costs
+	 */
+	public static ArrayGridMap randomMap(Random random, int size, int walls, int costs)
+	{
+		ArrayGridMap map = new ArrayGridMap(size, size);
+		for (int x = 0; x < size; x++)
+		{
+			for (int y = 0; y < size; y++)
+			{
+				int r = random.nextInt(10);
+				map.setCost(x, y, r < walls ? -1 : 1 + r % costs);
+			}
+		}
+		return map;
+	}
+
+	/**
+	 * Creates a map of cost 1 with random walls
+	 * @param random source of the numbers
+	 * @param width width of the map
+	 * @param height height of the map
+	 * @param walls probability of a cell to be a wall
+	 */
+	public static ArrayGridMap randomUniformMap(Random random, int width, int height, double walls)
+	{
+		ArrayGridMap map = new ArrayGridMap(width, height);
+		for (int x = 0; x < width; x++)
+		{
+			for (int y = 0; y < height; y++)
+			{
+				if (random.nextDouble() < walls)
+				{
+					map.setCost(x, y, -1);
+				}
+			}
+		}
+		return map;
+	}
+}